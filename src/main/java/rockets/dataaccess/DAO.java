@@ -4,6 +4,8 @@ import rockets.model.Entity;
 import rockets.model.User;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface DAO {
     <T extends Entity> T load(Class<T> clazz, Long id);
@@ -12,9 +14,40 @@ public interface DAO {
 
     <T extends Entity> Collection<T> loadAll(Class<T> clazz);
 
+    /**
+     * Loads the entities of a class with the given ids in one round trip, in
+     * the order of the ids. Ids with no stored entity are skipped.
+     */
+    <T extends Entity> List<T> loadAll(Class<T> clazz, Collection<Long> ids);
+
+    /**
+     * Passes every stored entity of a class to the consumer, loading at most
+     * {@code chunkSize} of them at a time, so that only the current chunk is
+     * held in memory. Entities are visited in id order, and each chunk seeks
+     * past the last id of the one before instead of skipping an offset.
+     */
+    <T extends Entity> void forEach(Class<T> clazz, int chunkSize, Consumer<? super T> consumer);
+
+    /**
+     * Loads one page of entities in keyset order: first those with a value of
+     * the string property, ascending by value and then by id, and then those
+     * without one, by id. The page holds at most {@code limit} entities just
+     * after the key given by {@code fromValue} and {@code fromId}, or just
+     * before it when {@code backwards} is set, and is returned in ascending
+     * order either way; a null {@code fromValue} with an id names an entity
+     * without a value. Without a key the page starts at the first, or
+     * backwards the last, entity. A null property orders by id alone. The
+     * page query does not load relationships, and unlike an offset it does
+     * not read and discard the entities of earlier pages.
+     */
+    <T extends Entity> List<T> loadPage(Class<T> clazz, String property, String fromValue, Long fromId,
+                                        boolean backwards, int limit);
+
     <T extends Entity> void delete(T entity);
 
     User getUserByEmail(String email);
 
+    void addListener(DAOListener listener);
+
     void close();
 }
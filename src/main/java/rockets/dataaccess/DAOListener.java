@@ -0,0 +1,14 @@
+package rockets.dataaccess;
+
+import rockets.model.Entity;
+
+/**
+ * Callback for components that keep derived state (indexes, caches) over the
+ * entities stored behind a {@link DAO}. Listeners are notified after the write
+ * has been committed, so the entity already carries its generated id.
+ */
+public interface DAOListener {
+    void onCreateOrUpdate(Entity entity);
+
+    void onDelete(Entity entity);
+}
@@ -0,0 +1,95 @@
+package rockets.dataaccess;
+
+import rockets.model.Entity;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A counter that every DAO write moves forward. Anything derived from the
+ * stored data can be stamped with the version it was computed at, and is
+ * stale once the current version differs.
+ * <p>
+ * The version and time of the latest write are also kept per entity type,
+ * so something derived from one type only, such as a listing page, stays
+ * fresh through writes to other types. Before any write to a type, its
+ * version is 0 and its last modification is when the counter was created.
+ */
+public class DataVersion implements DAOListener {
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Class<?>, Stamp> stamps = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final long createdAt;
+
+    private static final class Stamp {
+        private final long version;
+        private final long millis;
+
+        Stamp(long version, long millis) {
+            this.version = version;
+            this.millis = millis;
+        }
+    }
+
+    public DataVersion() {
+        this(Clock.systemUTC());
+    }
+
+    public DataVersion(Clock clock) {
+        notNull(clock);
+        this.clock = clock;
+        this.createdAt = clock.millis();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * @return the version of the latest write to the entity type, or 0 if none.
+     */
+    public long current(Class<? extends Entity> clazz) {
+        Stamp stamp = stamps.get(clazz);
+        return null == stamp ? 0 : stamp.version;
+    }
+
+    /**
+     * @return the epoch millis of the latest write to the entity type, or of
+     * the creation of this counter if none.
+     */
+    public long lastModified(Class<? extends Entity> clazz) {
+        Stamp stamp = stamps.get(clazz);
+        return null == stamp ? createdAt : stamp.millis;
+    }
+
+    /**
+     * @return the epoch millis at which this counter was created.
+     */
+    public long createdAt() {
+        return createdAt;
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+
+    private void bump(Entity entity) {
+        Stamp stamp = new Stamp(bump(), clock.millis());
+        // Concurrent writes may finish out of order, so keep the latest
+        stamps.merge(entity.getClass(), stamp, (old, stamped) -> old.version > stamped.version ? old : stamped);
+    }
+
+    @Override
+    public void onCreateOrUpdate(Entity entity) {
+        bump(entity);
+    }
+
+    @Override
+    public void onDelete(Entity entity) {
+        bump(entity);
+    }
+}
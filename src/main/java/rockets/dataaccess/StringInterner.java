@@ -0,0 +1,64 @@
+package rockets.dataaccess;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * A thread-safe interner of repeated string values such as countries, orbits,
+ * launch sites and payload names. Every distinct value is kept once, so
+ * entities loaded at different times share one canonical instance.
+ * <p>
+ * Lookups read a concurrent map without locking; only the first sighting of a
+ * value takes a lock. The interner holds at most {@code capacity} values;
+ * once it is full, unseen values are returned as they are.
+ */
+public final class StringInterner {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+
+    public StringInterner() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the most distinct values the interner keeps.
+     */
+    public StringInterner(int capacity) {
+        isTrue(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the canonical instance equal to the value, the value itself if
+     * the interner is full and has not seen it, or null for null.
+     */
+    public String intern(String value) {
+        if (null == value) {
+            return null;
+        }
+        String canonical = values.get(value);
+        return null != canonical ? canonical : add(value);
+    }
+
+    private synchronized String add(String value) {
+        String canonical = values.get(value);
+        if (null != canonical) {
+            return canonical;
+        }
+        if (values.size() < capacity) {
+            values.put(value, value);
+        }
+        return value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -9,6 +9,8 @@ import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import org.neo4j.ogm.transaction.Transaction;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.DAOListener;
+import rockets.dataaccess.StringInterner;
 import rockets.model.Entity;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
@@ -16,21 +18,38 @@ import rockets.model.Rocket;
 import rockets.model.User;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
 import static org.neo4j.ogm.cypher.ComparisonOperator.EQUALS;
 
 public class Neo4jDAO implements DAO {
     private static final int DEPTH_ENTITY = 1;
 
+    // The properties that listings are sorted by, indexed so that loadPage seeks instead of scanning
+    private static final String[] SORT_INDEXES = {":Rocket(name)", ":User(lastName)"};
+
     private Session session;
     private SessionFactory sessionFactory;
+    private final List<DAOListener> listeners = new CopyOnWriteArrayList<>();
+    // Scoped to this DAO, so the strings it keeps go away with it
+    private final StringInterner strings = new StringInterner();
 
     public Neo4jDAO(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
         if (null == session) {
             session = sessionFactory.openSession();
         }
+        createSortIndexes();
     }
 
     public Neo4jDAO(String dbAddress) {
@@ -45,17 +64,28 @@ public class Neo4jDAO implements DAO {
 
         sessionFactory = new SessionFactory(driver, User.class.getPackage().getName());
         session = sessionFactory.openSession();
+        createSortIndexes();
+    }
+
+    // Creating an index that exists already is a no-op. Schema changes need a session of their own,
+    // since they cannot share a transaction with data writes
+    private void createSortIndexes() {
+        Session schemaSession = sessionFactory.openSession();
+        for (String index : SORT_INDEXES) {
+            schemaSession.query("CREATE INDEX ON " + index, Collections.emptyMap());
+        }
     }
 
     @Override
     public <T extends Entity> T load(Class<T> clazz, Long id) {
-        return session.load(clazz, id, DEPTH_ENTITY);
+        return intern(session.load(clazz, id, DEPTH_ENTITY));
     }
 
     @Override
     public <T extends Entity> T createOrUpdate(T entity) {
         Class clazz = entity.getClass();
 
+        intern(entity);
         T existingEntity = findExistingEntity(entity, clazz);
         if (null != existingEntity) {
             entity.setId(existingEntity.getId());
@@ -64,9 +94,40 @@ public class Neo4jDAO implements DAO {
         saveOutgoingEntities(entity, clazz);
         session.save(entity);
         tx.commit();
+        List<Entity> saved = referencedEntities(entity);
+        saved.add(entity);
+        for (DAOListener listener : listeners) {
+            for (Entity each : saved) {
+                listener.onCreateOrUpdate(each);
+            }
+        }
         return entity;
     }
 
+    // session.save also saves the entities a launch or rocket refers to, so listeners hear of them too
+    private static List<Entity> referencedEntities(Entity entity) {
+        List<Entity> referenced = new ArrayList<>();
+        Rocket rocket = null;
+        if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            rocket = launch.getLaunchVehicle();
+            if (null != launch.getLaunchServiceProvider()) {
+                referenced.add(launch.getLaunchServiceProvider());
+            }
+        } else if (entity instanceof Rocket) {
+            rocket = (Rocket) entity;
+        }
+        if (null != rocket) {
+            if (rocket != entity) {
+                referenced.add(rocket);
+            }
+            if (null != rocket.getManufacturer() && !referenced.contains(rocket.getManufacturer())) {
+                referenced.add(rocket.getManufacturer());
+            }
+        }
+        return referenced;
+    }
+
     // Makes sure we save associated entities correctly (only once)
     private <T extends Entity> void saveOutgoingEntities(T entity, Class clazz) {
         if (clazz.equals(Rocket.class)) {
@@ -117,12 +178,152 @@ public class Neo4jDAO implements DAO {
 
     @Override
     public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
-        return session.loadAll(clazz);
+        return intern(session.loadAll(clazz));
+    }
+
+    @Override
+    public <T extends Entity> List<T> loadAll(Class<T> clazz, Collection<Long> ids) {
+        notNull(clazz);
+        notNull(ids);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // A session of its own, as the shared one is not safe to use from several threads
+        Map<Long, T> loaded = new HashMap<>();
+        for (T entity : sessionFactory.openSession().loadAll(clazz, ids, DEPTH_ENTITY)) {
+            loaded.put(entity.getId(), intern(entity));
+        }
+        List<T> entities = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = loaded.get(id);
+            if (null != entity) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public <T extends Entity> void forEach(Class<T> clazz, int chunkSize, Consumer<? super T> consumer) {
+        notNull(clazz);
+        notNull(consumer);
+        isTrue(chunkSize > 0, "chunk size must be positive");
+        // Seeks past the last id of the previous chunk, so no chunk re-reads the earlier ones
+        String cypher = "MATCH (n:" + clazz.getSimpleName() + ") WHERE id(n) > $last"
+                + " RETURN id(n) ORDER BY id(n) LIMIT " + chunkSize;
+        long last = -1;
+        while (true) {
+            // A session per chunk, so the entities of earlier chunks are not kept in its identity map
+            Session chunkSession = sessionFactory.openSession();
+            List<Long> ids = new ArrayList<>(chunkSize);
+            for (Long id : chunkSession.query(Long.class, cypher, Collections.singletonMap("last", last))) {
+                ids.add(id);
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<T> chunk = new ArrayList<>(chunkSession.loadAll(clazz, ids, DEPTH_ENTITY));
+            chunk.sort(Comparator.comparing(Entity::getId));
+            for (T entity : chunk) {
+                consumer.accept(intern(entity));
+            }
+            if (ids.size() < chunkSize) {
+                return;
+            }
+            last = ids.get(ids.size() - 1);
+        }
+    }
+
+    @Override
+    public <T extends Entity> List<T> loadPage(Class<T> clazz, String property, String fromValue, Long fromId,
+                                               boolean backwards, int limit) {
+        notNull(clazz);
+        isTrue(limit > 0, "limit must be positive");
+        isTrue(null == property || property.matches("[A-Za-z_][A-Za-z0-9_]*"), "invalid property name: %s", property);
+        String match = "MATCH (n:" + clazz.getSimpleName() + ")";
+        List<T> page = new ArrayList<>(limit);
+        if (null == property) {
+            page.addAll(idPass(clazz, match, null, fromId, backwards, limit));
+        } else {
+            // Entities with a value are listed before those without, in a pass of their own,
+            // so that the first pass stays a seek on the property's index
+            String missing = "n." + property + " IS NULL";
+            boolean fromMissing = null != fromId && null == fromValue;
+            if (!backwards) {
+                if (!fromMissing) {
+                    page.addAll(valuePass(clazz, match, property, fromValue, fromId, false, limit));
+                }
+                if (page.size() < limit) {
+                    page.addAll(idPass(clazz, match, missing, fromMissing ? fromId : null, false, limit - page.size()));
+                }
+            } else {
+                if (null == fromId || fromMissing) {
+                    page.addAll(idPass(clazz, match, missing, fromId, true, limit));
+                }
+                if (page.size() < limit) {
+                    page.addAll(valuePass(clazz, match, property, fromValue, fromMissing ? null : fromId, true,
+                            limit - page.size()));
+                }
+            }
+        }
+        if (backwards) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    // Entities with a value of the property, by value and then id, from just past (fromValue, fromId)
+    private <T extends Entity> List<T> valuePass(Class<T> clazz, String match, String property, String fromValue,
+                                                 Long fromId, boolean backwards, int limit) {
+        String key = "n." + property;
+        String order = backwards ? " DESC" : "";
+        Map<String, Object> parameters = new HashMap<>();
+        String where;
+        if (null == fromId) {
+            where = "exists(" + key + ")";
+        } else {
+            String after = backwards ? " < " : " > ";
+            parameters.put("value", fromValue);
+            parameters.put("id", fromId);
+            // The inclusive bound is what the planner turns into an index range seek
+            where = key + (backwards ? " <= " : " >= ") + "$value AND (" + key + after + "$value OR id(n)"
+                    + after + "$id)";
+        }
+        return query(clazz, match + " WHERE " + where + " RETURN n ORDER BY " + key + order + ", id(n)" + order
+                + " LIMIT " + limit, parameters);
+    }
+
+    // Entities meeting the condition, if any, by id from just past fromId
+    private <T extends Entity> List<T> idPass(Class<T> clazz, String match, String condition, Long fromId,
+                                              boolean backwards, int limit) {
+        String order = backwards ? " DESC" : "";
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = new ArrayList<>();
+        if (null != condition) {
+            conditions.add(condition);
+        }
+        if (null != fromId) {
+            parameters.put("id", fromId);
+            conditions.add("id(n)" + (backwards ? " < " : " > ") + "$id");
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return query(clazz, match + where + " RETURN n ORDER BY id(n)" + order + " LIMIT " + limit, parameters);
+    }
+
+    private <T extends Entity> List<T> query(Class<T> clazz, String cypher, Map<String, Object> parameters) {
+        List<T> entities = new ArrayList<>();
+        for (T entity : session.query(clazz, cypher, parameters)) {
+            entities.add(intern(entity));
+        }
+        return entities;
     }
 
     // TODO: need to be tested!
     public <T extends Entity> void delete(T entity) {
         session.delete(entity);
+        for (DAOListener listener : listeners) {
+            listener.onDelete(entity);
+        }
     }
 
     @Override
@@ -132,8 +333,28 @@ public class Neo4jDAO implements DAO {
         if (null == users || users.isEmpty()) {
             return null;
         } else {
-            return users.iterator().next();
+            return intern(users.iterator().next());
+        }
+    }
+
+    // Makes entities share one instance of each repeated string value
+    private <T extends Entity> T intern(T entity) {
+        if (null != entity) {
+            entity.internStrings(strings::intern);
         }
+        return entity;
+    }
+
+    private <T extends Entity> Collection<T> intern(Collection<T> entities) {
+        for (T entity : entities) {
+            intern(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public void addListener(DAOListener listener) {
+        listeners.add(listener);
     }
 
     @Override
@@ -0,0 +1,216 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.DataVersion;
+import rockets.mining.sketch.Estimate;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link RocketMiner} that serves repeated queries from a
+ * {@link MinerResultCache}. Entries stay valid until the next DAO write, and
+ * answers over a trailing window of days also only until the day changes.
+ * Cached lists are shared between callers and therefore unmodifiable.
+ * <p>
+ * Every public query is overridden here. Only the queries taking a filter
+ * function pass straight through, as a function is no cache key.
+ */
+public class CachingRocketMiner extends RocketMiner {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final DataVersion dataVersion;
+    private final MinerResultCache cache;
+    private final Clock clock;
+
+    public CachingRocketMiner(DAO dao) {
+        this(dao, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingRocketMiner(DAO dao, int maxEntries) {
+        this(dao, maxEntries, Clock.systemDefaultZone());
+    }
+
+    public CachingRocketMiner(DAO dao, int maxEntries, Clock clock) {
+        super(dao, clock);
+        this.clock = clock;
+        this.dataVersion = new DataVersion();
+        this.cache = new MinerResultCache(dataVersion, maxEntries);
+        dao.addListener(dataVersion);
+    }
+
+    public MinerResultCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void refresh() {
+        super.refresh();
+        dataVersion.bump();
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k) {
+        return cache.get("mostLaunchedRockets", () -> unmodifiable(super.mostLaunchedRockets(k)), k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        return cache.get("mostReliableLaunchServiceProviders", () -> unmodifiable(super.mostReliableLaunchServiceProviders(k)), k);
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k, int days) {
+        return cache.get("mostLaunchedRockets", () -> unmodifiable(super.mostLaunchedRockets(k, days)), k, days, today());
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k, int days) {
+        return cache.get("mostReliableLaunchServiceProviders", () -> unmodifiable(super.mostReliableLaunchServiceProviders(k, days)), k, days, today());
+    }
+
+    @Override
+    public BigDecimal rollingSuccessRate(LaunchServiceProvider provider, int days) {
+        return cache.get("rollingSuccessRate", () -> super.rollingSuccessRate(provider, days), provider, days, today());
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        return cache.get("mostRecentLaunches", () -> unmodifiable(super.mostRecentLaunches(k)), k);
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        return cache.get("mostExpensiveLaunches", () -> unmodifiable(super.mostExpensiveLaunches(k)), k);
+    }
+
+    @Override
+    public List<Launch> launchesBetween(LocalDate from, LocalDate to) {
+        return cache.get("launchesBetween", () -> unmodifiable(super.launchesBetween(from, to)), from, to);
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunchesInYear(int k, int year) {
+        return cache.get("mostExpensiveLaunchesInYear", () -> unmodifiable(super.mostExpensiveLaunchesInYear(k, year)), k, year);
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k, LaunchServiceProvider provider) {
+        return cache.get("mostExpensiveLaunches", () -> unmodifiable(super.mostExpensiveLaunches(k, provider)), k, provider);
+    }
+
+    @Override
+    public List<Launch> launchesPricedBetween(BigDecimal min, BigDecimal max) {
+        return cache.get("launchesPricedBetween", () -> unmodifiable(super.launchesPricedBetween(min, max)), min, max);
+    }
+
+    @Override
+    public String dominantCountry(String orbit) {
+        return cache.get("dominantCountry", () -> super.dominantCountry(orbit), orbit);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        return cache.get("highestRevenueLaunchServiceProviders", () -> unmodifiable(super.highestRevenueLaunchServiceProviders(k, year)), k, year);
+    }
+
+    @Override
+    public List<Money> priceQuantiles(LaunchServiceProvider provider, int year, double... q) {
+        // The array is keyed by its contents, as arrays compare by identity
+        List<Double> fractions = null == q ? null : Arrays.stream(q).boxed().collect(Collectors.toList());
+        return cache.get("priceQuantiles", () -> unmodifiable(super.priceQuantiles(provider, year, q)), provider, year, fractions);
+    }
+
+    @Override
+    public List<Launch> launchesFromCountry(String country) {
+        return cache.get("launchesFromCountry", () -> unmodifiable(super.launchesFromCountry(country)), country);
+    }
+
+    @Override
+    public List<Launch> launchesMatching(Function<LaunchBitmapIndex, LaunchFilter> filter) {
+        return super.launchesMatching(filter);
+    }
+
+    @Override
+    public int countLaunchesMatching(Function<LaunchBitmapIndex, LaunchFilter> filter) {
+        return super.countLaunchesMatching(filter);
+    }
+
+    @Override
+    public BigDecimal successfulLaunchRateInYear(int year) {
+        return cache.get("successfulLaunchRateInYear", () -> super.successfulLaunchRateInYear(year), year);
+    }
+
+    @Override
+    public Money revenueInYear(int year) {
+        return cache.get("revenueInYear", () -> super.revenueInYear(year), year);
+    }
+
+    @Override
+    public Money revenueInYear(LaunchServiceProvider provider, int year) {
+        return cache.get("revenueInYear", () -> super.revenueInYear(provider, year), provider, year);
+    }
+
+    @Override
+    public <K, V> List<LaunchQuery.Result<K, V>> run(LaunchQuery<K, V> query) {
+        return cache.get("run", () -> unmodifiable(super.run(query)), query);
+    }
+
+    @Override
+    public List<Launch> launchesCarrying(String payload) {
+        return cache.get("launchesCarrying", () -> unmodifiable(super.launchesCarrying(payload)), payload);
+    }
+
+    @Override
+    public List<Launch> launchesCarryingPrefix(String prefix) {
+        return cache.get("launchesCarryingPrefix", () -> unmodifiable(super.launchesCarryingPrefix(prefix)), prefix);
+    }
+
+    @Override
+    public List<String> payloadsFlownWith(String payload, int k) {
+        return cache.get("payloadsFlownWith", () -> unmodifiable(super.payloadsFlownWith(payload, k)), payload, k);
+    }
+
+    @Override
+    public Estimate approximateDistinctPayloads(LaunchServiceProvider provider) {
+        return cache.get("approximateDistinctPayloads", () -> super.approximateDistinctPayloads(provider), provider);
+    }
+
+    @Override
+    public Estimate approximateDistinctPayloads(Rocket rocket) {
+        return cache.get("approximateDistinctPayloads", () -> super.approximateDistinctPayloads(rocket), rocket);
+    }
+
+    @Override
+    public Estimate approximateDistinctPayloadsInYear(int year) {
+        return cache.get("approximateDistinctPayloadsInYear", () -> super.approximateDistinctPayloadsInYear(year), year);
+    }
+
+    @Override
+    public Estimate approximateDistinctLaunchSites(String country) {
+        return cache.get("approximateDistinctLaunchSites", () -> super.approximateDistinctLaunchSites(country), country);
+    }
+
+    @Override
+    public Estimate approximatePayloadFrequency(String payload) {
+        return cache.get("approximatePayloadFrequency", () -> super.approximatePayloadFrequency(payload), payload);
+    }
+
+    // Windowed answers change with the day as well as with the data
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return Collections.unmodifiableList(list);
+    }
+}
@@ -0,0 +1,111 @@
+package rockets.mining;
+
+import org.roaringbitmap.RoaringBitmap;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Compressed bitmap indexes from each distinct orbit, country, launch site,
+ * outcome and launch service provider to the set of launch rows holding it.
+ * Filters built from these bitmaps cost time proportional to the size of the
+ * compressed bitmaps involved rather than to the number of launches.
+ * <p>
+ * A filter looked up here is a view of the index's own bitmap, not a copy, so
+ * it is only valid while the miner holds its read lock. A filter kept past
+ * the query must be {@link LaunchFilter#copy() copied}.
+ */
+public class LaunchBitmapIndex implements LaunchIndex {
+    private LaunchColumns columns;
+    private final List<RoaringBitmap> orbits = new ArrayList<>();
+    private final List<RoaringBitmap> countries = new ArrayList<>();
+    private final List<RoaringBitmap> sites = new ArrayList<>();
+    private final List<RoaringBitmap> providers = new ArrayList<>();
+    private final RoaringBitmap successful = new RoaringBitmap();
+    private final RoaringBitmap failed = new RoaringBitmap();
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        orbits.clear();
+        countries.clear();
+        sites.clear();
+        providers.clear();
+        successful.clear();
+        failed.clear();
+    }
+
+    @Override
+    public void add(int row) {
+        bitmap(orbits, columns.orbits()[row]).add(row);
+        bitmap(countries, columns.countries()[row]).add(row);
+        bitmap(sites, columns.sites()[row]).add(row);
+        bitmap(providers, columns.providers()[row]).add(row);
+        outcomeBitmap(columns.outcome(row)).add(row);
+    }
+
+    @Override
+    public void remove(int row) {
+        bitmap(orbits, columns.orbits()[row]).remove(row);
+        bitmap(countries, columns.countries()[row]).remove(row);
+        bitmap(sites, columns.sites()[row]).remove(row);
+        bitmap(providers, columns.providers()[row]).remove(row);
+        // The launch may have been modified in place, so clear both outcomes
+        successful.remove(row);
+        failed.remove(row);
+    }
+
+    // Missing values go to a scratch bitmap that is never queried
+    private static RoaringBitmap bitmap(List<RoaringBitmap> bitmaps, int code) {
+        if (code == LaunchColumns.NO_VALUE) {
+            return new RoaringBitmap();
+        }
+        while (bitmaps.size() <= code) {
+            bitmaps.add(new RoaringBitmap());
+        }
+        return bitmaps.get(code);
+    }
+
+    private RoaringBitmap outcomeBitmap(Launch.LaunchOutcome outcome) {
+        if (null == outcome) {
+            return new RoaringBitmap();
+        }
+        return outcome == Launch.LaunchOutcome.SUCCESSFUL ? successful : failed;
+    }
+
+    private static LaunchFilter filter(List<RoaringBitmap> bitmaps, int code) {
+        if (code == LaunchColumns.NO_VALUE || code >= bitmaps.size()) {
+            return LaunchFilter.NONE;
+        }
+        return new LaunchFilter(bitmaps.get(code));
+    }
+
+    public LaunchFilter orbit(String orbit) {
+        notNull(orbit);
+        return filter(orbits, columns.orbitDictionary().code(orbit));
+    }
+
+    public LaunchFilter country(String country) {
+        notNull(country);
+        return filter(countries, columns.countryDictionary().code(country));
+    }
+
+    public LaunchFilter launchSite(String launchSite) {
+        notNull(launchSite);
+        return filter(sites, columns.siteDictionary().code(launchSite));
+    }
+
+    public LaunchFilter provider(LaunchServiceProvider provider) {
+        notNull(provider);
+        return filter(providers, columns.providerDictionary().code(provider));
+    }
+
+    public LaunchFilter outcome(Launch.LaunchOutcome outcome) {
+        notNull(outcome);
+        return new LaunchFilter(outcomeBitmap(outcome));
+    }
+}
@@ -0,0 +1,575 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A column-oriented table of launches, laid out so that the miner can filter
+ * and group with primitive loops instead of chasing object references. Row
+ * {@code i} of every column describes the same launch.
+ * <p>
+ * Repeated values (vehicles, providers, orbits, launch sites, countries) are
+ * dictionary coded: the column holds an int code and the dictionary maps the
+ * code back to the value. A missing value is coded as {@link #NO_VALUE}.
+ * <p>
+ * Rows are never reordered. {@link #upsert(Launch)} overwrites the row of a
+ * launch with a known id and otherwise appends, and {@link #delete(Launch)}
+ * clears the row's bit in {@link #live()}, so row numbers stay valid for the
+ * {@link LaunchIndex}es attached to the table. The table is not thread-safe.
+ * <p>
+ * A table loaded from a {@link DAO} streams the launches in chunks and keeps
+ * only the columns of each stored launch, not the launch itself, so its size
+ * grows by a few primitives per launch. A query names the rows it returns
+ * with {@link #select}, and the stored launches among them are loaded back
+ * from the DAO together, once the table is no longer in use.
+ */
+public final class LaunchColumns {
+    public static final int NO_VALUE = -1;
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    public static final int PRICE_SCALE = Money.DEFAULT_SCALE;
+    public static final int MAX_PRICE_SCALE = 18;
+    public static final long NO_ID = Long.MIN_VALUE;
+    public static final int LOAD_CHUNK_SIZE = 512;
+
+    private static final Launch.LaunchOutcome[] OUTCOMES = Launch.LaunchOutcome.values();
+    private static final byte NO_OUTCOME = -1;
+    private static final int[] NO_PAYLOAD = new int[0];
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final DAO dao;
+    private int size;
+    private Launch[] launches;
+    private long[] ids;
+    private byte[] outcomes;
+    private int[][] payloads;
+    private int[] epochDays;
+    // The calendar year of each epoch day, so scans never build a LocalDate
+    private int[] years;
+    private long[] prices;
+    // Widens to the most fractional digits of any stored price, so every price is exact
+    private int priceScale = PRICE_SCALE;
+    private int[] vehicles;
+    private int[] providers;
+    private int[] orbits;
+    private int[] sites;
+    private int[] countries;
+    // Bounds over every date ever stored; they widen but never shrink
+    private int firstEpochDay = Integer.MAX_VALUE;
+    private int lastEpochDay = NO_DATE;
+    private final BitSet live = new BitSet();
+    private final BitSet successful = new BitSet();
+    // Rows whose launch has a price; an unpriced row stores 0 in the price column
+    private final BitSet priced = new BitSet();
+
+    private final Map<Long, Integer> rowsById = new HashMap<>();
+    private final List<LaunchIndex> indexes = new ArrayList<>();
+
+    private final Dictionary<Rocket> vehicleDictionary = new Dictionary<>();
+    private final Dictionary<LaunchServiceProvider> providerDictionary = new Dictionary<>();
+    private final Dictionary<String> orbitDictionary = new Dictionary<>();
+    private final Dictionary<String> siteDictionary = new Dictionary<>();
+    private final Dictionary<String> countryDictionary = new Dictionary<>();
+    private final Dictionary<String> payloadDictionary = new Dictionary<>();
+
+    private LaunchColumns(int capacity, DAO dao) {
+        this.dao = dao;
+        capacity = Math.max(MIN_CAPACITY, capacity);
+        launches = new Launch[capacity];
+        ids = new long[capacity];
+        outcomes = new byte[capacity];
+        payloads = new int[capacity][];
+        epochDays = new int[capacity];
+        years = new int[capacity];
+        prices = new long[capacity];
+        vehicles = new int[capacity];
+        providers = new int[capacity];
+        orbits = new int[capacity];
+        sites = new int[capacity];
+        countries = new int[capacity];
+    }
+
+    /**
+     * Builds the columns from every launch currently stored in the DAO,
+     * reading {@value #LOAD_CHUNK_SIZE} launches at a time.
+     */
+    public static LaunchColumns load(DAO dao) {
+        notNull(dao);
+        LaunchColumns columns = new LaunchColumns(MIN_CAPACITY, dao);
+        dao.forEach(Launch.class, LOAD_CHUNK_SIZE, columns::append);
+        return columns;
+    }
+
+    /**
+     * Builds the columns from the given launches, preserving their iteration order.
+     */
+    public static LaunchColumns of(Collection<Launch> launches) {
+        notNull(launches);
+        LaunchColumns columns = new LaunchColumns(launches.size(), null);
+        for (Launch launch : launches) {
+            columns.append(launch);
+        }
+        return columns;
+    }
+
+    /**
+     * Attaches an index and fills it from the live rows in one pass.
+     */
+    public void addIndex(LaunchIndex index) {
+        notNull(index);
+        fill(index);
+        indexes.add(index);
+    }
+
+    private void fill(LaunchIndex index) {
+        index.attach(this);
+        index.addAll(live.stream().iterator());
+    }
+
+    /**
+     * Inserts or updates the row of a launch and keeps the attached indexes current.
+     *
+     * @return the row of the launch.
+     */
+    public int upsert(Launch launch) {
+        notNull(launch);
+        if (widenPriceScale(launch.getPrice())) {
+            // Every fixed-point price an index holds changed unit
+            for (LaunchIndex index : indexes) {
+                fill(index);
+            }
+        }
+        Integer row = null == launch.getId() ? null : rowsById.get(launch.getId());
+        if (null == row || !live.get(row)) {
+            row = append(launch);
+            for (LaunchIndex index : indexes) {
+                index.add(row);
+            }
+        } else {
+            for (LaunchIndex index : indexes) {
+                index.remove(row);
+            }
+            set(row, launch);
+            for (LaunchIndex index : indexes) {
+                index.add(row);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Removes the row of a launch, if the launch has an id known to the table.
+     *
+     * @return whether a row was removed.
+     */
+    public boolean delete(Launch launch) {
+        notNull(launch);
+        Integer row = null == launch.getId() ? null : rowsById.remove(launch.getId());
+        if (null == row || !live.get(row)) {
+            return false;
+        }
+        for (LaunchIndex index : indexes) {
+            index.remove(row);
+        }
+        live.clear(row);
+        successful.clear(row);
+        priced.clear(row);
+        launches[row] = null;
+        return true;
+    }
+
+    private int append(Launch launch) {
+        widenPriceScale(launch.getPrice());
+        if (size == launches.length) {
+            grow();
+        }
+        int row = size++;
+        set(row, launch);
+        live.set(row);
+        if (null != launch.getId()) {
+            rowsById.put(launch.getId(), row);
+        }
+        return row;
+    }
+
+    private void grow() {
+        int capacity = launches.length + (launches.length >> 1);
+        launches = Arrays.copyOf(launches, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        outcomes = Arrays.copyOf(outcomes, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        years = Arrays.copyOf(years, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        vehicles = Arrays.copyOf(vehicles, capacity);
+        providers = Arrays.copyOf(providers, capacity);
+        orbits = Arrays.copyOf(orbits, capacity);
+        sites = Arrays.copyOf(sites, capacity);
+        countries = Arrays.copyOf(countries, capacity);
+    }
+
+    private void set(int row, Launch launch) {
+        // Stored launches can be loaded back from the DAO, so only their columns are kept
+        launches[row] = null == dao || null == launch.getId() ? launch : null;
+        ids[row] = null == launch.getId() ? NO_ID : launch.getId();
+        outcomes[row] = null == launch.getLaunchOutcome() ? NO_OUTCOME : (byte) launch.getLaunchOutcome().ordinal();
+        payloads[row] = encode(launch.getPayload());
+        LocalDate date = launch.getLaunchDate();
+        epochDays[row] = null == date ? NO_DATE : Math.toIntExact(date.toEpochDay());
+        years[row] = null == date ? NO_DATE : date.getYear();
+        if (epochDays[row] != NO_DATE) {
+            firstEpochDay = Math.min(firstEpochDay, epochDays[row]);
+            lastEpochDay = Math.max(lastEpochDay, epochDays[row]);
+        }
+        successful.set(row, Launch.LaunchOutcome.SUCCESSFUL == launch.getLaunchOutcome());
+        prices[row] = toFixedPoint(launch.getPrice());
+        priced.set(row, null != launch.getPrice());
+        Rocket vehicle = launch.getLaunchVehicle();
+        vehicles[row] = vehicleDictionary.encode(vehicle);
+        providers[row] = providerDictionary.encode(launch.getLaunchServiceProvider());
+        orbits[row] = orbitDictionary.encode(launch.getOrbit());
+        sites[row] = siteDictionary.encode(launch.getLaunchSite());
+        countries[row] = countryDictionary.encode(null == vehicle ? null : vehicle.getCountry());
+    }
+
+    private int[] encode(Set<String> payload) {
+        if (null == payload || payload.isEmpty()) {
+            return NO_PAYLOAD;
+        }
+        int[] codes = new int[payload.size()];
+        int i = 0;
+        for (String item : payload) {
+            codes[i++] = payloadDictionary.encode(item);
+        }
+        return codes;
+    }
+
+    /**
+     * Rescales the price column to the fractional digits of a price, if it has
+     * more than the column keeps. The column is rescaled whole or not at all.
+     *
+     * @return whether the scale changed.
+     * @throws ArithmeticException if the price has more than
+     *                             {@value #MAX_PRICE_SCALE} fractional digits, or a
+     *                             stored price would no longer fit in a long.
+     */
+    private boolean widenPriceScale(BigDecimal price) {
+        int scale = null == price ? 0 : price.stripTrailingZeros().scale();
+        if (scale <= priceScale) {
+            return false;
+        }
+        if (scale > MAX_PRICE_SCALE) {
+            throw new ArithmeticException("price " + price.toPlainString() + " has more than "
+                    + MAX_PRICE_SCALE + " fractional digits");
+        }
+        long factor = BigDecimal.ONE.scaleByPowerOfTen(scale - priceScale).longValueExact();
+        long[] rescaled = new long[prices.length];
+        for (int row = 0; row < size; row++) {
+            try {
+                rescaled[row] = Math.multiplyExact(prices[row], factor);
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("price " + fromFixedPoint(prices[row]).toPlainString()
+                        + " overflows a fixed-point long at scale " + scale);
+            }
+        }
+        prices = rescaled;
+        priceScale = scale;
+        return true;
+    }
+
+    /**
+     * @return the fractional digits of the price column: at least
+     * {@value #PRICE_SCALE}, and as many as the most precise stored price.
+     */
+    public int priceScale() {
+        return priceScale;
+    }
+
+    /**
+     * Converts a price to a count of 1/10^{@link #priceScale()} units.
+     *
+     * @throws ArithmeticException if the price has more fractional digits than
+     *                             the table's scale or does not fit in a long.
+     */
+    long toFixedPoint(BigDecimal price) {
+        return null == price ? 0L : Money.toMinorUnits(price, priceScale);
+    }
+
+    /**
+     * Converts a bound to the table's scale, rounding it towards the inside
+     * of the range it bounds. Stored prices are whole units of the scale, so
+     * the rounded bound admits exactly the prices the given one does.
+     */
+    long toFixedPoint(BigDecimal bound, RoundingMode inwards) {
+        return Money.toMinorUnits(bound.setScale(priceScale, inwards), priceScale);
+    }
+
+    Money toMoney(long price) {
+        return Money.ofMinorUnits(price, priceScale);
+    }
+
+    BigDecimal fromFixedPoint(long price) {
+        return toMoney(price).toBigDecimal();
+    }
+
+    /**
+     * @return the number of rows, including deleted ones.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of rows that have not been deleted.
+     */
+    public int liveCount() {
+        return live.cardinality();
+    }
+
+    /**
+     * @return the launch a row holds, or null if the row is of a stored launch
+     * or has been deleted; see {@link #select}.
+     */
+    public Launch launch(int row) {
+        return launches[row];
+    }
+
+    /**
+     * Takes the launches of live rows, in row order of the cursor.
+     */
+    public Selection select(PrimitiveIterator.OfInt rows) {
+        notNull(rows);
+        Selection selection = new Selection(dao);
+        while (rows.hasNext()) {
+            int row = rows.nextInt();
+            if (null != launches[row]) {
+                selection.add(launches[row], NO_ID);
+            } else if (null != dao && ids[row] != NO_ID && live.get(row)) {
+                selection.add(null, ids[row]);
+            }
+        }
+        return selection;
+    }
+
+    public Selection select(int[] rows) {
+        notNull(rows);
+        return select(Arrays.stream(rows).iterator());
+    }
+
+    /**
+     * The launches of some rows: those the table holds, and the ids of stored
+     * ones. Taking it needs the table, but {@link #load()} does not, so the
+     * stored launches can be loaded after the table's lock is released.
+     */
+    public static final class Selection {
+        private final DAO dao;
+        private final List<Launch> held = new ArrayList<>();
+        private final List<Long> ids = new ArrayList<>();
+
+        private Selection(DAO dao) {
+            this.dao = dao;
+        }
+
+        private void add(Launch launch, long id) {
+            held.add(launch);
+            ids.add(id);
+        }
+
+        public int size() {
+            return held.size();
+        }
+
+        /**
+         * Loads the stored launches in one round trip. A launch deleted since
+         * the selection was taken is left out.
+         */
+        public List<Launch> load() {
+            List<Long> stored = new ArrayList<>();
+            for (int i = 0; i < held.size(); i++) {
+                if (null == held.get(i)) {
+                    stored.add(ids.get(i));
+                }
+            }
+            Map<Long, Launch> loaded = new HashMap<>();
+            if (!stored.isEmpty()) {
+                for (Launch launch : dao.loadAll(Launch.class, stored)) {
+                    loaded.put(launch.getId(), launch);
+                }
+            }
+            List<Launch> launches = new ArrayList<>(held.size());
+            for (int i = 0; i < held.size(); i++) {
+                Launch launch = null == held.get(i) ? loaded.get(ids.get(i)) : held.get(i);
+                if (null != launch) {
+                    launches.add(launch);
+                }
+            }
+            return launches;
+        }
+    }
+
+    /**
+     * @return the launch id of a row, or {@link #NO_ID} if the launch has none.
+     */
+    public long id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * @return the outcome of a row, or null if it has none.
+     */
+    public Launch.LaunchOutcome outcome(int row) {
+        return outcomes[row] == NO_OUTCOME ? null : OUTCOMES[outcomes[row]];
+    }
+
+    /**
+     * @return the calendar year of a row, or {@link #NO_DATE} if it has no launch date.
+     */
+    public int year(int row) {
+        return years[row];
+    }
+
+    /**
+     * @return a lower bound on the years of the rows, or {@link #NO_DATE} if no row has a launch date.
+     */
+    public int firstYear() {
+        return lastEpochDay == NO_DATE ? NO_DATE : LocalDate.ofEpochDay(firstEpochDay).getYear();
+    }
+
+    /**
+     * @return an upper bound on the years of the rows, or {@link #NO_DATE} if no row has a launch date.
+     */
+    public int lastYear() {
+        return lastEpochDay == NO_DATE ? NO_DATE : LocalDate.ofEpochDay(lastEpochDay).getYear();
+    }
+
+    BitSet live() {
+        return live;
+    }
+
+    int[] epochDays() {
+        return epochDays;
+    }
+
+    int[] years() {
+        return years;
+    }
+
+    BitSet successful() {
+        return successful;
+    }
+
+    long[] prices() {
+        return prices;
+    }
+
+    BitSet priced() {
+        return priced;
+    }
+
+    int[] vehicles() {
+        return vehicles;
+    }
+
+    int[] providers() {
+        return providers;
+    }
+
+    int[] orbits() {
+        return orbits;
+    }
+
+    int[] sites() {
+        return sites;
+    }
+
+    int[] countries() {
+        return countries;
+    }
+
+    int[][] payloads() {
+        return payloads;
+    }
+
+    public Dictionary<Rocket> vehicleDictionary() {
+        return vehicleDictionary;
+    }
+
+    public Dictionary<LaunchServiceProvider> providerDictionary() {
+        return providerDictionary;
+    }
+
+    public Dictionary<String> orbitDictionary() {
+        return orbitDictionary;
+    }
+
+    public Dictionary<String> siteDictionary() {
+        return siteDictionary;
+    }
+
+    public Dictionary<String> countryDictionary() {
+        return countryDictionary;
+    }
+
+    public Dictionary<String> payloadDictionary() {
+        return payloadDictionary;
+    }
+
+    /**
+     * Assigns dense int codes to distinct values, in first-seen order.
+     */
+    public static final class Dictionary<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        private int encode(T value) {
+            if (null == value) {
+                return NO_VALUE;
+            }
+            Integer code = codes.get(value);
+            if (null == code) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        /**
+         * @return the code of the value, or {@link #NO_VALUE} if it never occurs.
+         */
+        public int code(T value) {
+            Integer code = null == value ? null : codes.get(value);
+            return null == code ? NO_VALUE : code;
+        }
+
+        public T value(int code) {
+            return values.get(code);
+        }
+
+        public int size() {
+            return values.size();
+        }
+
+        public List<T> values() {
+            return Collections.unmodifiableList(values);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A pre-aggregated cube of launch counts and fixed-point revenue over five
+ * axes: country, orbit, year, outcome and launch service provider. Every
+ * launch is added to the 32 cells that match it once any subset of the axes is
+ * rolled up to "all", so any {@link Slice} that fixes some axes and rolls up
+ * the rest is a single hash lookup, and a roll-up along one axis is one lookup
+ * per value of that axis. Year ranges are answered from prefix sums over year,
+ * built on first use and discarded on the next write.
+ * <p>
+ * Cells are sparse: only combinations that occur are stored. Each cell is
+ * keyed by the slice that selects it, which keeps a whole int per axis, so
+ * any dictionary code or year fits.
+ * <p>
+ * Like the other indexes, the cube is written under the miner's write lock and
+ * read under its read lock. The prefix sums are the one thing a read fills
+ * in, so they sit in a concurrent map.
+ */
+public class LaunchCube implements LaunchIndex {
+    private static final int CELLS_PER_LAUNCH = 1 << Axis.values().length;
+    private static final int COUNT = 0;
+    private static final int REVENUE = 1;
+
+    private LaunchColumns columns;
+    private final Map<Slice, long[]> cells = new HashMap<>();
+    private final Map<Slice, long[][]> yearPrefixSums = new ConcurrentHashMap<>();
+
+    /**
+     * The axes of the cube.
+     */
+    public enum Axis {
+        COUNTRY,
+        ORBIT,
+        YEAR,
+        OUTCOME,
+        PROVIDER;
+
+        private int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    /**
+     * A selection of cube cells: each axis is either fixed to one value or
+     * rolled up over all values. Values are the dictionary codes of
+     * {@link LaunchColumns}, calendar years and outcomes, and
+     * {@link LaunchColumns#NO_VALUE} or {@link LaunchColumns#NO_DATE} select
+     * the launches without a value.
+     */
+    public static final class Slice {
+        private static final int NO_OUTCOME = -1;
+        private static final Slice ALL = new Slice(0, new int[Axis.values().length]);
+
+        // The bits of the fixed axes; a rolled-up axis keeps the value 0
+        private final int fixed;
+        private final int[] values;
+        private final int hash;
+
+        private Slice(int fixed, int[] values) {
+            this.fixed = fixed;
+            this.values = values;
+            this.hash = 31 * fixed + Arrays.hashCode(values);
+        }
+
+        public Slice country(int code) {
+            return with(Axis.COUNTRY, code);
+        }
+
+        public Slice orbit(int code) {
+            return with(Axis.ORBIT, code);
+        }
+
+        public Slice year(int year) {
+            return with(Axis.YEAR, year);
+        }
+
+        public Slice outcome(Launch.LaunchOutcome outcome) {
+            return with(Axis.OUTCOME, null == outcome ? NO_OUTCOME : outcome.ordinal());
+        }
+
+        public Slice provider(int code) {
+            return with(Axis.PROVIDER, code);
+        }
+
+        private Slice with(Axis axis, int value) {
+            int[] copy = values.clone();
+            copy[axis.ordinal()] = value;
+            return new Slice(fixed | axis.bit(), copy);
+        }
+
+        // Keeps the values of the axes in the subset and rolls up the others
+        private Slice project(int subset) {
+            int[] projected = new int[values.length];
+            for (int axis = 0; axis < values.length; axis++) {
+                if ((subset & (1 << axis)) != 0) {
+                    projected[axis] = values[axis];
+                }
+            }
+            return new Slice(subset, projected);
+        }
+
+        private boolean isRolledUp(Axis axis) {
+            return (fixed & axis.bit()) == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Slice slice = (Slice) o;
+            return fixed == slice.fixed && Arrays.equals(values, slice.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * @return the slice that rolls up every axis.
+     */
+    public static Slice all() {
+        return Slice.ALL;
+    }
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        cells.clear();
+        yearPrefixSums.clear();
+    }
+
+    @Override
+    public void add(int row) {
+        update(row, 1);
+    }
+
+    @Override
+    public void remove(int row) {
+        update(row, -1);
+    }
+
+    private void update(int row, int sign) {
+        Slice launch = all()
+                .country(columns.countries()[row])
+                .orbit(columns.orbits()[row])
+                .year(columns.year(row))
+                .outcome(columns.outcome(row))
+                .provider(columns.providers()[row]);
+        long price = columns.prices()[row];
+        // One cell per subset of axes that keep their value; the others are rolled up
+        for (int subset = 0; subset < CELLS_PER_LAUNCH; subset++) {
+            Slice key = launch.project(subset);
+            long[] cell = cells.computeIfAbsent(key, k -> new long[2]);
+            cell[COUNT] += sign;
+            cell[REVENUE] = sign > 0 ? Money.add(cell[REVENUE], price) : Money.subtract(cell[REVENUE], price);
+            if (cell[COUNT] == 0) {
+                cells.remove(key);
+            }
+        }
+        yearPrefixSums.clear();
+    }
+
+    /**
+     * @return the number of stored cells.
+     */
+    public int cellCount() {
+        return cells.size();
+    }
+
+    public long count(Slice slice) {
+        notNull(slice);
+        long[] cell = cells.get(slice);
+        return null == cell ? 0 : cell[COUNT];
+    }
+
+    /**
+     * @return the total price of the launches in the slice, in fixed point.
+     */
+    public long revenue(Slice slice) {
+        notNull(slice);
+        long[] cell = cells.get(slice);
+        return null == cell ? 0 : cell[REVENUE];
+    }
+
+    /**
+     * @return the share of the slice's launches that were successful, with scale 2.
+     */
+    public BigDecimal successRate(Slice slice) {
+        notNull(slice);
+        isTrue(slice.isRolledUp(Axis.OUTCOME), "the slice must roll up the outcome");
+        long total = count(slice);
+        isTrue(total > 0, "There are no launches in the slice");
+        return BigDecimal.valueOf(count(slice.outcome(Launch.LaunchOutcome.SUCCESSFUL)))
+                .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Breaks a slice down along an axis it rolls up. The result is indexed by
+     * the axis value: the dictionary code, the outcome ordinal, or for
+     * {@link Axis#YEAR} the offset from {@link LaunchColumns#firstYear()}.
+     * Launches without a value on the axis are left out.
+     *
+     * @return the launch count for each value of the axis.
+     */
+    public long[] countsBy(Axis axis, Slice slice) {
+        return rollUp(axis, slice, COUNT);
+    }
+
+    /**
+     * @return the fixed-point revenue for each value of the axis.
+     * @see #countsBy(Axis, Slice)
+     */
+    public long[] revenueBy(Axis axis, Slice slice) {
+        return rollUp(axis, slice, REVENUE);
+    }
+
+    private long[] rollUp(Axis axis, Slice slice, int measure) {
+        notNull(axis);
+        notNull(slice);
+        isTrue(slice.isRolledUp(axis), "the slice must roll up the axis");
+        int first = axis == Axis.YEAR ? columns.firstYear() : 0;
+        long[] values = new long[cardinality(axis)];
+        for (int i = 0; i < values.length; i++) {
+            long[] cell = cells.get(slice.with(axis, first + i));
+            values[i] = null == cell ? 0 : cell[measure];
+        }
+        return values;
+    }
+
+    private int cardinality(Axis axis) {
+        switch (axis) {
+            case COUNTRY:
+                return columns.countryDictionary().size();
+            case ORBIT:
+                return columns.orbitDictionary().size();
+            case YEAR:
+                int first = columns.firstYear();
+                return first == LaunchColumns.NO_DATE ? 0 : columns.lastYear() - first + 1;
+            case OUTCOME:
+                return Launch.LaunchOutcome.values().length;
+            default:
+                return columns.providerDictionary().size();
+        }
+    }
+
+    /**
+     * @return the number of launches in the slice between two years, both inclusive.
+     */
+    public long count(Slice slice, int fromYear, int toYear) {
+        return yearRange(slice, fromYear, toYear, COUNT);
+    }
+
+    /**
+     * @return the fixed-point revenue of the slice between two years, both inclusive.
+     */
+    public long revenue(Slice slice, int fromYear, int toYear) {
+        return yearRange(slice, fromYear, toYear, REVENUE);
+    }
+
+    private long yearRange(Slice slice, int fromYear, int toYear, int measure) {
+        notNull(slice);
+        isTrue(slice.isRolledUp(Axis.YEAR), "the slice must roll up the year");
+        int first = columns.firstYear();
+        if (first == LaunchColumns.NO_DATE) {
+            return 0;
+        }
+        int from = Math.max(fromYear, first) - first;
+        int to = Math.min(toYear, columns.lastYear()) - first;
+        if (from > to) {
+            return 0;
+        }
+        long[] sums = yearPrefixSums.computeIfAbsent(slice, this::prefixSums)[measure];
+        return sums[to + 1] - sums[from];
+    }
+
+    // sums[m][i] is the measure m summed over the first i years
+    private long[][] prefixSums(Slice slice) {
+        long[] counts = countsBy(Axis.YEAR, slice);
+        long[] revenue = revenueBy(Axis.YEAR, slice);
+        long[][] sums = new long[2][counts.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            sums[COUNT][i + 1] = sums[COUNT][i] + counts[i];
+            sums[REVENUE][i + 1] = Money.add(sums[REVENUE][i], revenue[i]);
+        }
+        return sums;
+    }
+}
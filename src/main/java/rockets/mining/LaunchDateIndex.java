@@ -0,0 +1,140 @@
+package rockets.mining;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Launch rows ordered by launch date, kept as one sorted primitive array of
+ * (epoch day, row) keys. The k most recent launches are read off the end of
+ * the array and a date range is a binary search followed by a sequential
+ * cursor. The array is sorted once when the index is built, and later writes
+ * shift its tail, which is cheap next to a full sort and keeps reads
+ * allocation free.
+ */
+public class LaunchDateIndex implements LaunchIndex {
+    private LaunchColumns columns;
+    private long[] keys = new long[16];
+    private int size;
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        size = 0;
+    }
+
+    // Appends every key and sorts once, instead of shifting the array for each row
+    @Override
+    public void addAll(PrimitiveIterator.OfInt rows) {
+        int[] epochDays = columns.epochDays();
+        while (rows.hasNext()) {
+            int row = rows.nextInt();
+            grow();
+            keys[size++] = key(epochDays[row], row);
+        }
+        Arrays.sort(keys, 0, size);
+    }
+
+    @Override
+    public void add(int row) {
+        long key = key(columns.epochDays()[row], row);
+        int position = insertionPoint(key);
+        grow();
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        keys[position] = key;
+        size++;
+    }
+
+    @Override
+    public void remove(int row) {
+        int position = Arrays.binarySearch(keys, 0, size, key(columns.epochDays()[row], row));
+        if (position >= 0) {
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            size--;
+        }
+    }
+
+    private void grow() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size + (size >> 1));
+        }
+    }
+
+    private static long key(int epochDay, int row) {
+        return ((long) epochDay << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    // Dates outside the int range still bound the range, but never match undated rows
+    private static int clamp(long epochDay) {
+        return (int) Math.max(LaunchColumns.NO_DATE + 1, Math.min(Integer.MAX_VALUE - 1, epochDay));
+    }
+
+    private static int epochDay(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int row(long key) {
+        return (int) key;
+    }
+
+    // First position whose key is not less than the given key
+    private int insertionPoint(long key) {
+        int position = Arrays.binarySearch(keys, 0, size, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the rows of the k most recent launches, latest date first and,
+     * within a date, in row order. Runs in O(k) plus a binary search per date.
+     */
+    public int[] mostRecent(int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        int[] rows = new int[Math.min(k, size)];
+        int count = 0;
+        int end = size;
+        while (count < rows.length) {
+            int start = insertionPoint(key(epochDay(keys[end - 1]), 0));
+            for (int i = start; i < end && count < rows.length; i++) {
+                rows[count++] = row(keys[i]);
+            }
+            end = start;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a cursor over the rows launched between the two dates, both
+     * inclusive, in date order and, within a date, in row order. The cursor
+     * reads the index directly and must not outlive the next write.
+     */
+    public PrimitiveIterator.OfInt between(LocalDate from, LocalDate to) {
+        notNull(from);
+        notNull(to);
+        int start = insertionPoint(key(clamp(from.toEpochDay()), 0));
+        int end = to.isBefore(from) ? start : insertionPoint(key(clamp(to.toEpochDay()) + 1, 0));
+        return new PrimitiveIterator.OfInt() {
+            private int position = start;
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return row(keys[position++]);
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package rockets.mining;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A read-only set of launch rows, as produced by a {@link LaunchBitmapIndex}.
+ * Filters combine with {@link #and}, {@link #or} and {@link #andNot}; every
+ * combination returns a new filter and never modifies its operands.
+ * <p>
+ * A filter straight from the index wraps the index's live bitmap, so that a
+ * lookup copies nothing; {@link #copy()} detaches it from later writes.
+ */
+public final class LaunchFilter {
+    static final LaunchFilter NONE = new LaunchFilter(new RoaringBitmap());
+
+    private final RoaringBitmap rows;
+
+    LaunchFilter(RoaringBitmap rows) {
+        this.rows = rows;
+    }
+
+    public LaunchFilter and(LaunchFilter other) {
+        notNull(other);
+        return new LaunchFilter(RoaringBitmap.and(rows, other.rows));
+    }
+
+    public LaunchFilter or(LaunchFilter other) {
+        notNull(other);
+        return new LaunchFilter(RoaringBitmap.or(rows, other.rows));
+    }
+
+    public LaunchFilter andNot(LaunchFilter other) {
+        notNull(other);
+        return new LaunchFilter(RoaringBitmap.andNot(rows, other.rows));
+    }
+
+    /**
+     * @return a filter of the same rows that later index writes do not change.
+     */
+    public LaunchFilter copy() {
+        return new LaunchFilter(rows.clone());
+    }
+
+    /**
+     * @return the number of launches in both filters, without building their intersection.
+     */
+    public int andCardinality(LaunchFilter other) {
+        notNull(other);
+        return RoaringBitmap.andCardinality(rows, other.rows);
+    }
+
+    public int cardinality() {
+        return rows.getCardinality();
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    public boolean contains(int row) {
+        return rows.contains(row);
+    }
+
+    /**
+     * @return the rows in ascending order.
+     */
+    public int[] rows() {
+        return rows.toArray();
+    }
+}
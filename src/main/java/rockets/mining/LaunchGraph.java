@@ -0,0 +1,376 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A read-only projection of the graph
+ * {@code LaunchServiceProvider -MANUFACTURES-> Rocket -PROVIDES-> Launch}
+ * into compressed sparse row form. Providers, rockets, launches, launch sites
+ * and orbits are numbered densely from zero, and each relationship is an
+ * offset array plus a target array, so a fan-out is a walk over a contiguous
+ * slice of ints instead of a walk over entity references and hash sets.
+ * <p>
+ * The projection is immutable once built, so traversals may run concurrently;
+ * {@link #mapProviders(IntFunction)} runs one traversal per provider in parallel.
+ */
+public final class LaunchGraph {
+    public static final int NO_NODE = -1;
+    public static final long NO_ID = LaunchColumns.NO_ID;
+
+    // Assumed object layout for memoryFootprint(), as on a 64-bit JVM with compressed references
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int HASH_ENTRY_BYTES = 48;
+
+    private final List<LaunchServiceProvider> providers;
+    private final List<Rocket> rockets;
+    private final List<String> sites;
+    private final List<String> orbits;
+    private final long[] launchIds;
+    private final Map<LaunchServiceProvider, Integer> providerNodes;
+    private final Map<Rocket, Integer> rocketNodes;
+
+    // Per-node attributes
+    private final int[] rocketProvider;
+    private final int[] launchRocket;
+    private final int[] launchSite;
+    private final int[] launchOrbit;
+
+    // provider -> rockets, rocket -> launches, site -> launches
+    private final int[] rocketOffsets;
+    private final int[] rocketTargets;
+    private final int[] launchOffsets;
+    private final int[] launchTargets;
+    private final int[] siteOffsets;
+    private final int[] siteTargets;
+
+    private LaunchGraph(Builder builder) {
+        providers = builder.providers;
+        rockets = builder.rockets;
+        sites = builder.sites;
+        orbits = builder.orbits;
+        providerNodes = builder.providerNodes;
+        rocketNodes = builder.rocketNodes;
+        int launches = builder.launches;
+        launchIds = Arrays.copyOf(builder.launchIds, launches);
+        launchRocket = Arrays.copyOf(builder.launchRocket, launches);
+        launchSite = Arrays.copyOf(builder.launchSite, launches);
+        launchOrbit = Arrays.copyOf(builder.launchOrbit, launches);
+        rocketProvider = Arrays.copyOf(builder.rocketProvider, rockets.size());
+
+        rocketOffsets = offsets(rocketProvider, providers.size());
+        rocketTargets = targets(rocketProvider, rocketOffsets);
+        launchOffsets = offsets(launchRocket, rockets.size());
+        launchTargets = targets(launchRocket, launchOffsets);
+        siteOffsets = offsets(launchSite, sites.size());
+        siteTargets = targets(launchSite, siteOffsets);
+    }
+
+    /**
+     * Builds the projection from the launches stored in the DAO, in one chunked pass.
+     */
+    public static LaunchGraph build(DAO dao) {
+        notNull(dao);
+        Builder builder = new Builder();
+        dao.forEach(Launch.class, LaunchColumns.LOAD_CHUNK_SIZE, builder::add);
+        return new LaunchGraph(builder);
+    }
+
+    /**
+     * Builds the projection from the given launches.
+     */
+    public static LaunchGraph of(Collection<Launch> launches) {
+        notNull(launches);
+        Builder builder = new Builder();
+        launches.forEach(builder::add);
+        return new LaunchGraph(builder);
+    }
+
+    // Counting sort of edges by source: offsets[s]..offsets[s + 1] is the slice of source s
+    private static int[] offsets(int[] sourceOf, int sources) {
+        int[] offsets = new int[sources + 1];
+        for (int source : sourceOf) {
+            if (source != NO_NODE) {
+                offsets[source + 1]++;
+            }
+        }
+        for (int i = 0; i < sources; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        return offsets;
+    }
+
+    // Targets within a slice are in ascending node order
+    private static int[] targets(int[] sourceOf, int[] offsets) {
+        int[] targets = new int[offsets[offsets.length - 1]];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int target = 0; target < sourceOf.length; target++) {
+            if (sourceOf[target] != NO_NODE) {
+                targets[next[sourceOf[target]]++] = target;
+            }
+        }
+        return targets;
+    }
+
+    private static final class Builder {
+        private final List<LaunchServiceProvider> providers = new ArrayList<>();
+        private final List<Rocket> rockets = new ArrayList<>();
+        private final List<String> sites = new ArrayList<>();
+        private final List<String> orbits = new ArrayList<>();
+        private final Map<LaunchServiceProvider, Integer> providerNodes = new HashMap<>();
+        private final Map<Rocket, Integer> rocketNodes = new HashMap<>();
+        private final Map<String, Integer> siteNodes = new HashMap<>();
+        private final Map<String, Integer> orbitNodes = new HashMap<>();
+        private int[] rocketProvider = new int[16];
+        private int launches;
+        private long[] launchIds = new long[16];
+        private int[] launchRocket = new int[16];
+        private int[] launchSite = new int[16];
+        private int[] launchOrbit = new int[16];
+
+        void add(Launch launch) {
+            if (launches == launchIds.length) {
+                int capacity = launches + (launches >> 1);
+                launchIds = Arrays.copyOf(launchIds, capacity);
+                launchRocket = Arrays.copyOf(launchRocket, capacity);
+                launchSite = Arrays.copyOf(launchSite, capacity);
+                launchOrbit = Arrays.copyOf(launchOrbit, capacity);
+            }
+            int launchNode = launches++;
+            launchIds[launchNode] = null == launch.getId() ? NO_ID : launch.getId();
+            launchRocket[launchNode] = rocket(launch.getLaunchVehicle());
+            launchSite[launchNode] = node(siteNodes, sites, launch.getLaunchSite());
+            launchOrbit[launchNode] = node(orbitNodes, orbits, launch.getOrbit());
+        }
+
+        private int rocket(Rocket rocket) {
+            if (null == rocket) {
+                return NO_NODE;
+            }
+            Integer node = rocketNodes.get(rocket);
+            if (null == node) {
+                node = rockets.size();
+                rocketNodes.put(rocket, node);
+                rockets.add(rocket);
+                if (node == rocketProvider.length) {
+                    rocketProvider = Arrays.copyOf(rocketProvider, node + (node >> 1));
+                }
+                rocketProvider[node] = node(providerNodes, providers, rocket.getManufacturer());
+            }
+            return node;
+        }
+
+        private static <T> int node(Map<T, Integer> nodes, List<T> values, T value) {
+            if (null == value) {
+                return NO_NODE;
+            }
+            Integer node = nodes.get(value);
+            if (null == node) {
+                node = values.size();
+                nodes.put(value, node);
+                values.add(value);
+            }
+            return node;
+        }
+    }
+
+    public int providerCount() {
+        return providers.size();
+    }
+
+    public int rocketCount() {
+        return rockets.size();
+    }
+
+    public int launchCount() {
+        return launchIds.length;
+    }
+
+    public int siteCount() {
+        return sites.size();
+    }
+
+    public int orbitCount() {
+        return orbits.size();
+    }
+
+    /**
+     * @return the node of the provider, or {@link #NO_NODE} if it manufactures no launched rocket.
+     */
+    public int providerNode(LaunchServiceProvider provider) {
+        Integer node = providerNodes.get(provider);
+        return null == node ? NO_NODE : node;
+    }
+
+    /**
+     * @return the node of the rocket, or {@link #NO_NODE} if it has no launch.
+     */
+    public int rocketNode(Rocket rocket) {
+        Integer node = rocketNodes.get(rocket);
+        return null == node ? NO_NODE : node;
+    }
+
+    public LaunchServiceProvider provider(int node) {
+        return providers.get(node);
+    }
+
+    public Rocket rocket(int node) {
+        return rockets.get(node);
+    }
+
+    /**
+     * @return the id of the launch, or {@link #NO_ID} if it has none.
+     */
+    public long launchId(int node) {
+        return launchIds[node];
+    }
+
+    public String site(int node) {
+        return sites.get(node);
+    }
+
+    public String orbit(int node) {
+        return orbits.get(node);
+    }
+
+    /**
+     * @return the provider that manufactures the rocket, or {@link #NO_NODE}.
+     */
+    public int providerOfRocket(int rocket) {
+        return rocketProvider[rocket];
+    }
+
+    /**
+     * @return the rocket of the launch, or {@link #NO_NODE}.
+     */
+    public int rocketOfLaunch(int launch) {
+        return launchRocket[launch];
+    }
+
+    public void forEachRocket(int provider, IntConsumer consumer) {
+        for (int i = rocketOffsets[provider]; i < rocketOffsets[provider + 1]; i++) {
+            consumer.accept(rocketTargets[i]);
+        }
+    }
+
+    public void forEachLaunch(int rocket, IntConsumer consumer) {
+        for (int i = launchOffsets[rocket]; i < launchOffsets[rocket + 1]; i++) {
+            consumer.accept(launchTargets[i]);
+        }
+    }
+
+    /**
+     * Visits the launches of every rocket the provider manufactures.
+     */
+    public void forEachLaunchOfProvider(int provider, IntConsumer consumer) {
+        for (int r = rocketOffsets[provider]; r < rocketOffsets[provider + 1]; r++) {
+            int rocket = rocketTargets[r];
+            for (int l = launchOffsets[rocket]; l < launchOffsets[rocket + 1]; l++) {
+                consumer.accept(launchTargets[l]);
+            }
+        }
+    }
+
+    public void forEachLaunchAtSite(int site, IntConsumer consumer) {
+        for (int i = siteOffsets[site]; i < siteOffsets[site + 1]; i++) {
+            consumer.accept(siteTargets[i]);
+        }
+    }
+
+    public int launchCountOfProvider(int provider) {
+        int count = 0;
+        for (int r = rocketOffsets[provider]; r < rocketOffsets[provider + 1]; r++) {
+            int rocket = rocketTargets[r];
+            count += launchOffsets[rocket + 1] - launchOffsets[rocket];
+        }
+        return count;
+    }
+
+    /**
+     * Walks provider, rockets, launches, sites, launches at those sites,
+     * rockets and their providers.
+     *
+     * @return the other providers whose rockets launched from a site the provider's rockets launched from, in node order.
+     */
+    public int[] providersSharingSites(int provider) {
+        BitSet visitedSites = new BitSet(sites.size());
+        BitSet sharing = new BitSet(providers.size());
+        forEachLaunchOfProvider(provider, launch -> {
+            int site = launchSite[launch];
+            if (site != NO_NODE && !visitedSites.get(site)) {
+                visitedSites.set(site);
+                forEachLaunchAtSite(site, other -> {
+                    int rocket = launchRocket[other];
+                    if (rocket != NO_NODE && rocketProvider[rocket] != NO_NODE) {
+                        sharing.set(rocketProvider[rocket]);
+                    }
+                });
+            }
+        });
+        sharing.clear(provider);
+        return sharing.stream().toArray();
+    }
+
+    /**
+     * @return the number of the provider's launches to each orbit, indexed by orbit node.
+     */
+    public long[] orbitMix(int provider) {
+        long[] mix = new long[orbits.size()];
+        forEachLaunchOfProvider(provider, launch -> {
+            if (launchOrbit[launch] != NO_NODE) {
+                mix[launchOrbit[launch]]++;
+            }
+        });
+        return mix;
+    }
+
+    /**
+     * Runs a traversal from every provider in parallel.
+     *
+     * @return the results, indexed by provider node.
+     */
+    public <R> List<R> mapProviders(IntFunction<R> traversal) {
+        notNull(traversal);
+        return IntStream.range(0, providers.size()).parallel()
+                .mapToObj(traversal)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the approximate heap size in bytes of the projection's primitive
+     * arrays and node tables, not counting the entities the node tables reference.
+     */
+    public long memoryFootprint() {
+        long bytes = arrayBytes(8, launchIds.length);
+        for (int[] array : new int[][]{rocketProvider, launchRocket, launchSite, launchOrbit,
+                rocketOffsets, rocketTargets, launchOffsets, launchTargets, siteOffsets, siteTargets}) {
+            bytes += arrayBytes(4, array.length);
+        }
+        // Node tables: a list slot per node, plus a hash entry per provider and rocket
+        int nodes = providers.size() + rockets.size() + sites.size() + orbits.size();
+        bytes += arrayBytes(REFERENCE_BYTES, nodes);
+        bytes += (long) (providers.size() + rockets.size()) * HASH_ENTRY_BYTES;
+        return bytes;
+    }
+
+    private static long arrayBytes(int elementBytes, int length) {
+        return ARRAY_HEADER_BYTES + (long) elementBytes * length;
+    }
+}
@@ -0,0 +1,92 @@
+package rockets.mining;
+
+import rockets.mining.sketch.SpaceSaving;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The most frequent rockets, launch service providers, launch sites and
+ * payloads of an unbounded stream of launch events, in a fixed amount of
+ * memory. Each key type is tracked by a {@link SpaceSaving} tracker, so counts
+ * are upper bounds that overcount by at most the total of the stream divided
+ * by the capacity. Launches can be fed as they arrive, for example from
+ * {@link rockets.dataaccess.DAO#forEach}, by several threads at once, and the
+ * trackers of several feeders can be merged.
+ * <p>
+ * A launch is counted under each of its keys separately, so a concurrent
+ * reader may see it counted under some keys and not yet under others.
+ */
+public class LaunchHeavyHitters implements Consumer<Launch> {
+    private final SpaceSaving<Rocket> rockets;
+    private final SpaceSaving<LaunchServiceProvider> providers;
+    private final SpaceSaving<String> launchSites;
+    private final SpaceSaving<String> payloads;
+
+    public LaunchHeavyHitters() {
+        this(SpaceSaving.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of items monitored for each key type.
+     */
+    public LaunchHeavyHitters(int capacity) {
+        this.rockets = new SpaceSaving<>(capacity);
+        this.providers = new SpaceSaving<>(capacity);
+        this.launchSites = new SpaceSaving<>(capacity);
+        this.payloads = new SpaceSaving<>(capacity);
+    }
+
+    @Override
+    public void accept(Launch launch) {
+        notNull(launch);
+        if (null != launch.getLaunchVehicle()) {
+            rockets.offer(launch.getLaunchVehicle());
+        }
+        if (null != launch.getLaunchServiceProvider()) {
+            providers.offer(launch.getLaunchServiceProvider());
+        }
+        if (null != launch.getLaunchSite()) {
+            launchSites.offer(launch.getLaunchSite());
+        }
+        if (null != launch.getPayload()) {
+            for (String payload : launch.getPayload()) {
+                if (null != payload) {
+                    payloads.offer(payload);
+                }
+            }
+        }
+    }
+
+    public List<SpaceSaving.Entry<Rocket>> topRockets(int k) {
+        return rockets.top(k);
+    }
+
+    public List<SpaceSaving.Entry<LaunchServiceProvider>> topLaunchServiceProviders(int k) {
+        return providers.top(k);
+    }
+
+    public List<SpaceSaving.Entry<String>> topLaunchSites(int k) {
+        return launchSites.top(k);
+    }
+
+    public List<SpaceSaving.Entry<String>> topPayloads(int k) {
+        return payloads.top(k);
+    }
+
+    /**
+     * Adds the launches seen by another feeder's trackers to these.
+     */
+    public void merge(LaunchHeavyHitters other) {
+        notNull(other);
+        rockets.merge(other.rockets);
+        providers.merge(other.providers);
+        launchSites.merge(other.launchSites);
+        payloads.merge(other.payloads);
+    }
+}
@@ -0,0 +1,33 @@
+package rockets.mining;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Derived state kept over the rows of a {@link LaunchColumns}. Once attached,
+ * the columns pass every live row to {@link #addAll} and then keep the index
+ * current: an updated row is first removed (while the columns still hold
+ * its old values) and then added again, and a deleted row is removed.
+ * <p>
+ * Indexes are not thread-safe on their own; they are guarded by whoever
+ * guards the columns they are attached to.
+ */
+public interface LaunchIndex {
+    /**
+     * Resets the index to empty and binds it to the given columns.
+     */
+    void attach(LaunchColumns columns);
+
+    void add(int row);
+
+    /**
+     * Adds the live rows of freshly attached columns, one {@link #add(int)}
+     * at a time unless the index can build itself faster in bulk.
+     */
+    default void addAll(PrimitiveIterator.OfInt rows) {
+        while (rows.hasNext()) {
+            add(rows.nextInt());
+        }
+    }
+
+    void remove(int row);
+}
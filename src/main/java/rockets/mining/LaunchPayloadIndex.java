@@ -0,0 +1,236 @@
+package rockets.mining;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * An inverted index from normalized payload term to the launches that carried
+ * it, and a sparse matrix of how many launches carried each pair of terms.
+ * Posting lists hold launch rows in launch id order, launches without an id
+ * last, so the launches of a term are read off in order and the launches of
+ * every term with a prefix are a merge of sorted lists. Terms are trimmed and
+ * lower-cased, so "Starlink " and "starlink" are the same term.
+ * <p>
+ * The matrix stores only pairs that flew together, one sparse row per term,
+ * and is updated with the posting lists on every write.
+ */
+public class LaunchPayloadIndex implements LaunchIndex {
+    private LaunchColumns columns;
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Map<String, Integer>> coOccurrences = new HashMap<>();
+
+    private final class Postings {
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int row) {
+            int position = search(row);
+            position = position >= 0 ? position : -position - 1;
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size + (size >> 1));
+            }
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        void remove(int row) {
+            int position = search(row);
+            if (position >= 0) {
+                System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private int search(int row) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int order = compare(rows[middle], row);
+                if (order < 0) {
+                    low = middle + 1;
+                } else if (order > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    // Launch id order, launches without an id last, then row order
+    private int compare(int row, int other) {
+        long id = columns.id(row);
+        long otherId = columns.id(other);
+        int order;
+        if (id != LaunchColumns.NO_ID && otherId != LaunchColumns.NO_ID) {
+            order = Long.compare(id, otherId);
+        } else {
+            order = id == otherId ? 0 : id == LaunchColumns.NO_ID ? 1 : -1;
+        }
+        return order != 0 ? order : Integer.compare(row, other);
+    }
+
+    /**
+     * @return the payload as an index term: trimmed and lower-cased.
+     */
+    public static String normalize(String payload) {
+        notNull(payload);
+        return payload.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        terms.clear();
+        coOccurrences.clear();
+    }
+
+    @Override
+    public void add(int row) {
+        String[] rowTerms = terms(row);
+        for (String term : rowTerms) {
+            terms.computeIfAbsent(term, t -> new Postings()).add(row);
+        }
+        updateCoOccurrences(rowTerms, 1);
+    }
+
+    @Override
+    public void remove(int row) {
+        String[] rowTerms = terms(row);
+        for (String term : rowTerms) {
+            Postings postings = terms.get(term);
+            if (null != postings) {
+                postings.remove(row);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+        updateCoOccurrences(rowTerms, -1);
+    }
+
+    // The distinct normalized terms of a launch's payload
+    private String[] terms(int row) {
+        TreeSet<String> rowTerms = new TreeSet<>();
+        for (int code : columns.payloads()[row]) {
+            if (code != LaunchColumns.NO_VALUE) {
+                String term = normalize(columns.payloadDictionary().value(code));
+                if (!term.isEmpty()) {
+                    rowTerms.add(term);
+                }
+            }
+        }
+        return rowTerms.toArray(new String[0]);
+    }
+
+    private void updateCoOccurrences(String[] rowTerms, int sign) {
+        for (String term : rowTerms) {
+            for (String other : rowTerms) {
+                if (!term.equals(other)) {
+                    Map<String, Integer> row = coOccurrences.computeIfAbsent(term, t -> new HashMap<>());
+                    int count = row.getOrDefault(other, 0) + sign;
+                    if (count == 0) {
+                        row.remove(other);
+                    } else {
+                        row.put(other, count);
+                    }
+                    if (row.isEmpty()) {
+                        coOccurrences.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct terms.
+     */
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * @return the rows of the launches that carried the payload, in launch id order.
+     */
+    public int[] rows(String payload) {
+        Postings postings = terms.get(normalize(payload));
+        return null == postings ? new int[0] : Arrays.copyOf(postings.rows, postings.size);
+    }
+
+    /**
+     * @return the rows of the launches that carried any payload starting with the prefix, in launch id order.
+     */
+    public int[] rowsWithPrefix(String prefix) {
+        String term = normalize(prefix);
+        int[] merged = new int[0];
+        for (Postings postings : withPrefix(term).values()) {
+            merged = union(merged, postings.rows, postings.size);
+        }
+        return merged;
+    }
+
+    /**
+     * @return the terms starting with the prefix, in alphabetical order.
+     */
+    public List<String> termsWithPrefix(String prefix) {
+        return new ArrayList<>(withPrefix(normalize(prefix)).keySet());
+    }
+
+    private NavigableMap<String, Postings> withPrefix(String term) {
+        return term.isEmpty() ? terms : terms.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    // Merges two sorted posting lists, keeping rows that are in both once
+    private int[] union(int[] rows, int[] others, int otherSize) {
+        int[] merged = new int[rows.length + otherSize];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < rows.length || j < otherSize) {
+            int order = i == rows.length ? 1 : j == otherSize ? -1 : compare(rows[i], others[j]);
+            if (order <= 0) {
+                merged[size++] = rows[i++];
+                j += order == 0 ? 1 : 0;
+            } else {
+                merged[size++] = others[j++];
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * @return the number of launches that carried both payloads.
+     */
+    public int coOccurrences(String payload, String other) {
+        Map<String, Integer> row = coOccurrences.get(normalize(payload));
+        return null == row ? 0 : row.getOrDefault(normalize(other), 0);
+    }
+
+    /**
+     * @return the k terms that flew with the payload most often, most often first,
+     * with ties in alphabetical order.
+     */
+    public List<String> mostCoOccurring(String payload, int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        Map<String, Integer> row = coOccurrences.getOrDefault(normalize(payload), new HashMap<>());
+        List<String> partners = new ArrayList<>(row.keySet());
+        partners.sort((a, b) -> {
+            int order = Integer.compare(row.get(b), row.get(a));
+            return order != 0 ? order : a.compareTo(b);
+        });
+        return partners.subList(0, Math.min(k, partners.size()));
+    }
+}
@@ -0,0 +1,266 @@
+package rockets.mining;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Launch rows ordered by price, most expensive first, with ties broken by
+ * launch id and then by row so that the order is stable. One ordering covers
+ * all launches and one is kept per year and per launch service provider, so
+ * the k most expensive launches of any of them are the first k entries, and a
+ * price band is two binary searches followed by a sequential cursor. Each
+ * ordering is sorted once when the index is built and kept sorted by shifting
+ * on later writes.
+ */
+public class LaunchPriceIndex implements LaunchIndex {
+    private LaunchColumns columns;
+    private PriceOrder all = new PriceOrder();
+    private final Map<Integer, PriceOrder> years = new HashMap<>();
+    private final Map<Integer, PriceOrder> providers = new HashMap<>();
+
+    private final class PriceOrder {
+        private int[] rows = new int[16];
+        private int size;
+
+        void add(int row) {
+            int position = search(row);
+            position = position >= 0 ? position : -position - 1;
+            grow();
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        // Adds a row out of order; sort() must follow before the ordering is read
+        void append(int row) {
+            grow();
+            rows[size++] = row;
+        }
+
+        void sort() {
+            int[] sorted = Arrays.stream(rows, 0, size).boxed()
+                    .sorted(LaunchPriceIndex.this::compare).mapToInt(Integer::intValue).toArray();
+            System.arraycopy(sorted, 0, rows, 0, size);
+        }
+
+        private void grow() {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size + (size >> 1));
+            }
+        }
+
+        void remove(int row) {
+            int position = search(row);
+            if (position >= 0) {
+                System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+                size--;
+            }
+        }
+
+        // Binary search for a row by its place in the ordering
+        private int search(int row) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int order = compare(rows[middle], row);
+                if (order < 0) {
+                    low = middle + 1;
+                } else if (order > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        // First position whose price is below the given price
+        private int below(long price) {
+            int low = 0;
+            int high = size;
+            long[] prices = columns.prices();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[rows[middle]] >= price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        int[] first(int k) {
+            return Arrays.copyOf(rows, Math.min(k, size));
+        }
+
+        PrimitiveIterator.OfInt between(long min, long max) {
+            int start = max == Long.MAX_VALUE ? 0 : below(max + 1);
+            int end = min > max ? start : below(min);
+            return new PrimitiveIterator.OfInt() {
+                private int position = start;
+
+                @Override
+                public boolean hasNext() {
+                    return position < end;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return rows[position++];
+                }
+            };
+        }
+    }
+
+    private int compare(int row, int other) {
+        long[] prices = columns.prices();
+        int order = Long.compare(prices[other], prices[row]);
+        if (order != 0) {
+            return order;
+        }
+        long id = columns.id(row);
+        long otherId = columns.id(other);
+        if (id != LaunchColumns.NO_ID && otherId != LaunchColumns.NO_ID) {
+            order = Long.compare(id, otherId);
+        } else if (id != otherId) {
+            // Launches without an id come last
+            order = id == LaunchColumns.NO_ID ? 1 : -1;
+        }
+        return order != 0 ? order : Integer.compare(row, other);
+    }
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        all = new PriceOrder();
+        years.clear();
+        providers.clear();
+    }
+
+    // Appends every row to its orderings and sorts each once, instead of shifting for each row
+    @Override
+    public void addAll(PrimitiveIterator.OfInt rows) {
+        while (rows.hasNext()) {
+            int row = rows.nextInt();
+            all.append(row);
+            PriceOrder year = year(row);
+            if (null != year) {
+                year.append(row);
+            }
+            PriceOrder provider = provider(row);
+            if (null != provider) {
+                provider.append(row);
+            }
+        }
+        all.sort();
+        years.values().forEach(PriceOrder::sort);
+        providers.values().forEach(PriceOrder::sort);
+    }
+
+    @Override
+    public void add(int row) {
+        all.add(row);
+        PriceOrder year = year(row);
+        if (null != year) {
+            year.add(row);
+        }
+        PriceOrder provider = provider(row);
+        if (null != provider) {
+            provider.add(row);
+        }
+    }
+
+    // The ordering of the row's year, or null if it has none
+    private PriceOrder year(int row) {
+        int year = columns.year(row);
+        return year == LaunchColumns.NO_DATE ? null : years.computeIfAbsent(year, y -> new PriceOrder());
+    }
+
+    // The ordering of the row's provider, or null if it has none
+    private PriceOrder provider(int row) {
+        int provider = columns.providers()[row];
+        return provider == LaunchColumns.NO_VALUE ? null : providers.computeIfAbsent(provider, p -> new PriceOrder());
+    }
+
+    @Override
+    public void remove(int row) {
+        all.remove(row);
+        remove(years, columns.year(row), row);
+        remove(providers, columns.providers()[row], row);
+    }
+
+    private static void remove(Map<Integer, PriceOrder> groups, int key, int row) {
+        PriceOrder order = groups.get(key);
+        if (null != order) {
+            order.remove(row);
+            if (order.size == 0) {
+                groups.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        return all.size;
+    }
+
+    /**
+     * @return the rows of the k most expensive launches, in O(k).
+     */
+    public int[] mostExpensive(int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        return all.first(k);
+    }
+
+    /**
+     * @return the rows of the k most expensive launches in the year, in O(k).
+     */
+    public int[] mostExpensiveInYear(int year, int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        PriceOrder order = years.get(year);
+        return null == order ? new int[0] : order.first(k);
+    }
+
+    /**
+     * @return the rows of the provider's k most expensive launches, in O(k).
+     */
+    public int[] mostExpensiveOfProvider(int provider, int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        PriceOrder order = providers.get(provider);
+        return null == order ? new int[0] : order.first(k);
+    }
+
+    /**
+     * Returns a cursor over the rows priced between the two fixed-point prices,
+     * both inclusive, most expensive first. The cursor reads the index directly
+     * and must not outlive the next write.
+     */
+    public PrimitiveIterator.OfInt between(long min, long max) {
+        return all.between(min, max);
+    }
+
+    /**
+     * @see #between(long, long)
+     */
+    public PrimitiveIterator.OfInt betweenInYear(int year, long min, long max) {
+        PriceOrder order = years.get(year);
+        return (null == order ? new PriceOrder() : order).between(min, max);
+    }
+
+    /**
+     * @see #between(long, long)
+     */
+    public PrimitiveIterator.OfInt betweenOfProvider(int provider, long min, long max) {
+        PriceOrder order = providers.get(provider);
+        return (null == order ? new PriceOrder() : order).between(min, max);
+    }
+}
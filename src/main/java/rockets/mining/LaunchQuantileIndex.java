@@ -0,0 +1,181 @@
+package rockets.mining;
+
+import rockets.mining.sketch.TDigest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * A t-digest of fixed-point launch prices per launch service provider and
+ * year, built in the same pass that loads the launch table, so price
+ * quantiles of a group never sort its prices. Digests of several years merge
+ * into the digest of a provider over those years.
+ * <p>
+ * Launches without a price are left out; a price of zero is a price. Each
+ * group keeps the rows it holds. Digests cannot forget a value, so a removal
+ * marks the launch's group stale, and the next quantile query rebuilds just
+ * the stale groups from their own rows.
+ */
+public class LaunchQuantileIndex implements LaunchIndex {
+    private final double compression;
+    private LaunchColumns columns;
+    private final Map<Long, Group> groups = new HashMap<>();
+    private final Set<Long> stale = new HashSet<>();
+
+    // The rows of one provider and year, and the digest of their prices unless it is stale
+    private static final class Group {
+        private int[] rows = new int[4];
+        private int size;
+        private TDigest digest;
+
+        private void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        private void remove(int row) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    rows[i] = rows[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    public LaunchQuantileIndex() {
+        this(TDigest.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression the accuracy of each group's digest, see {@link TDigest#TDigest(double)}.
+     */
+    public LaunchQuantileIndex(double compression) {
+        isTrue(compression >= 10, "compression must be at least 10");
+        this.compression = compression;
+    }
+
+    private static long key(int provider, int year) {
+        return (long) provider << 32 | (year & 0xFFFFFFFFL);
+    }
+
+    // The group key of a priced row with a provider and a date, or null if the row is in no group
+    private Long keyOf(int row) {
+        int provider = columns.providers()[row];
+        int year = columns.year(row);
+        if (!columns.priced().get(row) || provider == LaunchColumns.NO_VALUE || year == LaunchColumns.NO_DATE) {
+            return null;
+        }
+        return key(provider, year);
+    }
+
+    @Override
+    public synchronized void attach(LaunchColumns columns) {
+        this.columns = columns;
+        groups.clear();
+        stale.clear();
+    }
+
+    @Override
+    public synchronized void add(int row) {
+        Long key = keyOf(row);
+        if (null == key) {
+            return;
+        }
+        Group group = groups.computeIfAbsent(key, k -> new Group());
+        group.add(row);
+        if (!stale.contains(key)) {
+            if (null == group.digest) {
+                group.digest = new TDigest(compression);
+            }
+            group.digest.add(columns.prices()[row]);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int row) {
+        Long key = keyOf(row);
+        Group group = null == key ? null : groups.get(key);
+        if (null == group) {
+            return;
+        }
+        group.remove(row);
+        group.digest = null;
+        if (group.size == 0) {
+            groups.remove(key);
+            stale.remove(key);
+        } else {
+            stale.add(key);
+        }
+    }
+
+    // Rebuilds each stale group from its own rows
+    private void rebuildStale() {
+        long[] prices = columns.prices();
+        for (Long key : stale) {
+            Group group = groups.get(key);
+            group.digest = new TDigest(compression);
+            for (int i = 0; i < group.size; i++) {
+                group.digest.add(prices[group.rows[i]]);
+            }
+        }
+        stale.clear();
+    }
+
+    private TDigest digest(int provider, int year) {
+        Group group = groups.get(key(provider, year));
+        return null == group ? null : group.digest;
+    }
+
+    /**
+     * @return the estimated fixed-point prices at the quantiles, or none if the provider has no priced launches in the year.
+     */
+    public synchronized double[] quantiles(int provider, int year, double... q) {
+        rebuildStale();
+        return quantiles(digest(provider, year), q);
+    }
+
+    /**
+     * @return the estimated fixed-point prices at the quantiles over the years, both inclusive,
+     * or none if the provider has no priced launches in them.
+     */
+    public synchronized double[] quantilesBetween(int provider, int fromYear, int toYear, double... q) {
+        isTrue(fromYear <= toYear, "the first year cannot be after the last year");
+        rebuildStale();
+        TDigest merged = null;
+        int first = Math.max(fromYear, columns.firstYear());
+        int last = Math.min(toYear, columns.lastYear());
+        for (int year = first; year <= last; year++) {
+            TDigest digest = digest(provider, year);
+            if (null != digest) {
+                if (null == merged) {
+                    merged = new TDigest(compression);
+                }
+                merged.merge(digest);
+            }
+        }
+        return quantiles(merged, q);
+    }
+
+    private static double[] quantiles(TDigest digest, double[] q) {
+        isTrue(q.length > 0, "at least one quantile is required");
+        for (double quantile : q) {
+            isTrue(quantile >= 0 && quantile <= 1, "quantile must be between 0 and 1");
+        }
+        if (null == digest) {
+            return new double[0];
+        }
+        double[] values = new double[q.length];
+        for (int i = 0; i < q.length; i++) {
+            values[i] = digest.quantile(q[i]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,509 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A typed analytics query over the launch table: filter launches, group them
+ * by one {@link Dimension}, aggregate each group and rank the groups, e.g.
+ * the top countries by successful GTO launches since 2015:
+ * <pre>
+ * LaunchQuery.groupBy(Dimension.COUNTRY)
+ *         .where(Condition.orbit("GTO"))
+ *         .where(Condition.outcome(Launch.LaunchOutcome.SUCCESSFUL))
+ *         .where(Condition.yearFrom(2015))
+ *         .top(5)
+ * </pre>
+ * Queries are immutable. Executing one resolves the conditions to dictionary
+ * codes and runs a single pass over the live rows that filters, groups and
+ * accumulates into primitive arrays indexed by group code, without building
+ * any intermediate collection; groups are then ranked with {@link TopK}.
+ * {@link #explain()} describes that plan.
+ *
+ * @param <K> the type of the group keys.
+ * @param <V> the type of the aggregated values.
+ */
+public final class LaunchQuery<K, V> {
+    private final List<Condition> conditions;
+    private final Dimension<K> dimension;
+    private final Aggregate<V> aggregate;
+    private final int limit;
+
+    private LaunchQuery(List<Condition> conditions, Dimension<K> dimension, Aggregate<V> aggregate, int limit) {
+        this.conditions = conditions;
+        this.dimension = dimension;
+        this.aggregate = aggregate;
+        this.limit = limit;
+    }
+
+    /**
+     * Starts a query that counts the launches of each group and returns every group.
+     */
+    public static <K> LaunchQuery<K, Long> groupBy(Dimension<K> dimension) {
+        notNull(dimension);
+        return new LaunchQuery<>(Collections.emptyList(), dimension, Aggregate.COUNT, -1);
+    }
+
+    /**
+     * @return the query restricted to launches that also satisfy the condition.
+     */
+    public LaunchQuery<K, V> where(Condition condition) {
+        notNull(condition);
+        List<Condition> all = new ArrayList<>(conditions);
+        all.add(condition);
+        return new LaunchQuery<>(Collections.unmodifiableList(all), dimension, aggregate, limit);
+    }
+
+    /**
+     * @return the query computing the aggregate per group, and ranking groups by it.
+     */
+    public <W> LaunchQuery<K, W> aggregate(Aggregate<W> aggregate) {
+        notNull(aggregate);
+        return new LaunchQuery<>(conditions, dimension, aggregate, limit);
+    }
+
+    /**
+     * @return the query returning only the k groups with the highest aggregate.
+     */
+    public LaunchQuery<K, V> top(int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        return new LaunchQuery<>(conditions, dimension, aggregate, k);
+    }
+
+    /**
+     * @return a description of how the query is executed.
+     */
+    public String explain() {
+        StringBuilder plan = new StringBuilder("Fused scan over live launch rows (one pass, no intermediate collections)\n");
+        plan.append("  filter: ").append(conditions.isEmpty() ? "none" : conditions.stream()
+                .map(Condition::toString).collect(Collectors.joining(" and "))).append('\n');
+        plan.append("  group by: ").append(dimension).append(" (array indexed by ").append(dimension.codeDescription()).append(")\n");
+        plan.append("  aggregate: ").append(aggregate).append('\n');
+        plan.append("Rank groups by ").append(aggregate).append(" with a bounded heap, ties to the first-seen key\n");
+        plan.append("  limit: ").append(limit < 0 ? "none" : String.valueOf(limit));
+        return plan.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LaunchQuery<?, ?> query = (LaunchQuery<?, ?>) o;
+        return limit == query.limit &&
+                Objects.equals(conditions, query.conditions) &&
+                dimension == query.dimension &&
+                aggregate == query.aggregate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(conditions, dimension, aggregate, limit);
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    /**
+     * Runs the query against the table. The caller holds whatever lock guards it.
+     *
+     * @return the groups with at least one matching launch, highest aggregate first.
+     */
+    List<Result<K, V>> execute(LaunchColumns columns) {
+        IntPredicate[] filters = new IntPredicate[conditions.size()];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = conditions.get(i).compile(columns);
+        }
+        IntUnaryOperator codes = dimension.codes(columns);
+        int groups = dimension.cardinality(columns);
+        long[] counts = new long[groups];
+        long[] successes = aggregate.outcomes ? new long[groups] : null;
+        long[] sums = aggregate.prices ? new long[groups] : null;
+        BitSet live = columns.live();
+        BitSet successful = columns.successful();
+        long[] prices = columns.prices();
+
+        rows:
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            for (IntPredicate filter : filters) {
+                if (!filter.test(row)) {
+                    continue rows;
+                }
+            }
+            int code = codes.applyAsInt(row);
+            if (code == LaunchColumns.NO_VALUE) {
+                continue;
+            }
+            counts[code]++;
+            if (null != successes && successful.get(row)) {
+                successes[code]++;
+            }
+            if (null != sums) {
+                sums[code] = Money.add(sums[code], prices[row]);
+            }
+        }
+
+        int[] top = TopK.select(groups, limit < 0 ? groups : limit, code -> counts[code] == 0 ? TopK.ABSENT
+                : aggregate.score(counts[code], null == successes ? 0 : successes[code], null == sums ? 0 : sums[code]));
+        List<Result<K, V>> results = new ArrayList<>(top.length);
+        for (int code : top) {
+            results.add(new Result<>(dimension.value(columns, code),
+                    aggregate.value(columns, counts[code], null == successes ? 0 : successes[code], null == sums ? 0 : sums[code])));
+        }
+        return results;
+    }
+
+    /**
+     * One group of a query result: its key and aggregated value.
+     */
+    public static final class Result<K, V> {
+        private final K key;
+        private final V value;
+
+        Result(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Result<?, ?> result = (Result<?, ?>) o;
+            return Objects.equals(key, result.key) && Objects.equals(value, result.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * A launch attribute to group by. Launches without a value for it belong to no group.
+     */
+    public abstract static class Dimension<K> {
+        public static final Dimension<Rocket> VEHICLE = new Coded<>("vehicle", LaunchColumns::vehicles, LaunchColumns::vehicleDictionary);
+        public static final Dimension<LaunchServiceProvider> PROVIDER = new Coded<>("provider", LaunchColumns::providers, LaunchColumns::providerDictionary);
+        public static final Dimension<String> COUNTRY = new Coded<>("country", LaunchColumns::countries, LaunchColumns::countryDictionary);
+        public static final Dimension<String> ORBIT = new Coded<>("orbit", LaunchColumns::orbits, LaunchColumns::orbitDictionary);
+        public static final Dimension<Integer> YEAR = new Year();
+
+        private final String name;
+
+        private Dimension(String name) {
+            this.name = name;
+        }
+
+        abstract int cardinality(LaunchColumns columns);
+
+        // Maps a row to its group code, with the column looked up once per execution
+        abstract IntUnaryOperator codes(LaunchColumns columns);
+
+        abstract K value(LaunchColumns columns, int code);
+
+        abstract String codeDescription();
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+        private static final class Coded<K> extends Dimension<K> {
+            private final Function<LaunchColumns, int[]> column;
+            private final Function<LaunchColumns, LaunchColumns.Dictionary<K>> dictionary;
+
+            Coded(String name, Function<LaunchColumns, int[]> column, Function<LaunchColumns, LaunchColumns.Dictionary<K>> dictionary) {
+                super(name);
+                this.column = column;
+                this.dictionary = dictionary;
+            }
+
+            @Override
+            int cardinality(LaunchColumns columns) {
+                return dictionary.apply(columns).size();
+            }
+
+            @Override
+            IntUnaryOperator codes(LaunchColumns columns) {
+                int[] codes = column.apply(columns);
+                return row -> codes[row];
+            }
+
+            @Override
+            K value(LaunchColumns columns, int code) {
+                return dictionary.apply(columns).value(code);
+            }
+
+            @Override
+            String codeDescription() {
+                return this + " dictionary code";
+            }
+        }
+
+        private static final class Year extends Dimension<Integer> {
+            Year() {
+                super("year");
+            }
+
+            @Override
+            int cardinality(LaunchColumns columns) {
+                int first = columns.firstYear();
+                return first == LaunchColumns.NO_DATE ? 0 : columns.lastYear() - first + 1;
+            }
+
+            @Override
+            IntUnaryOperator codes(LaunchColumns columns) {
+                int first = columns.firstYear();
+                int[] years = columns.years();
+                return row -> years[row] == LaunchColumns.NO_DATE ? LaunchColumns.NO_VALUE : years[row] - first;
+            }
+
+            @Override
+            Integer value(LaunchColumns columns, int code) {
+                return columns.firstYear() + code;
+            }
+
+            @Override
+            String codeDescription() {
+                return "offset from the first year";
+            }
+        }
+    }
+
+    /**
+     * A per-group aggregate over the count, successful count and fixed-point
+     * price sum of the group's launches. Only the inputs an aggregate needs are
+     * accumulated.
+     */
+    public abstract static class Aggregate<V> {
+        // Fixed-point scale of ratio scores, so that ratios rank as longs
+        private static final long RATIO_SCALE = 1_000_000_000L;
+
+        public static final Aggregate<Long> COUNT = new Aggregate<Long>("count", false, false) {
+            @Override
+            long score(long count, long successful, long sum) {
+                return count;
+            }
+
+            @Override
+            Long value(LaunchColumns columns, long count, long successful, long sum) {
+                return count;
+            }
+        };
+
+        public static final Aggregate<Money> SUM_PRICE = new Aggregate<Money>("sum(price)", false, true) {
+            @Override
+            long score(long count, long successful, long sum) {
+                return sum;
+            }
+
+            @Override
+            Money value(LaunchColumns columns, long count, long successful, long sum) {
+                return columns.toMoney(sum);
+            }
+        };
+
+        public static final Aggregate<BigDecimal> SUCCESS_RATIO = new Aggregate<BigDecimal>("success ratio", true, false) {
+            @Override
+            long score(long count, long successful, long sum) {
+                return successful * RATIO_SCALE / count;
+            }
+
+            @Override
+            BigDecimal value(LaunchColumns columns, long count, long successful, long sum) {
+                return ratio(successful, count);
+            }
+        };
+
+        public static final Aggregate<BigDecimal> FAILURE_RATIO = new Aggregate<BigDecimal>("failure ratio", true, false) {
+            @Override
+            long score(long count, long successful, long sum) {
+                return (count - successful) * RATIO_SCALE / count;
+            }
+
+            @Override
+            BigDecimal value(LaunchColumns columns, long count, long successful, long sum) {
+                return ratio(count - successful, count);
+            }
+        };
+
+        private final String name;
+        private final boolean outcomes;
+        private final boolean prices;
+
+        private Aggregate(String name, boolean outcomes, boolean prices) {
+            this.name = name;
+            this.outcomes = outcomes;
+            this.prices = prices;
+        }
+
+        // Ratio with scale 2, as successfulLaunchRateInYear reports it
+        private static BigDecimal ratio(long part, long count) {
+            return BigDecimal.valueOf(part).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+        }
+
+        abstract long score(long count, long successful, long sum);
+
+        abstract V value(LaunchColumns columns, long count, long successful, long sum);
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * A condition on a launch. Conditions on dictionary-coded attributes are
+     * resolved to a code once per execution and compared as ints.
+     */
+    public abstract static class Condition {
+        private final String description;
+        // What the condition tests, so equal conditions compare equal
+        private final List<Object> key;
+
+        private Condition(String description, Object... key) {
+            this.description = description;
+            this.key = Arrays.asList(key);
+        }
+
+        abstract IntPredicate compile(LaunchColumns columns);
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Condition)) return false;
+            return key.equals(((Condition) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+
+        public static Condition vehicle(Rocket rocket) {
+            return equalTo("vehicle", rocket, LaunchColumns::vehicles, LaunchColumns::vehicleDictionary);
+        }
+
+        public static Condition provider(LaunchServiceProvider provider) {
+            return equalTo("provider", provider, LaunchColumns::providers, LaunchColumns::providerDictionary);
+        }
+
+        public static Condition country(String country) {
+            return equalTo("country", country, LaunchColumns::countries, LaunchColumns::countryDictionary);
+        }
+
+        public static Condition orbit(String orbit) {
+            return equalTo("orbit", orbit, LaunchColumns::orbits, LaunchColumns::orbitDictionary);
+        }
+
+        public static Condition launchSite(String launchSite) {
+            return equalTo("launch site", launchSite, LaunchColumns::sites, LaunchColumns::siteDictionary);
+        }
+
+        private static <T> Condition equalTo(String attribute, T value, Function<LaunchColumns, int[]> column,
+                                             Function<LaunchColumns, LaunchColumns.Dictionary<T>> dictionary) {
+            notNull(value);
+            return new Condition(attribute + " = " + value, attribute, value) {
+                @Override
+                IntPredicate compile(LaunchColumns columns) {
+                    int code = dictionary.apply(columns).code(value);
+                    if (code == LaunchColumns.NO_VALUE) {
+                        return row -> false;
+                    }
+                    int[] codes = column.apply(columns);
+                    return row -> codes[row] == code;
+                }
+            };
+        }
+
+        public static Condition outcome(Launch.LaunchOutcome outcome) {
+            notNull(outcome);
+            return new Condition("outcome = " + outcome, "outcome", outcome) {
+                @Override
+                IntPredicate compile(LaunchColumns columns) {
+                    BitSet successful = columns.successful();
+                    if (Launch.LaunchOutcome.SUCCESSFUL == outcome) {
+                        return successful::get;
+                    }
+                    return row -> !successful.get(row) && outcome == columns.outcome(row);
+                }
+            };
+        }
+
+        public static Condition year(int year) {
+            return dateRange("year = " + year, year, year);
+        }
+
+        public static Condition yearFrom(int year) {
+            return dateRange("year >= " + year, year, LocalDate.MAX.getYear());
+        }
+
+        public static Condition yearTo(int year) {
+            return dateRange("year <= " + year, LocalDate.MIN.getYear(), year);
+        }
+
+        // Year bounds become epoch day bounds, so rows are compared without computing their year
+        private static Condition dateRange(String description, int from, int to) {
+            long first = LocalDate.of(from, 1, 1).toEpochDay();
+            long last = LocalDate.of(to, 12, 31).toEpochDay();
+            return new Condition(description, "date", first, last) {
+                @Override
+                IntPredicate compile(LaunchColumns columns) {
+                    int[] epochDays = columns.epochDays();
+                    return row -> epochDays[row] != LaunchColumns.NO_DATE
+                            && epochDays[row] >= first && epochDays[row] <= last;
+                }
+            };
+        }
+
+        public static Condition priceAtLeast(BigDecimal price) {
+            notNull(price);
+            return new Condition("price >= " + price.toPlainString(), "price", price.stripTrailingZeros()) {
+                @Override
+                IntPredicate compile(LaunchColumns columns) {
+                    long min = columns.toFixedPoint(price, RoundingMode.CEILING);
+                    long[] prices = columns.prices();
+                    return row -> prices[row] >= min;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package rockets.mining;
+
+import rockets.mining.sketch.CountMinSketch;
+import rockets.mining.sketch.Estimate;
+import rockets.mining.sketch.HyperLogLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Probabilistic sketches for approximate analytics over the whole launch
+ * history: a HyperLogLog of distinct payloads and a Count-Min of payload
+ * launch counts per launch service provider, per rocket and per year, a
+ * HyperLogLog of distinct launch sites per country, and a Count-Min of payload
+ * launch counts over all launches.
+ * <p>
+ * HyperLogLogs cannot forget values, so distinct counts do not go down when a
+ * launch is updated or deleted until the miner is refreshed. Count-Min
+ * sketches are decremented on removal and stay upper bounds.
+ */
+public class LaunchSketchIndex implements LaunchIndex {
+    private static final Estimate NONE = new Estimate(0, 0, 0, 1);
+
+    private LaunchColumns columns;
+    private final Map<Integer, PayloadSketches> providers = new HashMap<>();
+    private final Map<Integer, PayloadSketches> vehicles = new HashMap<>();
+    private final Map<Integer, PayloadSketches> years = new HashMap<>();
+    private final Map<Integer, HyperLogLog> sitesByCountry = new HashMap<>();
+    private CountMinSketch payloadFrequency = new CountMinSketch();
+
+    static final class PayloadSketches {
+        private final HyperLogLog distinct = new HyperLogLog();
+        private final CountMinSketch frequency = new CountMinSketch();
+    }
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        providers.clear();
+        vehicles.clear();
+        years.clear();
+        sitesByCountry.clear();
+        payloadFrequency = new CountMinSketch();
+    }
+
+    @Override
+    public void add(int row) {
+        int country = columns.countries()[row];
+        int site = columns.sites()[row];
+        if (country != LaunchColumns.NO_VALUE && site != LaunchColumns.NO_VALUE) {
+            sitesByCountry.computeIfAbsent(country, c -> new HyperLogLog())
+                    .add(columns.siteDictionary().value(site));
+        }
+        update(row, 1);
+    }
+
+    @Override
+    public void remove(int row) {
+        update(row, -1);
+    }
+
+    private void update(int row, int count) {
+        int[] payload = columns.payloads()[row];
+        if (payload.length == 0) {
+            return;
+        }
+        PayloadSketches provider = sketches(providers, columns.providers()[row]);
+        PayloadSketches vehicle = sketches(vehicles, columns.vehicles()[row]);
+        int year = columns.year(row);
+        PayloadSketches yearSketches = sketches(years, year == LaunchColumns.NO_DATE ? LaunchColumns.NO_VALUE : year);
+        PayloadSketches[] groups = new PayloadSketches[]{provider, vehicle, yearSketches};
+        for (int code : payload) {
+            String item = columns.payloadDictionary().value(code);
+            payloadFrequency.add(item, count);
+            for (PayloadSketches sketches : groups) {
+                if (null != sketches) {
+                    sketches.frequency.add(item, count);
+                    if (count > 0) {
+                        sketches.distinct.add(item);
+                    }
+                }
+            }
+        }
+    }
+
+    private static PayloadSketches sketches(Map<Integer, PayloadSketches> groups, int key) {
+        return key == LaunchColumns.NO_VALUE ? null : groups.computeIfAbsent(key, k -> new PayloadSketches());
+    }
+
+    public Estimate distinctPayloadsOfProvider(int provider) {
+        PayloadSketches sketches = providers.get(provider);
+        return null == sketches ? NONE : sketches.distinct.toEstimate();
+    }
+
+    public Estimate distinctPayloadsOfRocket(int vehicle) {
+        PayloadSketches sketches = vehicles.get(vehicle);
+        return null == sketches ? NONE : sketches.distinct.toEstimate();
+    }
+
+    public Estimate distinctPayloadsInYear(int year) {
+        PayloadSketches sketches = years.get(year);
+        return null == sketches ? NONE : sketches.distinct.toEstimate();
+    }
+
+    public Estimate distinctLaunchSitesOfCountry(int country) {
+        HyperLogLog sketch = sitesByCountry.get(country);
+        return null == sketch ? NONE : sketch.toEstimate();
+    }
+
+    public Estimate payloadFrequency(String payload) {
+        return payloadFrequency.toEstimate(payload);
+    }
+
+    public Estimate payloadFrequencyOfProvider(int provider, String payload) {
+        PayloadSketches sketches = providers.get(provider);
+        return null == sketches ? NONE : sketches.frequency.toEstimate(payload);
+    }
+
+    public Estimate payloadFrequencyInYear(int year, String payload) {
+        PayloadSketches sketches = years.get(year);
+        return null == sketches ? NONE : sketches.frequency.toEstimate(payload);
+    }
+
+    /**
+     * @return a serialized copy of the provider's distinct-payload sketch, for merging elsewhere.
+     */
+    public byte[] distinctPayloadSketchOfProvider(int provider) {
+        PayloadSketches sketches = providers.get(provider);
+        return (null == sketches ? new HyperLogLog() : sketches.distinct).toBytes();
+    }
+
+    /**
+     * @return a serialized copy of the payload frequency sketch over all launches.
+     */
+    public byte[] payloadFrequencySketch() {
+        return payloadFrequency.toBytes();
+    }
+}
@@ -0,0 +1,186 @@
+package rockets.mining;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Launch and success counters per rocket and per launch service provider,
+ * bucketed by time for trailing-window analytics such as the top rockets over
+ * the last 365 days. Buckets cover {@code bucketDays} days each and live in a
+ * ring of {@code buckets} slots ending at today's bucket. A slot whose bucket
+ * has fallen out of the ring is recognised by its bucket number and reset on
+ * its next write, so expiring old buckets costs O(1) and never needs a sweep.
+ * A window query adds up the counters of the buckets it covers.
+ * <p>
+ * Launches older than the ring, or dated after today, are not counted. A
+ * launch dated in the future is counted once the miner is refreshed after
+ * its date. The index remembers which rows it counted, so removing a row it
+ * skipped leaves the counters alone.
+ */
+public class LaunchWindowIndex implements LaunchIndex {
+    public static final int DEFAULT_BUCKET_DAYS = 1;
+    public static final int DEFAULT_BUCKETS = 366;
+
+    private final Clock clock;
+    private final int bucketDays;
+    private final Bucket[] ring;
+    private final BitSet counted = new BitSet();
+    private LaunchColumns columns;
+
+    private static final class Bucket {
+        private final long number;
+        private long[] vehicleLaunches = new long[0];
+        private long[] vehicleSuccesses = new long[0];
+        private long[] providerLaunches = new long[0];
+        private long[] providerSuccesses = new long[0];
+
+        Bucket(long number) {
+            this.number = number;
+        }
+    }
+
+    public LaunchWindowIndex(Clock clock) {
+        this(clock, DEFAULT_BUCKET_DAYS, DEFAULT_BUCKETS);
+    }
+
+    public LaunchWindowIndex(Clock clock, int bucketDays, int buckets) {
+        notNull(clock);
+        isTrue(bucketDays > 0, "bucket days must be positive");
+        isTrue(buckets > 0, "buckets must be positive");
+        this.clock = clock;
+        this.bucketDays = bucketDays;
+        this.ring = new Bucket[buckets];
+    }
+
+    @Override
+    public void attach(LaunchColumns columns) {
+        this.columns = columns;
+        Arrays.fill(ring, null);
+        counted.clear();
+    }
+
+    @Override
+    public void add(int row) {
+        update(row, 1);
+    }
+
+    @Override
+    public void remove(int row) {
+        update(row, -1);
+    }
+
+    private void update(int row, int sign) {
+        int epochDay = columns.epochDays()[row];
+        if (epochDay == LaunchColumns.NO_DATE) {
+            return;
+        }
+        long number = Math.floorDiv(epochDay, bucketDays);
+        long current = currentBucket();
+        if (sign > 0 && (number > current || number <= current - ring.length)) {
+            return;
+        }
+        if (sign < 0 && !counted.get(row)) {
+            return;
+        }
+        counted.set(row, sign > 0);
+        int slot = (int) Math.floorMod(number, (long) ring.length);
+        Bucket bucket = ring[slot];
+        if (null == bucket || bucket.number != number) {
+            if (sign < 0) {
+                // The launch was counted in a bucket that has since expired
+                return;
+            }
+            bucket = new Bucket(number);
+            ring[slot] = bucket;
+        }
+        boolean success = columns.successful().get(row);
+        int vehicle = columns.vehicles()[row];
+        if (vehicle != LaunchColumns.NO_VALUE) {
+            bucket.vehicleLaunches = increment(bucket.vehicleLaunches, vehicle, sign);
+            if (success) {
+                bucket.vehicleSuccesses = increment(bucket.vehicleSuccesses, vehicle, sign);
+            }
+        }
+        int provider = columns.providers()[row];
+        if (provider != LaunchColumns.NO_VALUE) {
+            bucket.providerLaunches = increment(bucket.providerLaunches, provider, sign);
+            if (success) {
+                bucket.providerSuccesses = increment(bucket.providerSuccesses, provider, sign);
+            }
+        }
+    }
+
+    private static long[] increment(long[] counts, int code, int sign) {
+        if (code >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(code + 1, counts.length + (counts.length >> 1)));
+        }
+        counts[code] += sign;
+        return counts;
+    }
+
+    private long currentBucket() {
+        return Math.floorDiv(LocalDate.now(clock).toEpochDay(), bucketDays);
+    }
+
+    /**
+     * @return the longest window, in days, that the ring covers.
+     */
+    public int maxWindowDays() {
+        return ring.length * bucketDays;
+    }
+
+    /**
+     * @return the launches per rocket code in the last {@code days} days, including today.
+     */
+    public long[] vehicleLaunches(int days) {
+        return window(days, bucket -> bucket.vehicleLaunches, columns.vehicleDictionary().size());
+    }
+
+    /**
+     * @return the successful launches per rocket code in the last {@code days} days.
+     */
+    public long[] vehicleSuccesses(int days) {
+        return window(days, bucket -> bucket.vehicleSuccesses, columns.vehicleDictionary().size());
+    }
+
+    /**
+     * @return the launches per provider code in the last {@code days} days.
+     */
+    public long[] providerLaunches(int days) {
+        return window(days, bucket -> bucket.providerLaunches, columns.providerDictionary().size());
+    }
+
+    /**
+     * @return the successful launches per provider code in the last {@code days} days.
+     */
+    public long[] providerSuccesses(int days) {
+        return window(days, bucket -> bucket.providerSuccesses, columns.providerDictionary().size());
+    }
+
+    private interface Counter {
+        long[] of(Bucket bucket);
+    }
+
+    // Buckets are whole, so the window is rounded up to a whole number of buckets
+    private long[] window(int days, Counter counter, int codes) {
+        isTrue(days > 0 && days <= maxWindowDays(), "window must be between 1 and %d days", (long) maxWindowDays());
+        long[] totals = new long[codes];
+        long current = currentBucket();
+        int buckets = (days + bucketDays - 1) / bucketDays;
+        for (long number = current; number > current - buckets; number--) {
+            Bucket bucket = ring[(int) Math.floorMod(number, (long) ring.length)];
+            if (null != bucket && bucket.number == number) {
+                long[] counts = counter.of(bucket);
+                for (int code = 0; code < Math.min(counts.length, codes); code++) {
+                    totals[code] += counts[code];
+                }
+            }
+        }
+        return totals;
+    }
+}
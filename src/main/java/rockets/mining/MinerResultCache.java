@@ -0,0 +1,140 @@
+package rockets.mining;
+
+import rockets.dataaccess.DataVersion;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A bounded LRU cache of query results keyed by method name and arguments.
+ * <p>
+ * Each entry is stamped with the {@link DataVersion} current when its
+ * computation started; an entry is only served while the version is unchanged,
+ * so any DAO write makes every older entry stale. Concurrent misses on the same
+ * key wait for a single computation instead of each running the query.
+ * Failed computations are not cached.
+ */
+public class MinerResultCache {
+    private final DataVersion dataVersion;
+    private final Map<List<Object>, Entry> entries;
+    private long hits;
+    private long misses;
+
+    private static final class Entry {
+        private final long version;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(long version) {
+            this.version = version;
+        }
+    }
+
+    public MinerResultCache(DataVersion dataVersion, int maxEntries) {
+        notNull(dataVersion);
+        isTrue(maxEntries > 0, "maxEntries must be positive");
+        this.dataVersion = dataVersion;
+        this.entries = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of {@code method(args)}, computing it with the
+     * loader if there is no entry for the current data version.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String method, Supplier<T> loader, Object... args) {
+        notNull(method);
+        notNull(loader);
+        List<Object> key = key(method, args);
+        long version = dataVersion.current();
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (null != entry && entry.version == version) {
+                hits++;
+            } else {
+                misses++;
+                entry = new Entry(version);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                entry.result.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                entry.result.completeExceptionally(e);
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+            }
+        }
+        try {
+            return (T) entry.result.join();
+        } catch (CompletionException e) {
+            // Rethrow the loader's own exception to every waiter
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static List<Object> key(String method, Object[] args) {
+        Object[] key = new Object[args.length + 1];
+        key[0] = method;
+        System.arraycopy(args, 0, key, 1, args.length);
+        return Arrays.asList(key);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    public long missCount() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    /**
+     * @return the fraction of lookups served from the cache, or 0 before the first lookup.
+     */
+    public double hitRatio() {
+        synchronized (entries) {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package rockets.mining;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+import static org.apache.commons.lang3.Validate.inclusiveBetween;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A fixed-point amount of money: a long count of minor units (10^-scale) and
+ * a scale. Conversions to and from {@link BigDecimal} are exact, and any
+ * operation that would lose precision or overflow a long throws an
+ * {@link ArithmeticException} instead.
+ * <p>
+ * Hot aggregation loops work on the minor-unit longs through the static
+ * helpers and only build a {@code Money} at the API boundary.
+ */
+public final class Money implements Comparable<Money> {
+    public static final int DEFAULT_SCALE = 2;
+
+    private final long minorUnits;
+    private final int scale;
+
+    private Money(long minorUnits, int scale) {
+        this.minorUnits = minorUnits;
+        this.scale = scale;
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_SCALE);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more fractional digits than
+     *                             the scale or does not fit in a long.
+     */
+    public static Money of(BigDecimal amount, int scale) {
+        notNull(amount);
+        return new Money(toMinorUnits(amount, scale), scale);
+    }
+
+    public static Money ofMinorUnits(long minorUnits, int scale) {
+        inclusiveBetween(0, 18, scale, "scale must be between 0 and 18");
+        return new Money(minorUnits, scale);
+    }
+
+    /**
+     * Converts an amount to a count of minor units without allocating a {@code Money}.
+     *
+     * @throws ArithmeticException if the amount has more fractional digits than
+     *                             the scale or does not fit in a long.
+     */
+    public static long toMinorUnits(BigDecimal amount, int scale) {
+        notNull(amount);
+        inclusiveBetween(0, 18, scale, "scale must be between 0 and 18");
+        BigDecimal scaled;
+        try {
+            scaled = amount.setScale(scale, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("amount " + amount.toPlainString() + " has more than " + scale + " fractional digits");
+        }
+        try {
+            return scaled.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("amount " + amount.toPlainString() + " overflows a fixed-point long");
+        }
+    }
+
+    /**
+     * Adds two minor-unit counts, throwing on overflow.
+     */
+    public static long add(long minorUnits, long other) {
+        try {
+            return Math.addExact(minorUnits, other);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("fixed-point sum overflows a long");
+        }
+    }
+
+    /**
+     * Subtracts two minor-unit counts, throwing on overflow.
+     */
+    public static long subtract(long minorUnits, long other) {
+        try {
+            return Math.subtractExact(minorUnits, other);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("fixed-point difference overflows a long");
+        }
+    }
+
+    public Money plus(Money other) {
+        notNull(other);
+        isTrue(scale == other.scale, "cannot add amounts of different scale");
+        return new Money(add(minorUnits, other.minorUnits), scale);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        isTrue(scale == other.scale, "cannot compare amounts of different scale");
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && scale == money.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minorUnits, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,355 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.DAOListener;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.apache.commons.lang3.Validate.inclusiveBetween;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A typeahead index over rocket names, launch service provider names and
+ * launch sites, ranked by launch count. Names are indexed in a trie under
+ * every word they contain, so "mar" finds "Long March 3B", and every trie node
+ * keeps the best {@value #MAX_K} names below it. A lookup is therefore a walk
+ * down the prefix followed by a copy of at most {@value #MAX_K} matches,
+ * however many names share the prefix.
+ * <p>
+ * The index follows DAO writes as a {@link DAOListener}: a write re-ranks the
+ * trie nodes on the paths of the names it touches. Launch sites are known only
+ * through launches and leave the index with their last launch.
+ */
+public class NameSearchIndex implements DAOListener {
+    public static final int MAX_K = 10;
+
+    private static final Comparator<Entry> RANKING = Comparator.<Entry>comparingLong(entry -> -entry.launchCount)
+            .thenComparing(entry -> entry.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(entry -> entry.kind)
+            .thenComparing(entry -> entry.key);
+
+    public enum Kind {
+        ROCKET, PROVIDER, LAUNCH_SITE
+    }
+
+    /**
+     * A name that matched a search, with what it names and its launch count
+     * when it was found.
+     */
+    public static final class Match {
+        private final Kind kind;
+        private final Long id;
+        private final String name;
+        private final long launchCount;
+
+        private Match(Kind kind, Long id, String name, long launchCount) {
+            this.kind = kind;
+            this.id = id;
+            this.name = name;
+            this.launchCount = launchCount;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the id of the rocket or provider, or null for a launch site.
+         */
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getLaunchCount() {
+            return launchCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Match match = (Match) o;
+            return launchCount == match.launchCount && kind == match.kind
+                    && Objects.equals(id, match.id) && Objects.equals(name, match.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, id, name, launchCount);
+        }
+
+        @Override
+        public String toString() {
+            return "Match{" +
+                    "kind=" + kind +
+                    ", id=" + id +
+                    ", name='" + name + '\'' +
+                    ", launchCount=" + launchCount +
+                    '}';
+        }
+    }
+
+    private static final class Entry {
+        private final Kind kind;
+        // The entity id for rockets and providers, the name for launch sites
+        private final String key;
+        private final Long id;
+        private String name;
+        private long launchCount;
+
+        Entry(Kind kind, String key, Long id, String name) {
+            this.kind = kind;
+            this.key = key;
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<Entry> terminal = new LinkedHashSet<>();
+        private List<Entry> top = new ArrayList<>(0);
+    }
+
+    // The rocket, provider and site keys that a stored launch was counted under
+    private static final class LaunchKeys {
+        private final String rocket;
+        private final String provider;
+        private final String site;
+
+        LaunchKeys(String rocket, String provider, String site) {
+            this.rocket = rocket;
+            this.provider = provider;
+            this.site = site;
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<Long, LaunchKeys> launches = new HashMap<>();
+
+    /**
+     * Builds the index from the DAO's rockets, providers and launches and
+     * registers it to follow the DAO's writes.
+     */
+    public static NameSearchIndex build(DAO dao) {
+        notNull(dao);
+        NameSearchIndex index = new NameSearchIndex();
+        synchronized (index) {
+            dao.addListener(index);
+            for (Rocket rocket : dao.loadAll(Rocket.class)) {
+                index.onCreateOrUpdate(rocket);
+            }
+            for (LaunchServiceProvider provider : dao.loadAll(LaunchServiceProvider.class)) {
+                index.onCreateOrUpdate(provider);
+            }
+            dao.forEach(Launch.class, LaunchColumns.LOAD_CHUNK_SIZE, index::onCreateOrUpdate);
+        }
+        return index;
+    }
+
+    /**
+     * @return the k names with the most launches among those with a word
+     * starting with the query, ignoring case.
+     */
+    public synchronized List<Match> search(String query, int k) {
+        notNull(query);
+        inclusiveBetween(1, MAX_K, k, "k must be between 1 and " + MAX_K);
+        Node node = root;
+        for (char c : normalize(query).toCharArray()) {
+            node = node.children.get(c);
+            if (null == node) {
+                return new ArrayList<>(0);
+            }
+        }
+        List<Match> matches = new ArrayList<>(Math.min(k, node.top.size()));
+        for (Entry entry : node.top.subList(0, Math.min(k, node.top.size()))) {
+            matches.add(new Match(entry.kind, entry.id, entry.name, entry.launchCount));
+        }
+        return matches;
+    }
+
+    /**
+     * @return the number of indexed names.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void onCreateOrUpdate(Entity entity) {
+        if (entity instanceof Rocket) {
+            named(Kind.ROCKET, entity.getId(), ((Rocket) entity).getName());
+        } else if (entity instanceof LaunchServiceProvider) {
+            named(Kind.PROVIDER, entity.getId(), ((LaunchServiceProvider) entity).getName());
+        } else if (entity instanceof Launch && null != entity.getId()) {
+            Launch launch = (Launch) entity;
+            LaunchKeys previous = launches.remove(launch.getId());
+            if (null != previous) {
+                uncount(previous);
+            }
+            Rocket rocket = launch.getLaunchVehicle();
+            LaunchServiceProvider provider = launch.getLaunchServiceProvider();
+            LaunchKeys keys = new LaunchKeys(
+                    null == rocket ? null : named(Kind.ROCKET, rocket.getId(), rocket.getName()),
+                    null == provider ? null : named(Kind.PROVIDER, provider.getId(), provider.getName()),
+                    named(Kind.LAUNCH_SITE, null, launch.getLaunchSite()));
+            count(keys.rocket, 1);
+            count(keys.provider, 1);
+            count(keys.site, 1);
+            launches.put(launch.getId(), keys);
+        }
+    }
+
+    @Override
+    public synchronized void onDelete(Entity entity) {
+        if (entity instanceof Rocket || entity instanceof LaunchServiceProvider) {
+            Entry entry = entries.remove(key(entity instanceof Rocket ? Kind.ROCKET : Kind.PROVIDER, entity.getId(), null));
+            if (null != entry) {
+                unindex(entry);
+            }
+        } else if (entity instanceof Launch && null != entity.getId()) {
+            LaunchKeys previous = launches.remove(entity.getId());
+            if (null != previous) {
+                uncount(previous);
+            }
+        }
+    }
+
+    private static String key(Kind kind, Long id, String name) {
+        return kind == Kind.LAUNCH_SITE ? kind + ":" + name : kind + "#" + id;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Indexes or renames the entry of a name, returning its key or null if it cannot be indexed
+    private String named(Kind kind, Long id, String name) {
+        if (null == name || name.trim().isEmpty() || (kind != Kind.LAUNCH_SITE && null == id)) {
+            return null;
+        }
+        String key = key(kind, id, name);
+        Entry entry = entries.get(key);
+        if (null == entry) {
+            entry = new Entry(kind, key, id, name);
+            entries.put(key, entry);
+            index(entry);
+        } else if (!entry.name.equals(name)) {
+            unindex(entry);
+            entry.name = name;
+            index(entry);
+        }
+        return key;
+    }
+
+    private void uncount(LaunchKeys keys) {
+        count(keys.rocket, -1);
+        count(keys.provider, -1);
+        count(keys.site, -1);
+    }
+
+    private void count(String key, int delta) {
+        Entry entry = null == key ? null : entries.get(key);
+        if (null == entry) {
+            return;
+        }
+        entry.launchCount += delta;
+        if (entry.kind == Kind.LAUNCH_SITE && entry.launchCount <= 0) {
+            entries.remove(key);
+            unindex(entry);
+        } else {
+            for (String term : terms(entry.name)) {
+                rerank(path(term, false));
+            }
+        }
+    }
+
+    // The name from the start of each of its words
+    private static Set<String> terms(String name) {
+        String normalized = normalize(name);
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(normalized);
+        for (int i = 1; i < normalized.length(); i++) {
+            if (isSeparator(normalized.charAt(i - 1)) && !isSeparator(normalized.charAt(i))) {
+                terms.add(normalized.substring(i));
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || c == '-' || c == '_' || c == '/' || c == '(';
+    }
+
+    private void index(Entry entry) {
+        for (String term : terms(entry.name)) {
+            List<Node> path = path(term, true);
+            path.get(path.size() - 1).terminal.add(entry);
+            rerank(path);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (String term : terms(entry.name)) {
+            List<Node> path = path(term, false);
+            if (path.size() == term.length() + 1) {
+                path.get(path.size() - 1).terminal.remove(entry);
+            }
+            rerank(path);
+            // Prune nodes that no longer lead to any name
+            for (int i = path.size() - 1; i > 0; i--) {
+                Node node = path.get(i);
+                if (node.terminal.isEmpty() && node.children.isEmpty()) {
+                    path.get(i - 1).children.remove(term.charAt(i - 1));
+                }
+            }
+        }
+    }
+
+    // The nodes from the root along the term, stopping early if not created
+    private List<Node> path(String term, boolean create) {
+        List<Node> path = new ArrayList<>(term.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (char c : term.toCharArray()) {
+            node = create ? node.children.computeIfAbsent(c, ch -> new Node()) : node.children.get(c);
+            if (null == node) {
+                break;
+            }
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Recomputes the best names of each node on the path, deepest first
+    private void rerank(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Set<Entry> candidates = new LinkedHashSet<>(node.terminal);
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.top);
+            }
+            Entry[] ranked = candidates.toArray(new Entry[0]);
+            Arrays.sort(ranked, RANKING);
+            node.top = new ArrayList<>(Arrays.asList(ranked).subList(0, Math.min(MAX_K, ranked.length)));
+        }
+    }
+}
@@ -3,13 +3,22 @@ package rockets.mining;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.DAOListener;
+import rockets.mining.sketch.Estimate;
+import rockets.model.Entity;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
 
 import static org.apache.commons.lang3.Validate.isTrue;
 import static org.apache.commons.lang3.Validate.notNull;
@@ -19,8 +28,98 @@ public class RocketMiner {
 
     private DAO dao;
 
+    // Launch table and its indexes, loaded lazily and then kept current on DAO writes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LaunchColumns columns;
+    private final LaunchCube cube = new LaunchCube();
+    private final LaunchBitmapIndex bitmapIndex = new LaunchBitmapIndex();
+    private final LaunchSketchIndex sketchIndex = new LaunchSketchIndex();
+    private final LaunchDateIndex dateIndex = new LaunchDateIndex();
+    private final LaunchPriceIndex priceIndex = new LaunchPriceIndex();
+    private final LaunchQuantileIndex quantileIndex = new LaunchQuantileIndex();
+    private final LaunchPayloadIndex payloadIndex = new LaunchPayloadIndex();
+    private final LaunchWindowIndex windowIndex;
+
     public RocketMiner(DAO dao) {
+        this(dao, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock the clock that trailing windows such as "the last 365 days" end at.
+     */
+    public RocketMiner(DAO dao, Clock clock) {
         this.dao = dao;
+        this.windowIndex = new LaunchWindowIndex(clock);
+        dao.addListener(new DAOListener() {
+            @Override
+            public void onCreateOrUpdate(Entity entity) {
+                if (entity instanceof Launch) {
+                    write(columns -> columns.upsert((Launch) entity));
+                }
+            }
+
+            @Override
+            public void onDelete(Entity entity) {
+                if (entity instanceof Launch) {
+                    write(columns -> columns.delete((Launch) entity));
+                }
+            }
+        });
+    }
+
+    /**
+     * Discards the launch table so that the next query reloads it, and rebuilds
+     * the indexes, from the DAO.
+     */
+    public void refresh() {
+        lock.writeLock().lock();
+        try {
+            columns = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs a query against the loaded launch table, loading it first if needed
+    private <R> R query(Function<LaunchColumns, R> query) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (null != columns) {
+                    return query.apply(columns);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.writeLock().lock();
+            try {
+                if (null == columns) {
+                    columns = LaunchColumns.load(dao);
+                    columns.addIndex(cube);
+                    columns.addIndex(bitmapIndex);
+                    columns.addIndex(sketchIndex);
+                    columns.addIndex(dateIndex);
+                    columns.addIndex(priceIndex);
+                    columns.addIndex(quantileIndex);
+                    columns.addIndex(payloadIndex);
+                    columns.addIndex(windowIndex);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Applies a write to the launch table; before the first query there is nothing to update
+    private void write(Function<LaunchColumns, ?> update) {
+        lock.writeLock().lock();
+        try {
+            if (null != columns) {
+                update.apply(columns);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -32,25 +131,13 @@ public class RocketMiner {
     public List<Rocket> mostLaunchedRockets(int k) {
         notNull(k);             // Ensures input is not null
 
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Map<Rocket, Integer> occurrence = new HashMap<>();
-
-        // Iterate through launches and find occurrences of each rocket
-        for (Launch l : launches) {
-            Launch.LaunchOutcome outcome = l.getLaunchOutcome();
-            if (outcome.toString().equals("SUCCESSFUL")) {      // If launch is successful, count occurrences of rocket
-                Rocket rocket = l.getLaunchVehicle();
-                if (occurrence.containsKey(rocket)) {
-                    occurrence.put(rocket, occurrence.get(rocket) + 1);
-                } else {
-                    occurrence.put(rocket, 1);
-                }
-            }
-        }
+        // Count successful launches per rocket
+        List<LaunchQuery.Result<Rocket, Long>> counts = query(LaunchQuery.groupBy(LaunchQuery.Dimension.VEHICLE)
+                .where(LaunchQuery.Condition.outcome(Launch.LaunchOutcome.SUCCESSFUL))::execute);
 
-        isTrue(k <= occurrence.entrySet().stream().count(), "Input integer is higher than the number of rockets");
-        // Sort the results based on highest key value, and return first k elements
-        return occurrence.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByValue())).limit(k).map(Map.Entry::getKey).collect(Collectors.toList());
+        isTrue(k <= counts.size(), "Input integer is higher than the number of rockets");
+        // Return the k rockets with the highest count
+        return keys(counts.subList(0, k));
     }
 
     /**
@@ -64,26 +151,69 @@ public class RocketMiner {
     public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
         notNull(k);              // Ensures input is not null
 
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Map<LaunchServiceProvider, Integer> occurrence = new HashMap<>();
+        // Count successful launches per launch service provider
+        List<LaunchQuery.Result<LaunchServiceProvider, Long>> counts = query(LaunchQuery.groupBy(LaunchQuery.Dimension.PROVIDER)
+                .where(LaunchQuery.Condition.outcome(Launch.LaunchOutcome.SUCCESSFUL))::execute);
 
-        // Iterate through launches and compare manufacturers
-        for (Launch l : launches) {
-            Launch.LaunchOutcome outcome = l.getLaunchOutcome();
+        isTrue(k <= counts.size(), "Input integer is higher than the number of launch service providers");
+        // Return the k providers with the highest count
+        return keys(counts.subList(0, k));
+    }
 
-            if (outcome.toString().equals("SUCCESSFUL")) {      // If launch was successful, increase launch service provider count
-                LaunchServiceProvider provider = l.getLaunchServiceProvider();
-                if (occurrence.containsKey(provider)) {
-                    occurrence.put(provider, occurrence.get(provider) + 1);
-                } else {
-                    occurrence.put(provider, 1);
-                }
-            }
-        }
+    /**
+     * <p>
+     * Returns the top-k most active rockets over the last days, as measured by
+     * number of completed launches in that window.
+     *
+     * @param k the number of rockets to be returned.
+     * @param days the length of the window, ending today.
+     * @return the list of k most active rockets in the window.
+     */
+    public List<Rocket> mostLaunchedRockets(int k, int days) {
+        return query(columns -> {
+            long[] successes = windowIndex.vehicleSuccesses(days);
+            isTrue(k <= Arrays.stream(successes).filter(count -> count > 0).count(),
+                    "Input integer is higher than the number of rockets launched in the window");
+            return decode(TopK.select(successes.length, k, orAbsent(successes)), columns.vehicleDictionary());
+        });
+    }
+
+    /**
+     * <p>
+     * Returns the top-k most reliable launch service providers over the last
+     * days, as measured by successful launches in that window.
+     *
+     * @param k the number of launch service providers to be returned.
+     * @param days the length of the window, ending today.
+     * @return the list of k most reliable ones in the window.
+     */
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k, int days) {
+        return query(columns -> {
+            long[] successes = windowIndex.providerSuccesses(days);
+            isTrue(k <= Arrays.stream(successes).filter(count -> count > 0).count(),
+                    "Input integer is higher than the number of launch service providers in the window");
+            return decode(TopK.select(successes.length, k, orAbsent(successes)), columns.providerDictionary());
+        });
+    }
 
-        isTrue(k <= occurrence.entrySet().stream().count(), "Input integer is higher than the number of launch service providers");
-        // Sort the results based on highest key value, and return first k elements
-        return occurrence.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByValue())).limit(k).map(Map.Entry::getKey).collect(Collectors.toList());
+    /**
+     * <p>
+     * Returns the rolling success rate of a launch service provider over the last days.
+     *
+     * @param provider the launch service provider.
+     * @param days the length of the window, ending today.
+     * @return the share of the provider's launches in the window that were successful, with scale 2.
+     */
+    public BigDecimal rollingSuccessRate(LaunchServiceProvider provider, int days) {
+        notNull(provider);
+        return query(columns -> {
+            int code = columns.providerDictionary().code(provider);
+            long[] launches = windowIndex.providerLaunches(days);
+            long total = code == LaunchColumns.NO_VALUE || code >= launches.length ? 0 : launches[code];
+            isTrue(total > 0, "There are no launches of the provider in the last %d days", (long) days);
+            return BigDecimal.valueOf(windowIndex.providerSuccesses(days)[code])
+                    .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+        });
     }
 
     /**
@@ -96,10 +226,24 @@ public class RocketMiner {
     public List<Launch> mostRecentLaunches(int k) {
         notNull(k);
         logger.info(String.format("find most recent %d launches", k));
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        isTrue(k <= launches.size(), "Input integer is higher than the number of launches");
-        Comparator<Launch> launchDateComparator = Comparator.comparing(Launch::getLaunchDate).reversed();
-        return launches.stream().sorted(launchDateComparator).limit(k).collect(Collectors.toList());
+        return query(columns -> {
+            isTrue(k <= columns.liveCount(), "Input integer is higher than the number of launches");
+            return columns.select(dateIndex.mostRecent(k));
+        }).load();
+    }
+
+    /**
+     * <p>
+     * Returns the launches between two dates, both inclusive, in date order.
+     *
+     * @param from the first launch date.
+     * @param to the last launch date.
+     * @return the list of launches in the date range.
+     */
+    public List<Launch> launchesBetween(LocalDate from, LocalDate to) {
+        notNull(from);
+        notNull(to);
+        return query(columns -> columns.select(dateIndex.between(from, to))).load();
     }
 
     /**
@@ -111,13 +255,58 @@ public class RocketMiner {
      */
     public List<Launch> mostExpensiveLaunches(int k) {
         notNull(k);
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        isTrue(k <= launches.size(), "Input integer is higher than the number of launches");
-        Comparator<Launch> launchPriceComparator = Comparator.comparing(Launch::getPrice).reversed();
-        //limit(k) returns k number of launches
-        return launches.stream().sorted(launchPriceComparator).limit(k).collect(Collectors.toList());
+        return query(columns -> {
+            isTrue(k <= columns.liveCount(), "Input integer is higher than the number of launches");
+            return columns.select(priceIndex.mostExpensive(k));
+        }).load();
+    }
+
+    /**
+     * <p>
+     * Returns the top-k most expensive launches in a year, or all of them if
+     * there are fewer than k.
+     *
+     * @param k the number of launches to be returned.
+     * @param year the year.
+     * @return the list of at most k most expensive launches in the year.
+     */
+    public List<Launch> mostExpensiveLaunchesInYear(int k, int year) {
+        isTrue(k >= 0, "Input integer cannot be negative");
+        return query(columns -> columns.select(priceIndex.mostExpensiveInYear(year, k))).load();
+    }
+
+    /**
+     * <p>
+     * Returns the top-k most expensive launches of a launch service provider,
+     * or all of them if there are fewer than k.
+     *
+     * @param k the number of launches to be returned.
+     * @param provider the launch service provider.
+     * @return the list of at most k most expensive launches of the provider.
+     */
+    public List<Launch> mostExpensiveLaunches(int k, LaunchServiceProvider provider) {
+        isTrue(k >= 0, "Input integer cannot be negative");
+        notNull(provider);
+        return query(columns -> columns.select(
+                priceIndex.mostExpensiveOfProvider(columns.providerDictionary().code(provider), k))).load();
+    }
+
+    /**
+     * <p>
+     * Returns the launches priced between two amounts, both inclusive, most
+     * expensive first.
+     *
+     * @param min the lowest price.
+     * @param max the highest price.
+     * @return the list of launches in the price range.
+     */
+    public List<Launch> launchesPricedBetween(BigDecimal min, BigDecimal max) {
+        notNull(min);
+        notNull(max);
+        // Round the bounds inwards to the table's price scale so the range stays exact
+        return query(columns -> columns.select(priceIndex.between(
+                columns.toFixedPoint(min, RoundingMode.CEILING), columns.toFixedPoint(max, RoundingMode.FLOOR)))).load();
     }
-    // k = 1 should return
 
     /**
      * <p>
@@ -129,27 +318,19 @@ public class RocketMiner {
     public String dominantCountry(String orbit) {
         notNull(orbit);
 
-        // for all launches, get the rockets
-        List<Rocket> rockets = dao.loadAll(Launch.class)
-                .stream()
-                .filter(launch -> launch.getOrbit().equals(orbit))
-                .map(Launch::getLaunchVehicle)
-                .collect(Collectors.toList());
-
-        isTrue(!rockets.isEmpty(), "There are no rockets in this orbit.");
+        return query(columns -> {
+            int code = columns.orbitDictionary().code(orbit);
+            LaunchCube.Slice inOrbit = code == LaunchColumns.NO_VALUE ? null : LaunchCube.all().orbit(code);
 
-        // count the number of occurrences per country
-        Map<String, Long> countries = rockets
-                .stream()
-                .collect(Collectors.groupingBy(Rocket::getCountry, Collectors.counting()));
+            // the launches in this orbit per rocket country, read off the cube
+            long[] occurrence = null == inOrbit ? new long[0] : cube.countsBy(LaunchCube.Axis.COUNTRY, inOrbit);
 
-        // return the country that occurred the most
-        Map.Entry<String, Long> dominantCountry = countries.entrySet()
-                .stream()
-                .max((country1, country2) -> country1.getValue() > country2.getValue() ? 1 : -1)
-                .orElse(null);
+            isTrue(Arrays.stream(occurrence).sum() > 0, "There are no rockets in this orbit.");
 
-        return dominantCountry == null ? null : dominantCountry.getKey();
+            // return the country that occurred the most
+            int[] dominantCountry = TopK.select(occurrence.length, 1, orAbsent(occurrence));
+            return dominantCountry.length == 0 ? null : columns.countryDictionary().value(dominantCountry[0]);
+        });
     }
 
     /**
@@ -167,27 +348,45 @@ public class RocketMiner {
 
         isTrue(year <= Calendar.getInstance().get(Calendar.YEAR), "Input integer year is beyond a valid year of launches");
 
-        List<Launch> launchesByYear = dao.loadAll(Launch.class)
-                .stream()
-                .filter(launch -> launch.getLaunchDate().getYear() == year)
-                .collect(Collectors.toList());
-
-        isTrue(k <= launchesByYear.size(),"Input integer is higher than the number of launches");
-        isTrue(!launchesByYear.isEmpty(), "There are no launches in year " + year);
-
-        // sum the price of launches per service provider
-        Map<LaunchServiceProvider, BigDecimal> serviceProvider = new HashMap<>();
-        for (Launch l: launchesByYear){
-            LaunchServiceProvider provider = l.getLaunchServiceProvider();
-            if (serviceProvider.containsKey(provider)){
-                serviceProvider.put(provider, serviceProvider.get(provider).add(l.getPrice()));
-            } else{
-                serviceProvider.put(provider, l.getPrice());
-            }
-        }
+        return query(columns -> {
+            LaunchCube.Slice inYear = LaunchCube.all().year(year);
+            long launchesByYear = cube.count(inYear);
 
-        return serviceProvider.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .limit(k).map(Map.Entry::getKey).collect(Collectors.toList());
+            isTrue(k <= launchesByYear, "Input integer is higher than the number of launches");
+            isTrue(launchesByYear > 0, "There are no launches in year " + year);
+
+            // providers ranked by the revenue in the cube, among those that launched in the year
+            long[] counts = cube.countsBy(LaunchCube.Axis.PROVIDER, inYear);
+            long[] revenue = cube.revenueBy(LaunchCube.Axis.PROVIDER, inYear);
+            return decode(TopK.select(revenue.length, k, i -> counts[i] > 0 ? revenue[i] : TopK.ABSENT),
+                    columns.providerDictionary());
+        });
+    }
+
+    /**
+     * <p>
+     * Returns estimated quantiles of the launch prices of a launch service
+     * provider in a year, such as the median, p90 and p99. Launches without a
+     * price are left out.
+     *
+     * @param provider the launch service provider.
+     * @param year the year.
+     * @param q the quantiles, each between 0 and 1.
+     * @return the estimated price at each quantile, in the order given.
+     */
+    public List<Money> priceQuantiles(LaunchServiceProvider provider, int year, double... q) {
+        notNull(provider);
+        notNull(q);
+        return query(columns -> {
+            int code = columns.providerDictionary().code(provider);
+            double[] prices = code == LaunchColumns.NO_VALUE ? new double[0] : quantileIndex.quantiles(code, year, q);
+            isTrue(prices.length > 0, "There are no priced launches of the provider in year " + year);
+            List<Money> quantiles = new ArrayList<>(prices.length);
+            for (double price : prices) {
+                quantiles.add(columns.toMoney(Math.round(price)));
+            }
+            return quantiles;
+        });
     }
 
     /**
@@ -199,10 +398,7 @@ public class RocketMiner {
      */
     public List<Launch> launchesFromCountry(String country) {
         notNull(country);
-        List<Launch> countryLaunches = dao.loadAll(Launch.class)
-                .stream()
-                .filter(launch -> launch.getLaunchVehicle().getCountry().equals(country))
-                .collect(Collectors.toList());
+        List<Launch> countryLaunches = query(columns -> columns.select(bitmapIndex.country(country).rows())).load();
 
         // no launches
         isTrue(!countryLaunches.isEmpty(), "There are no launches from this country");
@@ -211,9 +407,32 @@ public class RocketMiner {
         return countryLaunches;
     }
 
-//TODO this seems to be not implemented cross check once again
     /**
-     * TODO: to be implemented & tested!
+     * <p>
+     * Returns the launches selected by a filter over the bitmap indexes, e.g.
+     * <code>index -> index.orbit("GTO").and(index.country("China")).and(index.outcome(FAILED))</code>.
+     *
+     * @param filter builds the filter from the index.
+     * @return the matching launches.
+     */
+    public List<Launch> launchesMatching(Function<LaunchBitmapIndex, LaunchFilter> filter) {
+        notNull(filter);
+        return query(columns -> columns.select(filter.apply(bitmapIndex).rows())).load();
+    }
+
+    /**
+     * <p>
+     * Counts the launches selected by a filter over the bitmap indexes.
+     *
+     * @param filter builds the filter from the index.
+     * @return the number of matching launches.
+     */
+    public int countLaunchesMatching(Function<LaunchBitmapIndex, LaunchFilter> filter) {
+        notNull(filter);
+        return query(columns -> filter.apply(bitmapIndex).cardinality());
+    }
+
+    /**
      * <p>
      * Returns the successful launch rate in <code>year</code> measured by the
      * number of successful launches and total number of launches
@@ -222,6 +441,177 @@ public class RocketMiner {
      * @return the successful launch rate in BigDecimal with scale 2.
      */
     public BigDecimal successfulLaunchRateInYear(int year) {
-        return BigDecimal.valueOf(0);
+        notNull(year);
+        return query(columns -> {
+            LaunchCube.Slice inYear = LaunchCube.all().year(year);
+            isTrue(cube.count(inYear) > 0, "There are no launches in year " + year);
+            return cube.successRate(inYear);
+        });
+    }
+
+    /**
+     * <p>
+     * Returns the total price of the launches in <code>year</code>, summed in
+     * fixed point.
+     *
+     * @param year the year
+     * @return the revenue, zero if there were no launches.
+     */
+    public Money revenueInYear(int year) {
+        return query(columns -> columns.toMoney(cube.revenue(LaunchCube.all().year(year))));
+    }
+
+    /**
+     * <p>
+     * Returns the total price of a launch service provider's launches in
+     * <code>year</code>, summed in fixed point.
+     *
+     * @param provider the launch service provider.
+     * @param year the year
+     * @return the revenue, zero if the provider had no launches.
+     */
+    public Money revenueInYear(LaunchServiceProvider provider, int year) {
+        notNull(provider);
+        return query(columns -> {
+            int code = columns.providerDictionary().code(provider);
+            return columns.toMoney(code == LaunchColumns.NO_VALUE ? 0 : cube.revenue(LaunchCube.all().year(year).provider(code)));
+        });
+    }
+
+    /**
+     * <p>
+     * Runs an analytics query over the launches, e.g. the providers by failure
+     * rate in an orbit:
+     * <code>LaunchQuery.groupBy(Dimension.PROVIDER).where(Condition.orbit("GTO")).aggregate(Aggregate.FAILURE_RATIO)</code>.
+     *
+     * @param query the query.
+     * @return the groups with at least one matching launch, highest aggregate first.
+     */
+    public <K, V> List<LaunchQuery.Result<K, V>> run(LaunchQuery<K, V> query) {
+        notNull(query);
+        return query(query::execute);
+    }
+
+    /**
+     * <p>
+     * Returns the launches that carried a payload, ignoring case and
+     * surrounding spaces.
+     *
+     * @param payload the payload.
+     * @return the list of launches that carried it, in launch id order.
+     */
+    public List<Launch> launchesCarrying(String payload) {
+        notNull(payload);
+        return query(columns -> columns.select(payloadIndex.rows(payload))).load();
+    }
+
+    /**
+     * <p>
+     * Returns the launches that carried any payload starting with a prefix,
+     * ignoring case, such as every "Starlink" satellite.
+     *
+     * @param prefix the start of the payload.
+     * @return the list of launches that carried a matching payload, in launch id order.
+     */
+    public List<Launch> launchesCarryingPrefix(String prefix) {
+        notNull(prefix);
+        return query(columns -> columns.select(payloadIndex.rowsWithPrefix(prefix))).load();
+    }
+
+    /**
+     * <p>
+     * Returns the payloads that most often flew on the same launch as a payload.
+     *
+     * @param payload the payload.
+     * @param k the number of payloads to be returned.
+     * @return the list of at most k normalized payloads, most often flown together first.
+     */
+    public List<String> payloadsFlownWith(String payload, int k) {
+        notNull(payload);
+        isTrue(k >= 0, "Input integer cannot be negative");
+        return query(columns -> payloadIndex.mostCoOccurring(payload, k));
+    }
+
+    /**
+     * <p>
+     * Returns the approximate number of distinct payloads launched by a launch
+     * service provider, from a HyperLogLog sketch.
+     *
+     * @param provider the launch service provider.
+     * @return the estimate with its 95% error bounds.
+     */
+    public Estimate approximateDistinctPayloads(LaunchServiceProvider provider) {
+        notNull(provider);
+        return query(columns -> sketchIndex.distinctPayloadsOfProvider(columns.providerDictionary().code(provider)));
+    }
+
+    /**
+     * <p>
+     * Returns the approximate number of distinct payloads launched by a rocket.
+     *
+     * @param rocket the rocket.
+     * @return the estimate with its 95% error bounds.
+     */
+    public Estimate approximateDistinctPayloads(Rocket rocket) {
+        notNull(rocket);
+        return query(columns -> sketchIndex.distinctPayloadsOfRocket(columns.vehicleDictionary().code(rocket)));
+    }
+
+    /**
+     * <p>
+     * Returns the approximate number of distinct payloads launched in a year.
+     *
+     * @param year the year.
+     * @return the estimate with its 95% error bounds.
+     */
+    public Estimate approximateDistinctPayloadsInYear(int year) {
+        notNull(year);
+        return query(columns -> sketchIndex.distinctPayloadsInYear(year));
+    }
+
+    /**
+     * <p>
+     * Returns the approximate number of distinct launch sites used by rockets of a country.
+     *
+     * @param country the name of the country.
+     * @return the estimate with its 95% error bounds.
+     */
+    public Estimate approximateDistinctLaunchSites(String country) {
+        notNull(country);
+        return query(columns -> sketchIndex.distinctLaunchSitesOfCountry(columns.countryDictionary().code(country)));
+    }
+
+    /**
+     * <p>
+     * Returns the approximate number of launches that carried a payload, from a
+     * Count-Min sketch. The estimate never undercounts.
+     *
+     * @param payload the payload.
+     * @return the estimate with its one-sided error bound.
+     */
+    public Estimate approximatePayloadFrequency(String payload) {
+        notNull(payload);
+        return query(columns -> sketchIndex.payloadFrequency(payload));
+    }
+
+    // Scores zero counts as absent so they are never ranked
+    private static IntToLongFunction orAbsent(long[] counts) {
+        return i -> counts[i] > 0 ? counts[i] : TopK.ABSENT;
+    }
+
+    private static <T> List<T> decode(int[] codes, LaunchColumns.Dictionary<T> dictionary) {
+        List<T> values = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            values.add(dictionary.value(code));
+        }
+        return values;
+    }
+
+    private static <K> List<K> keys(List<? extends LaunchQuery.Result<K, ?>> results) {
+        List<K> keys = new ArrayList<>(results.size());
+        for (LaunchQuery.Result<K, ?> result : results) {
+            keys.add(result.getKey());
+        }
+        return keys;
     }
 }
@@ -0,0 +1,98 @@
+package rockets.mining;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Primitive top-k selection over ordinals, used by the miner to rank rows or
+ * dictionary codes without boxing. Higher scores rank first and ties go to the
+ * lower ordinal, so results are deterministic. Ordinals whose score is
+ * {@link #ABSENT} are never selected.
+ */
+final class TopK {
+    static final long ABSENT = Long.MIN_VALUE;
+
+    private TopK() {
+    }
+
+    /**
+     * Selects the (at most) k best ordinals in {@code [0, n)}.
+     *
+     * @param n     the number of ordinals to consider.
+     * @param k     the number of ordinals to return.
+     * @param score the score of each ordinal.
+     * @return the selected ordinals, best first.
+     */
+    static int[] select(int n, int k, IntToLongFunction score) {
+        int[] heap = new int[Math.max(0, Math.min(k, n))];
+        long[] keys = new long[heap.length];
+        int size = 0;
+        for (int i = 0; i < n && heap.length > 0; i++) {
+            long s = score.applyAsLong(i);
+            if (s == ABSENT) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = i;
+                keys[size] = s;
+                siftUp(heap, keys, size++);
+            } else if (better(s, i, keys[0], heap[0])) {
+                heap[0] = i;
+                keys[0] = s;
+                siftDown(heap, keys, 0, size);
+            }
+        }
+        // Pop the worst element to the back until the heap is drained
+        int[] result = new int[size];
+        for (int end = size - 1; end >= 0; end--) {
+            result[end] = heap[0];
+            heap[0] = heap[end];
+            keys[0] = keys[end];
+            siftDown(heap, keys, 0, end);
+        }
+        return result;
+    }
+
+    private static boolean better(long s1, int o1, long s2, int o2) {
+        return s1 > s2 || (s1 == s2 && o1 < o2);
+    }
+
+    // Min-heap on "goodness": the root is the worst element kept so far
+    private static void siftUp(int[] heap, long[] keys, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(keys[parent], heap[parent], keys[i], heap[i])) {
+                return;
+            }
+            swap(heap, keys, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, long[] keys, int i, int size) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(keys[left], heap[left], keys[right], heap[right])) {
+                worst = right;
+            }
+            if (!better(keys[i], heap[i], keys[worst], heap[worst])) {
+                return;
+            }
+            swap(heap, keys, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, long[] keys, int a, int b) {
+        int h = heap[a];
+        heap[a] = heap[b];
+        heap[b] = h;
+        long k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+    }
+}
@@ -0,0 +1,132 @@
+package rockets.mining.sketch;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Count-Min frequency sketch of {@code depth} rows of {@code width} counters.
+ * An estimate never undercounts, and with probability 1 - e^-depth it
+ * overcounts by at most (e / width) times the total count. Counts may be
+ * decremented for values that were previously added, and two sketches of the
+ * same shape merge into the sketch of the combined stream.
+ */
+public final class CountMinSketch {
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_WIDTH = 272;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int depth;
+    private final int width;
+    private final long[] counters;
+    private long total;
+
+    public CountMinSketch() {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH);
+    }
+
+    public CountMinSketch(int depth, int width) {
+        isTrue(depth > 0 && width > 0, "depth and width must be positive");
+        this.depth = depth;
+        this.width = width;
+        this.counters = new long[depth * width];
+    }
+
+    public void add(String value) {
+        add(value, 1);
+    }
+
+    public void add(String value, long count) {
+        notNull(value);
+        HashCode hash = HASH.hashString(value, StandardCharsets.UTF_8);
+        long h = hash.asLong();
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + bucket(h1, h2, row)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(String value) {
+        notNull(value);
+        long h = HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + bucket(h1, h2, row)]);
+        }
+        return Math.max(0, min);
+    }
+
+    // Kirsch-Mitzenmacher: derive each row's hash from two base hashes
+    private int bucket(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    /**
+     * @return the estimate with its one-sided error bound and the bound's confidence.
+     */
+    public Estimate toEstimate(String value) {
+        long estimate = estimate(value);
+        double error = Math.E / width * total;
+        return new Estimate(estimate, Math.max(0, estimate - error), estimate, 1 - Math.exp(-depth));
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void merge(CountMinSketch other) {
+        notNull(other);
+        isTrue(depth == other.depth && width == other.width, "cannot merge sketches of different shape");
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 8 * counters.length);
+        buffer.putInt(depth).putInt(width).putLong(total);
+        for (long counter : counters) {
+            buffer.putLong(counter);
+        }
+        return buffer.array();
+    }
+
+    public static CountMinSketch fromBytes(byte[] bytes) {
+        notNull(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        isTrue(bytes.length == 16 + 8 * sketch.counters.length, "corrupt sketch");
+        sketch.total = buffer.getLong();
+        for (int i = 0; i < sketch.counters.length; i++) {
+            sketch.counters[i] = buffer.getLong();
+        }
+        return sketch;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CountMinSketch that = (CountMinSketch) o;
+        return depth == that.depth && width == that.width && total == that.total
+                && Arrays.equals(counters, that.counters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * depth + width) + Arrays.hashCode(counters);
+    }
+}
@@ -0,0 +1,45 @@
+package rockets.mining.sketch;
+
+/**
+ * An approximate answer together with the interval that holds the true value
+ * with the given confidence.
+ */
+public final class Estimate {
+    private final double value;
+    private final double lowerBound;
+    private final double upperBound;
+    private final double confidence;
+
+    public Estimate(double value, double lowerBound, double upperBound, double confidence) {
+        this.value = value;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.confidence = confidence;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    @Override
+    public String toString() {
+        return "Estimate{" +
+                "value=" + value +
+                ", lowerBound=" + lowerBound +
+                ", upperBound=" + upperBound +
+                ", confidence=" + confidence +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package rockets.mining.sketch;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.apache.commons.lang3.Validate.inclusiveBetween;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * HyperLogLog distinct-count sketch with 2^precision one-byte registers.
+ * The relative standard error of {@link #estimate()} is about
+ * 1.04 / sqrt(2^precision). Values can be added but not removed, and two
+ * sketches of the same precision merge into the sketch of the union.
+ */
+public final class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 12;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        inclusiveBetween(4, 18, precision, "precision must be between 4 and 18");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        notNull(value);
+        addHash(HASH.hashString(value, StandardCharsets.UTF_8).asLong());
+    }
+
+    void addHash(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits, capped by a sentinel bit
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values added.
+     */
+    public double estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return the estimate with a two-standard-error (about 95%) interval.
+     */
+    public Estimate toEstimate() {
+        double estimate = estimate();
+        double error = 2 * relativeStandardError() * estimate;
+        return new Estimate(estimate, Math.max(0, estimate - error), estimate + error, 0.95);
+    }
+
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        notNull(other);
+        isTrue(precision == other.precision, "cannot merge sketches of different precision");
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(1 + registers.length).put((byte) precision).put(registers).array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        notNull(bytes);
+        isTrue(bytes.length > 0, "empty sketch");
+        HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        isTrue(bytes.length == 1 + sketch.registers.length, "corrupt sketch");
+        System.arraycopy(bytes, 1, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HyperLogLog that = (HyperLogLog) o;
+        return precision == that.precision && Arrays.equals(registers, that.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * precision + Arrays.hashCode(registers);
+    }
+}
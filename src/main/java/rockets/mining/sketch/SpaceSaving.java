@@ -0,0 +1,218 @@
+package rockets.mining.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Space-Saving heavy-hitter tracker that monitors at most {@code capacity}
+ * items. An unmonitored item evicts the item with the smallest count and
+ * inherits that count as its error, so a reported count never undercounts and
+ * overcounts by at most total / capacity; every item whose true count exceeds
+ * that is monitored. Two trackers of the same capacity merge into a tracker
+ * of the combined stream with the same guarantee.
+ * <p>
+ * All methods are thread-safe, so several producers may offer items to one
+ * tracker concurrently.
+ */
+public final class SpaceSaving<T> {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final Map<T, Counter<T>> counters = new HashMap<>();
+    // Smallest count first; among equal counts the least recently updated first
+    private final TreeSet<Counter<T>> byCount = new TreeSet<>(
+            Comparator.<Counter<T>>comparingLong(counter -> counter.count).thenComparingLong(counter -> counter.sequence));
+    private long total;
+    private long sequence;
+
+    private static final class Counter<T> {
+        private final T item;
+        private long count;
+        private long error;
+        private long sequence;
+
+        Counter(T item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A monitored item with its count, which may overcount by at most the error.
+     */
+    public static final class Entry<T> {
+        private final T item;
+        private final long count;
+        private final long error;
+
+        private Entry(T item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return the count that the item is guaranteed to have reached.
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "item=" + item +
+                    ", count=" + count +
+                    ", error=" + error +
+                    '}';
+        }
+    }
+
+    public SpaceSaving() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpaceSaving(int capacity) {
+        isTrue(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    public void offer(T item) {
+        offer(item, 1);
+    }
+
+    public synchronized void offer(T item, long count) {
+        notNull(item);
+        isTrue(count > 0, "count must be positive");
+        Counter<T> counter = counters.get(item);
+        if (null != counter) {
+            byCount.remove(counter);
+            counter.count += count;
+        } else if (counters.size() < capacity) {
+            counter = new Counter<>(item, count, 0);
+            counters.put(item, counter);
+        } else {
+            Counter<T> evicted = byCount.pollFirst();
+            counters.remove(evicted.item);
+            counter = new Counter<>(item, evicted.count + count, evicted.count);
+            counters.put(item, counter);
+        }
+        counter.sequence = sequence++;
+        byCount.add(counter);
+        total += count;
+    }
+
+    /**
+     * @return the item's count with its bounds; an unmonitored item counts at most the smallest monitored count.
+     */
+    public synchronized Estimate estimate(T item) {
+        notNull(item);
+        Counter<T> counter = counters.get(item);
+        if (null == counter) {
+            return new Estimate(0, 0, minCount(), 1.0);
+        }
+        return new Estimate(counter.count, counter.count - counter.error, counter.count, 1.0);
+    }
+
+    /**
+     * @return the k monitored items with the highest counts, highest first.
+     */
+    public synchronized List<Entry<T>> top(int k) {
+        isTrue(k >= 0, "k cannot be negative");
+        List<Entry<T>> top = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter<T>> descending = byCount.descendingIterator();
+        while (top.size() < k && descending.hasNext()) {
+            Counter<T> counter = descending.next();
+            top.add(new Entry<>(counter.item, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the most that any reported count can overcount by.
+     */
+    public synchronized long maxError() {
+        return minCount();
+    }
+
+    // Counts of unmonitored items are bounded by the smallest count once the tracker is full
+    private long minCount() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    /**
+     * Adds the other tracker's stream to this one. An item that only one
+     * tracker monitors is counted in the other at that tracker's smallest
+     * count, which is also added to its error, and the highest counts are kept.
+     */
+    public void merge(SpaceSaving<T> other) {
+        notNull(other);
+        isTrue(other != this, "cannot merge a tracker into itself");
+        isTrue(capacity == other.capacity, "cannot merge trackers of different capacity");
+        // Snapshot the other tracker first so that the two locks are never held together
+        List<Entry<T>> otherEntries;
+        long otherMin;
+        long otherTotal;
+        synchronized (other) {
+            otherEntries = other.top(other.counters.size());
+            otherMin = other.minCount();
+            otherTotal = other.total;
+        }
+        synchronized (this) {
+            long ownMin = minCount();
+            Map<T, Counter<T>> merged = new HashMap<>();
+            for (Counter<T> counter : counters.values()) {
+                merged.put(counter.item, new Counter<>(counter.item, counter.count + otherMin, counter.error + otherMin));
+            }
+            for (Entry<T> entry : otherEntries) {
+                Counter<T> counter = merged.get(entry.item);
+                if (null == counter) {
+                    merged.put(entry.item, new Counter<>(entry.item, entry.count + ownMin, entry.error + ownMin));
+                } else {
+                    // Monitored by both, so take back the other tracker's assumed smallest count
+                    counter.count += entry.count - otherMin;
+                    counter.error += entry.error - otherMin;
+                }
+            }
+            List<Counter<T>> ranked = new ArrayList<>(merged.values());
+            ranked.sort(Comparator.<Counter<T>>comparingLong(counter -> counter.count).reversed());
+            counters.clear();
+            byCount.clear();
+            for (Counter<T> counter : ranked.subList(0, Math.min(capacity, ranked.size()))) {
+                counter.sequence = sequence++;
+                counters.put(counter.item, counter);
+                byCount.add(counter);
+            }
+            total += otherTotal;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package rockets.mining.sketch;
+
+import java.util.Arrays;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Merging t-digest of a stream of values for quantile estimates. Values are
+ * buffered and periodically merged into centroids, each spanning one unit of
+ * the arcsine scale function, so centroids near the tails stay small and
+ * extreme quantiles stay accurate. A digest holds at most about compression
+ * centroids plus a buffer of 5 * compression values however many values it
+ * has seen. Values can be added but not removed, and two digests merge into
+ * the digest of the combined stream.
+ */
+public final class TDigest {
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private double[] means = new double[0];
+    private long[] weights = new long[0];
+    private int size;
+    private final double[] buffer;
+    private final long[] bufferWeights;
+    private int buffered;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression the accuracy: higher values keep more centroids and give tighter quantiles.
+     */
+    public TDigest(double compression) {
+        isTrue(compression >= 10, "compression must be at least 10");
+        this.compression = compression;
+        int capacity = (int) Math.ceil(5 * compression);
+        this.buffer = new double[capacity];
+        this.bufferWeights = new long[capacity];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, long weight) {
+        isTrue(!Double.isNaN(value), "value cannot be NaN");
+        isTrue(weight > 0, "weight must be positive");
+        if (buffered == buffer.length) {
+            compress();
+        }
+        buffer[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        count += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // Merges the buffer into the centroids in one pass over both in value order
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = size + buffered;
+        double[] allMeans = Arrays.copyOf(means, n);
+        long[] allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(buffer, 0, allMeans, size, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, size, buffered);
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] merged = new double[n];
+        long[] mergedWeights = new long[n];
+        int centroids = 0;
+        long before = 0;
+        double limit = quantileLimit(0);
+        double mean = allMeans[order[0]];
+        long weight = allWeights[order[0]];
+        for (int i = 1; i < n; i++) {
+            int next = order[i];
+            long proposed = weight + allWeights[next];
+            if ((before + proposed) / (double) count <= limit) {
+                mean += (allMeans[next] - mean) * allWeights[next] / proposed;
+                weight = proposed;
+            } else {
+                merged[centroids] = mean;
+                mergedWeights[centroids++] = weight;
+                before += weight;
+                limit = quantileLimit(before / (double) count);
+                mean = allMeans[next];
+                weight = allWeights[next];
+            }
+        }
+        merged[centroids] = mean;
+        mergedWeights[centroids++] = weight;
+        means = Arrays.copyOf(merged, centroids);
+        weights = Arrays.copyOf(mergedWeights, centroids);
+        size = centroids;
+        buffered = 0;
+    }
+
+    // The highest quantile that a centroid starting at q may reach: one step
+    // of the scale function k(q) = compression / (2 pi) * asin(2q - 1)
+    private double quantileLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        return k >= compression / 4 ? 1 : (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * @param q the quantile, between 0 and 1.
+     * @return the estimated value at the quantile, interpolated between centroids.
+     */
+    public double quantile(double q) {
+        isTrue(q >= 0 && q <= 1, "quantile must be between 0 and 1");
+        isTrue(count > 0, "the digest is empty");
+        compress();
+        if (size == 1) {
+            return means[0];
+        }
+        double index = q * count;
+        // Before the first centroid's centre, interpolate from the minimum
+        if (index < weights[0] / 2.0) {
+            return min + (means[0] - min) * index / (weights[0] / 2.0);
+        }
+        double centre = weights[0] / 2.0;
+        for (int i = 0; i < size - 1; i++) {
+            double nextCentre = centre + (weights[i] + weights[i + 1]) / 2.0;
+            if (index <= nextCentre) {
+                return means[i] + (means[i + 1] - means[i]) * (index - centre) / (nextCentre - centre);
+            }
+            centre = nextCentre;
+        }
+        // After the last centroid's centre, interpolate to the maximum
+        double tail = count - centre;
+        return means[size - 1] + (max - means[size - 1]) * Math.min(1, (index - centre) / tail);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the number of centroids once the buffer is merged.
+     */
+    public int centroidCount() {
+        compress();
+        return size;
+    }
+
+    public void merge(TDigest other) {
+        notNull(other);
+        isTrue(other != this, "cannot merge a digest into itself");
+        other.compress();
+        for (int i = 0; i < other.size; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        // Centroid means lie inside the other digest's range, so widen to its extremes
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+}
@@ -4,6 +4,8 @@ import org.neo4j.ogm.annotation.GeneratedValue;
 import org.neo4j.ogm.annotation.Id;
 import org.neo4j.ogm.annotation.Property;
 
+import java.util.function.UnaryOperator;
+
 public abstract class Entity {
     @Id
     @GeneratedValue
@@ -31,4 +33,8 @@ public abstract class Entity {
     public void setId(Long id) {
         this.id = id;
     }
+
+    // Replaces repeated string values with the canonical instances given by the interner
+    public void internStrings(UnaryOperator<String> interner) {
+    }
 }
@@ -7,8 +7,10 @@ import org.neo4j.ogm.annotation.Relationship;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static org.neo4j.ogm.annotation.Relationship.INCOMING;
 
@@ -117,6 +119,25 @@ public class Launch extends Entity {
         this.launchServiceProvider = launchServiceProvider;
     }
 
+    @Override
+    public void internStrings(UnaryOperator<String> interner) {
+        launchSite = interner.apply(launchSite);
+        orbit = interner.apply(orbit);
+        function = interner.apply(function);
+        if (null != payload) {
+            Set<String> interned = new LinkedHashSet<>();
+            for (String item : payload) {
+                interned.add(interner.apply(item));
+            }
+            payload = interned;
+        }
+        if (null != launchVehicle) {
+            launchVehicle.internStrings(interner);
+        }
+        if (null != launchServiceProvider) {
+            launchServiceProvider.internStrings(interner);
+        }
+    }
 
     @Override
     public boolean equals(Object o) {
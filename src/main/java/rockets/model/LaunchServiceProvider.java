@@ -9,6 +9,7 @@ import org.neo4j.ogm.annotation.Relationship;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static org.apache.commons.lang3.Validate.*;
 import static org.apache.commons.lang3.Validate.isTrue;
@@ -79,6 +80,12 @@ public class LaunchServiceProvider extends Entity {
         this.rockets = rockets;
     }
 
+    @Override
+    public void internStrings(UnaryOperator<String> interner) {
+        country = interner.apply(country);
+        headquarters = interner.apply(headquarters);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
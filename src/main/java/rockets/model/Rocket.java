@@ -9,6 +9,7 @@ import org.neo4j.ogm.annotation.Relationship;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static org.apache.commons.lang3.Validate.*;
 import static org.apache.commons.lang3.Validate.isTrue;
@@ -133,6 +134,17 @@ public class Rocket extends Entity {
         this.launches = launches;
     }
 
+    @Override
+    public void internStrings(UnaryOperator<String> interner) {
+        country = interner.apply(country);
+        massToLEO = interner.apply(massToLEO);
+        massToGTO = interner.apply(massToGTO);
+        massToOther = interner.apply(massToOther);
+        if (null != manufacturer) {
+            manufacturer.internStrings(interner);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
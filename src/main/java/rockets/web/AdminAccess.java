@@ -0,0 +1,67 @@
+package rockets.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Session;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.apache.commons.lang3.Validate.notNull;
+import static spark.Spark.before;
+import static spark.Spark.halt;
+
+/**
+ * Guards the admin routes, which expose server internals and bypass the
+ * admission controller. A request gets through if its session has a logged-in
+ * user, or if it carries the configured token as
+ * {@code Authorization: Bearer <token>}; anything else is answered with 401.
+ * Without a configured token, only logged-in users get through.
+ */
+public class AdminAccess {
+    private static Logger logger = LoggerFactory.getLogger(AdminAccess.class);
+
+    private static final String BEARER = "Bearer ";
+
+    private final String path;
+    private final byte[] token;
+
+    /**
+     * @param path  the guarded routes, e.g. "/api/v1/admin/*".
+     * @param token the admin token, or null or blank for none.
+     */
+    public AdminAccess(String path, String token) {
+        notNull(path);
+        this.path = path;
+        this.token = null == token || token.trim().isEmpty() ? null : token.trim().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Installs the guard in front of the admin routes.
+     */
+    public void register() {
+        before(path, (req, res) -> {
+            if (!isAllowed(req)) {
+                logger.info("Refused " + req.requestMethod() + " " + req.pathInfo());
+                res.header("WWW-Authenticate", "Bearer");
+                throw halt(401, "Log in or present the admin token.");
+            }
+        });
+    }
+
+    boolean isAllowed(Request req) {
+        // Does not create a session for anonymous polls
+        Session session = req.session(false);
+        if (null != session && null != session.attribute("user")) {
+            return true;
+        }
+        String authorization = req.headers("Authorization");
+        if (null == token || null == authorization || !authorization.startsWith(BEARER)) {
+            return false;
+        }
+        // Compares in constant time, so the token cannot be guessed byte by byte
+        byte[] presented = authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(token, presented);
+    }
+}
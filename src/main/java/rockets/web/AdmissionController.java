@@ -0,0 +1,177 @@
+package rockets.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+import static spark.Spark.afterAfter;
+import static spark.Spark.before;
+import static spark.Spark.halt;
+
+/**
+ * Load shedding in front of the routes that reach the DAO. At most
+ * {@code maxConcurrent} such requests run at once; a few more may wait
+ * briefly for a slot, and the rest are answered at once with 503 and a
+ * {@code Retry-After} header instead of piling up in the server's queue.
+ * Under a spike, admitted requests keep their usual latency, and exempt
+ * pages such as login never wait behind the expensive ones.
+ */
+public class AdmissionController {
+    private static Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final String ADMITTED = AdmissionController.class.getName() + ".admitted";
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final int retryAfterSeconds;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Set<String> exemptPaths = new LinkedHashSet<>();
+
+    /**
+     * @param maxConcurrent      the requests that may run at once.
+     * @param maxQueued          the requests that may wait for one of them to finish.
+     * @param queueTimeoutMillis how long a request may wait before it is shed.
+     * @param retryAfterSeconds  the Retry-After of shed requests.
+     * @param exemptPaths        paths that are always admitted; a path ending
+     *                           with "/*" exempts everything below it.
+     */
+    public AdmissionController(int maxConcurrent, int maxQueued, long queueTimeoutMillis, int retryAfterSeconds,
+                               Collection<String> exemptPaths) {
+        isTrue(maxConcurrent > 0, "maxConcurrent must be positive");
+        isTrue(maxQueued >= 0, "maxQueued cannot be negative");
+        isTrue(queueTimeoutMillis >= 0, "queueTimeoutMillis cannot be negative");
+        isTrue(retryAfterSeconds > 0, "retryAfterSeconds must be positive");
+        notNull(exemptPaths);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.permits = new Semaphore(maxConcurrent);
+        this.exemptPaths.addAll(exemptPaths);
+    }
+
+    /**
+     * Installs the controller in front of every route except the exempt ones.
+     */
+    public void register() {
+        before((req, res) -> {
+            if (isExempt(req.pathInfo())) {
+                return;
+            }
+            if (!tryAdmit()) {
+                logger.info("Shed " + req.requestMethod() + " " + req.pathInfo());
+                res.header("Retry-After", String.valueOf(retryAfterSeconds));
+                throw halt(503, "The server is busy, please retry later.");
+            }
+            req.attribute(ADMITTED, Boolean.TRUE);
+        });
+        // Runs however the request ended, so every admitted request gives its slot back
+        afterAfter((req, res) -> {
+            if (null != req.attribute(ADMITTED)) {
+                release();
+            }
+        });
+    }
+
+    /**
+     * Checks that running and waiting requests cannot take every thread of
+     * the server's pool. Waiting requests hold their thread, so together they
+     * must leave the connector's threads, and some spare ones for the exempt
+     * pages and for answering 503, below the pool's maximum.
+     *
+     * @throws IllegalArgumentException if they do not.
+     */
+    public void requireHeadroom(int maxThreads, int connectorThreads, int spareThreads) {
+        isTrue(connectorThreads >= 0, "connectorThreads cannot be negative");
+        isTrue(spareThreads > 0, "spareThreads must be positive");
+        isTrue(maxConcurrent + maxQueued + connectorThreads + spareThreads <= maxThreads,
+                "%d admitted and %d queued requests leave fewer than %d spare of %d threads after %d connector threads",
+                maxConcurrent, maxQueued, spareThreads, maxThreads, connectorThreads);
+    }
+
+    boolean isExempt(String path) {
+        if (null == path) {
+            return false;
+        }
+        for (String exempt : exemptPaths) {
+            if (exempt.endsWith("/*") ? path.startsWith(exempt.substring(0, exempt.length() - 1))
+                    : path.equals(exempt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes a slot, waiting for one if fewer than {@code maxQueued} requests
+     * are waiting already.
+     *
+     * @return whether the request was admitted; if so, it must be released.
+     */
+    public boolean tryAdmit() {
+        if (permits.tryAcquire()) {
+            admitted.increment();
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                admitted.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return the admitted requests still running.
+     */
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return the requests waiting for a slot.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -1,22 +1,35 @@
 package rockets.web;
 
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.DataVersion;
 import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.mining.CachingRocketMiner;
+import rockets.mining.NameSearchIndex;
+import rockets.model.Entity;
 import rockets.model.Rocket;
 import rockets.model.User;
 import spark.ModelAndView;
 import spark.Request;
 import spark.Response;
+import spark.Route;
 import spark.Spark;
+import spark.TemplateViewRoute;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import spark.resource.ClassPathResource;
-import spark.template.freemarker.FreeMarkerEngine;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -30,6 +43,37 @@ public class App {
 
     private static DAO dao;
 
+    private static NameSearchIndex searchIndex;
+
+    private static TemplateRenderer renderer;
+
+    private static ConditionalGet conditionalGet;
+
+    private static ResponseCompression compression;
+
+    private static PageCache pageCache;
+
+    private static QueuedThreadPool threadPool;
+
+    private static AdmissionController admissionController;
+
+    private static ReportJobs reportJobs;
+
+    // The cheap pages, which stay responsive while the rest is shed
+    private static final List<String> EXEMPT_FROM_ADMISSION = Arrays.asList(
+            "/", "/hello", "/login", "/logout", "/register", JsonApi.PREFIX + "/admin/*");
+
+    private static final String[] TEMPLATES = {
+            "base_page.html.ftl", "login.html.ftl", "register.html.ftl", "rockets.html.ftl",
+            "search.html.ftl", "user.html.ftl", "users.html.ftl"
+    };
+
+    private static final Map<String, KeysetPage.Sort<Rocket>> ROCKET_SORTS =
+            Collections.singletonMap("name", new KeysetPage.Sort<>("name", Rocket::getName));
+
+    private static final Map<String, KeysetPage.Sort<User>> USER_SORTS =
+            Collections.singletonMap("name", new KeysetPage.Sort<>("lastName", User::getLastName));
+
     public static void setDao(DAO dao) {
         App.dao = dao;
     }
@@ -40,10 +84,46 @@ public class App {
         int port = Integer.parseInt(properties.getProperty("spark.port"));
         port(port);
 
+        // A bounded pool, so that a spike is shed by the admission controller rather than queued without limit
+        int minThreads = intProperty(properties, "jetty.minThreads", 8);
+        int maxThreads = intProperty(properties, "jetty.maxThreads", 64);
+        threadPool = new QueuedThreadPool(maxThreads, minThreads,
+                intProperty(properties, "jetty.idleTimeoutMillis", 60000),
+                new BlockingArrayQueue<>(minThreads, minThreads, intProperty(properties, "jetty.queueCapacity", 512)));
+        admissionController = new AdmissionController(
+                intProperty(properties, "admission.maxConcurrent", 24),
+                intProperty(properties, "admission.maxQueued", 16),
+                intProperty(properties, "admission.queueTimeoutMillis", 500),
+                intProperty(properties, "admission.retryAfterSeconds", 1),
+                EXEMPT_FROM_ADMISSION);
+        // Checked before the first route starts the server
+        admissionController.requireHeadroom(maxThreads, connectorThreads(maxThreads),
+                intProperty(properties, "admission.spareThreads", 8));
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory().withThreadPool(threadPool));
+
+        renderer = new TemplateRenderer(Boolean.parseBoolean(properties.getProperty("freemarker.devMode")));
+        renderer.preload(TEMPLATES);
+
         String dbAddress = properties.getProperty("neo4j.dir");
         if (null == dao) {
             dao = new Neo4jDAO(dbAddress);
         }
+        searchIndex = NameSearchIndex.build(dao);
+        DataVersion dataVersion = new DataVersion();
+        dao.addListener(dataVersion);
+        conditionalGet = new ConditionalGet(dataVersion);
+        compression = new ResponseCompression(intProperty(properties, "compression.minSize",
+                ResponseCompression.DEFAULT_MIN_SIZE));
+        compression.register();
+        // The admin routes skip admission control, so only admins may reach them
+        new AdminAccess(JsonApi.PREFIX + "/admin/*",
+                System.getProperty("admin.token", properties.getProperty("admin.token"))).register();
+        admissionController.register();
+        pageCache = new PageCache(PageCache.DEFAULT_MAX_ENTRIES, compression.getMinSize());
+        CachingRocketMiner miner = new CachingRocketMiner(dao);
+        reportJobs = new ReportJobs(intProperty(properties, "reports.workers", 2),
+                intProperty(properties, "reports.maxQueued", 16),
+                intProperty(properties, "reports.expiryMillis", 600000));
 
         // "/"
         handleGetIndex();
@@ -84,6 +164,21 @@ public class App {
         // "/rockets"
         handleGetRockets();
 
+        // "/search?q="
+        handleGetSearch();
+
+        // "/api/v1/*"
+        JsonApi.register(dao, miner, compression);
+
+        // "/api/v1/reports"
+        JsonApi.registerReports(miner, reportJobs, compression);
+
+        // "/api/v1/admin/render-timings"
+        handleGetRenderTimings();
+
+        // "/api/v1/admin/load"
+        handleGetLoad();
+
         // "/launches"
 //        handleGetLaunches();
 
@@ -91,18 +186,23 @@ public class App {
 
     public static void stop() {
         Spark.stop();
+        if (null != reportJobs) {
+            reportJobs.shutdown();
+        }
     }
 
     private static void handleGetUsers() {
-        get("/users", (req, res) -> {
+        get("/users", cachedPage(User.class, (req, res) -> {
             Map<String, Object> attributes = new HashMap<String, Object>();
             try {
-                attributes.put("users", dao.loadAll(User.class));
+                KeysetPage<User> page = loadPage(req, User.class, USER_SORTS);
+                attributes.put("users", page.getItems());
+                attributes.put("page", page);
                 return new ModelAndView(attributes, "users.html.ftl");
             } catch (Exception e) {
                 return handleException(res, attributes, e, "users.html.ftl");
             }
-        }, new FreeMarkerEngine());
+        }));
 
     }
 
@@ -113,7 +213,7 @@ public class App {
             attributes.put("user", user);
             return new ModelAndView(attributes, "base_page.html.ftl");
             //return handleBaseHelloView(req, res, attributes);
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
     private static void handleGetRegister() {
@@ -124,7 +224,7 @@ public class App {
             attributes.put("lastName", "");
 
             return new ModelAndView(attributes, "register.html.ftl");
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
 
@@ -170,7 +270,7 @@ public class App {
             } catch (Exception e) {
                 return handleException(res, attributes, e, "register.html.ftl");
             }
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
     private static void handleGetHello() {
@@ -181,7 +281,7 @@ public class App {
                 attributes.put("user", user);
             }
             return new ModelAndView(attributes, "base_page.html.ftl");
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
     private static void handleGetLogin() {
@@ -195,7 +295,7 @@ public class App {
             }
 
             return new ModelAndView(attributes, "login.html.ftl");
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
     private static void handlePostLogin() {
@@ -223,7 +323,7 @@ public class App {
                 attributes.put("user_name", user_name);
                 return new ModelAndView(attributes, "login.html.ftl");
             }
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
     private static void handleGetLogout() {
@@ -259,8 +359,16 @@ public class App {
         return user;
     }
 
+    // Who a page is rendered for, as part of its ETag
+    private static String viewer(Request req) {
+        User user = getLoggedInUser(req);
+        return null == user || null == user.getId() ? "anonymous" : "user" + Long.toString(user.getId(), 36);
+    }
+
     private static void handleGetUserById() {
         get("/user/:id", (req, res) -> {
+            // The page shows the session's user when the id is unknown
+            conditionalGet.checkFor(req, res, viewer(req), User.class);
             Map<String, Object> attributes = new HashMap<>();
             User user = getLoggedInUser(req);
             attributes.put("user", user);
@@ -276,7 +384,7 @@ public class App {
             } catch (Exception e) {
                 return handleException(res, attributes, e, "user.html.ftl");
             }
-        }, new FreeMarkerEngine());
+        }, renderer);
     }
 
     // TODO: Need to TDD this
@@ -294,15 +402,102 @@ public class App {
 
 
     private static void handleGetRockets() {
-        get("/rockets", (req, res) -> {
+        get("/rockets", cachedPage(Rocket.class, (req, res) -> {
             Map<String, Object> attributes = new HashMap<>();
             try {
-                attributes.put("missions", dao.loadAll(Rocket.class));
+                KeysetPage<Rocket> page = loadPage(req, Rocket.class, ROCKET_SORTS);
+                attributes.put("rockets", page.getItems());
+                attributes.put("page", page);
                 return new ModelAndView(attributes, "rockets.html.ftl");
             } catch (Exception e) {
                 return handleException(res, attributes, e, "rockets.html.ftl");
             }
-        }, new FreeMarkerEngine());
+        }));
+    }
+
+    private static void handleGetSearch() {
+        get("/search", (req, res) -> {
+            Map<String, Object> attributes = new HashMap<>();
+            String query = req.queryParams("q");
+            attributes.put("q", null == query ? "" : query);
+            try {
+                String k = req.queryParams("k");
+                int limit = null == k ? NameSearchIndex.MAX_K : Integer.parseInt(k);
+                if (null != query && !query.trim().isEmpty()) {
+                    attributes.put("matches", searchIndex.search(query, limit));
+                }
+                return new ModelAndView(attributes, "search.html.ftl");
+            } catch (Exception e) {
+                return handleException(res, attributes, e, "search.html.ftl");
+            }
+        }, renderer);
+    }
+
+    private static void handleGetRenderTimings() {
+        get(JsonApi.PREFIX + "/admin/render-timings", (req, res) -> {
+            res.type("application/json;charset=UTF-8");
+            return JsonApi.MAPPER.writeValueAsString(renderer.getTimings());
+        });
+    }
+
+    private static void handleGetLoad() {
+        get(JsonApi.PREFIX + "/admin/load", (req, res) -> {
+            Map<String, Object> load = new LinkedHashMap<>();
+            load.put("inFlight", admissionController.getInFlight());
+            load.put("maxConcurrent", admissionController.getMaxConcurrent());
+            load.put("queueDepth", admissionController.getQueueDepth());
+            load.put("admitted", admissionController.getAdmitted());
+            load.put("rejected", admissionController.getRejected());
+            load.put("threads", threadPool.getThreads());
+            load.put("busyThreads", threadPool.getBusyThreads());
+            load.put("serverQueueSize", threadPool.getQueueSize());
+            load.put("reportsRunning", reportJobs.getRunning());
+            load.put("reportsQueued", reportJobs.getQueueDepth());
+            res.type("application/json;charset=UTF-8");
+            return JsonApi.MAPPER.writeValueAsString(load);
+        });
+    }
+
+    // Serves a page over one entity type from the page cache while that type
+    // is unchanged, so repeat requests skip loading, rendering and compressing
+    private static Route cachedPage(Class<? extends Entity> type, TemplateViewRoute page) {
+        return (req, res) -> {
+            String etag = conditionalGet.check(req, res, type);
+            String url = null == req.queryString() ? req.pathInfo() : req.pathInfo() + "?" + req.queryString();
+            PageCache.Page cached = pageCache.get(url, etag);
+            if (null == cached) {
+                String html = renderer.render(page.handle(req, res));
+                // Error pages are sent but not cached
+                if (res.status() != 200) {
+                    return html;
+                }
+                cached = pageCache.put(url, etag, html);
+            }
+            res.type("text/html;charset=UTF-8");
+            compression.send(req, res, cached.getBody(), cached.getGzipped());
+            return "";
+        };
+    }
+
+    // The page of a listing named by the sort, cursor and size query parameters
+    private static <T extends Entity> KeysetPage<T> loadPage(Request req, Class<T> clazz,
+                                                             Map<String, KeysetPage.Sort<T>> sorts) {
+        String size = req.queryParams("size");
+        return KeysetPage.load(dao, clazz, sorts, req.queryParams("sort"), req.queryParams("cursor"),
+                null == size ? null : Integer.valueOf(size));
+    }
+
+    // The acceptor and selector threads of the connector Spark creates, by Jetty's defaults
+    private static int connectorThreads(int maxThreads) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int acceptors = Math.max(1, Math.min(4, cores / 8));
+        int selectors = Math.max(1, Math.min(cores / 2, maxThreads / 16));
+        return acceptors + selectors;
+    }
+
+    private static int intProperty(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty(name);
+        return null == value ? defaultValue : Integer.parseInt(value.trim());
     }
 
     private static Properties loadProperties() throws IOException {
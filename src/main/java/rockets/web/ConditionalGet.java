@@ -0,0 +1,136 @@
+package rockets.web;
+
+import rockets.dataaccess.DataVersion;
+import rockets.model.Entity;
+import spark.Request;
+import spark.Response;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.apache.commons.lang3.Validate.notEmpty;
+import static org.apache.commons.lang3.Validate.notNull;
+import static spark.Spark.halt;
+
+/**
+ * HTTP validators for pages that depend only on the stored entities of some
+ * types. The {@code ETag} is made of the {@link DataVersion} of each type and
+ * the {@code Last-Modified} date is the time of the latest write to any of
+ * them, so both are known without touching the database. A request whose
+ * {@code If-None-Match} or {@code If-Modified-Since} shows that the client's
+ * copy is current is answered with 304 before the page is loaded or rendered.
+ * <p>
+ * ETags are weak, since the same page may be sent with different content
+ * encodings, and carry the time the versions started counting, so that they
+ * change when the server restarts.
+ */
+public class ConditionalGet {
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final DataVersion dataVersion;
+
+    public ConditionalGet(DataVersion dataVersion) {
+        notNull(dataVersion);
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * @return the weak ETag of a page over the entity types.
+     */
+    @SafeVarargs
+    public final String etag(Class<? extends Entity>... types) {
+        notEmpty(types);
+        StringBuilder tag = new StringBuilder("W/\"").append(Long.toString(dataVersion.createdAt(), 36));
+        for (Class<? extends Entity> type : types) {
+            tag.append('-').append(Long.toString(dataVersion.current(type), 36));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * @return the epoch millis of the latest write to any of the entity types,
+     * in whole seconds like an HTTP date.
+     */
+    @SafeVarargs
+    public final long lastModified(Class<? extends Entity>... types) {
+        notEmpty(types);
+        long latest = 0;
+        for (Class<? extends Entity> type : types) {
+            latest = Math.max(latest, dataVersion.lastModified(type));
+        }
+        return latest / 1000 * 1000;
+    }
+
+    /**
+     * Sets the validators of a page over the entity types on the response,
+     * and halts with 304 if the request shows that the client's copy is
+     * current. Must be called outside any handler that catches exceptions.
+     *
+     * @return the ETag set on the response.
+     */
+    @SafeVarargs
+    public final String check(Request req, Response res, Class<? extends Entity>... types) {
+        String etag = etag(types);
+        long lastModified = lastModified(types);
+        res.header("ETag", etag);
+        res.header("Last-Modified", HTTP_DATE.format(Instant.ofEpochMilli(lastModified)));
+        res.header("Cache-Control", "no-cache");
+        if (isCurrent(req.headers("If-None-Match"), req.headers("If-Modified-Since"), etag, lastModified)) {
+            throw halt(304);
+        }
+        return etag;
+    }
+
+    /**
+     * Like {@link #check}, for a page that also depends on who views it. The
+     * viewer is folded into the ETag, and no {@code Last-Modified} is sent, so
+     * that a copy rendered before a login or logout is never taken as current.
+     *
+     * @param viewer identifies the viewer, e.g. the id of the session's user.
+     * @return the ETag set on the response.
+     */
+    @SafeVarargs
+    public final String checkFor(Request req, Response res, String viewer, Class<? extends Entity>... types) {
+        notNull(viewer);
+        String etag = etag(types);
+        etag = etag.substring(0, etag.length() - 1) + "-" + viewer + '"';
+        res.header("ETag", etag);
+        res.header("Cache-Control", "no-cache");
+        res.header("Vary", "Cookie");
+        if (isCurrent(req.headers("If-None-Match"), null, etag, 0)) {
+            throw halt(304);
+        }
+        return etag;
+    }
+
+    // If-None-Match takes precedence over If-Modified-Since, as in RFC 7232
+    static boolean isCurrent(String ifNoneMatch, String ifModifiedSince, String etag, long lastModified) {
+        if (null != ifNoneMatch) {
+            String opaque = opaque(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || opaque(tag).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (null != ifModifiedSince) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toInstant().toEpochMilli();
+                return lastModified <= since;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // The tag without its weakness indicator, for weak comparison
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,310 @@
+package rockets.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.mining.Money;
+import rockets.mining.RocketMiner;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import static spark.Spark.delete;
+import static spark.Spark.get;
+import static spark.Spark.post;
+
+/**
+ * The machine-readable API under {@code /api/v1}. Responses are written by a
+ * streaming JSON generator straight to the response output stream: a listing
+ * is fed from {@link DAO#forEach} one chunk at a time and flushed after each
+ * chunk, so it starts sending bytes at once and uses constant memory however
+ * many entities it holds. Entities are serialized with their {@code @JsonIgnore}
+ * annotations honored, dates as ISO-8601 strings and amounts as decimals.
+ * Listings are gzipped as they stream for clients that accept it, and other
+ * responses once they reach the {@link ResponseCompression} minimum size.
+ * <p>
+ * Invalid parameters are answered with 400 and {@code {"error": "..."}}.
+ * Errors after the first byte has been sent cannot change the status and
+ * truncate the response instead.
+ * <p>
+ * The slower miner queries can also run as {@link ReportJobs}:
+ * {@code POST /api/v1/reports?query=revenue&year=2017} answers 202 with the
+ * job's id and a {@code Location} to poll, which answers 202 with the job's
+ * status until the result is ready and then 200 with the result itself.
+ * A job that failed answers 500 with its error. {@code DELETE} on the same
+ * location withdraws one client's request; once every client that posted the
+ * query has withdrawn it, the job is cancelled or its result discarded. A
+ * full job queue is answered with 503.
+ */
+public class JsonApi {
+    private static Logger logger = LoggerFactory.getLogger(JsonApi.class);
+
+    public static final String PREFIX = "/api/v1";
+    public static final int CHUNK_SIZE = 256;
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    // The servlet container completes the response, so generators leave its stream open
+    static final ObjectMapper MAPPER = new ObjectMapper(new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET))
+            .registerModule(new SimpleModule()
+                    .addSerializer(LocalDate.class, ToStringSerializer.instance)
+                    .addSerializer(Money.class, new MoneySerializer()))
+            // Listings flush once per chunk rather than once per entity
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static class MoneySerializer extends StdSerializer<Money> {
+        MoneySerializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.toBigDecimal());
+        }
+    }
+
+    public static void register(DAO dao, RocketMiner miner, ResponseCompression compression) {
+        get(PREFIX + "/rockets", listing(dao, compression, Rocket.class));
+        get(PREFIX + "/launches", listing(dao, compression, Launch.class));
+        get(PREFIX + "/providers", listing(dao, compression, LaunchServiceProvider.class));
+
+        get(PREFIX + "/stats/most-launched-rockets", value(compression, req -> miner.mostLaunchedRockets(intParam(req, "k"))));
+        get(PREFIX + "/stats/most-reliable-providers", value(compression, req -> miner.mostReliableLaunchServiceProviders(intParam(req, "k"))));
+        get(PREFIX + "/stats/most-recent-launches", value(compression, req -> miner.mostRecentLaunches(intParam(req, "k"))));
+        get(PREFIX + "/stats/most-expensive-launches", value(compression, req -> miner.mostExpensiveLaunches(intParam(req, "k"))));
+        get(PREFIX + "/stats/dominant-country", value(compression, req -> miner.dominantCountry(stringParam(req, "orbit"))));
+        get(PREFIX + "/stats/revenue", value(compression, req -> miner.revenueInYear(intParam(req, "year"))));
+        get(PREFIX + "/stats/success-rate", value(compression, req -> miner.successfulLaunchRateInYear(intParam(req, "year"))));
+    }
+
+    /**
+     * Registers the job API over the miner queries in {@link #reports}.
+     */
+    public static void registerReports(RocketMiner miner, ReportJobs jobs, ResponseCompression compression) {
+        Map<String, Function<Request, Callable<Object>>> reports = reports(miner);
+
+        post(PREFIX + "/reports", (req, res) -> {
+            res.type(CONTENT_TYPE);
+            String query = req.queryParams("query");
+            Function<Request, Callable<Object>> report = null == query ? null : reports.get(query);
+            Callable<Object> compute;
+            try {
+                if (null == report) {
+                    throw new IllegalArgumentException("query must be one of " + reports.keySet());
+                }
+                compute = report.apply(req);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                logger.info("Rejected report " + query, e);
+                res.status(400);
+                compression.send(req, res, MAPPER.writeValueAsBytes(error(e)), null);
+                return "";
+            }
+            ReportJobs.Job job;
+            try {
+                job = jobs.submit(reportKey(req), () -> MAPPER.writeValueAsBytes(compute.call()));
+            } catch (RejectedExecutionException e) {
+                logger.info("Shed report " + query);
+                res.status(503);
+                res.header("Retry-After", "1");
+                compression.send(req, res, MAPPER.writeValueAsBytes(
+                        Collections.singletonMap("error", "Too many reports are queued, please retry later.")), null);
+                return "";
+            }
+            res.status(202);
+            res.header("Location", PREFIX + "/reports/" + job.getId());
+            compression.send(req, res, MAPPER.writeValueAsBytes(status(job)), null);
+            return "";
+        });
+
+        get(PREFIX + "/reports/:id", (req, res) -> {
+            res.type(CONTENT_TYPE);
+            ReportJobs.Job job = jobs.get(req.params(":id"));
+            if (null == job) {
+                return notFound(req, res, compression);
+            }
+            switch (job.getStatus()) {
+                case DONE:
+                    compression.send(req, res, job.getResult(), null);
+                    return "";
+                case FAILED:
+                    res.status(500);
+                    break;
+                default:
+                    res.status(202);
+            }
+            compression.send(req, res, MAPPER.writeValueAsBytes(status(job)), null);
+            return "";
+        });
+
+        delete(PREFIX + "/reports/:id", (req, res) -> {
+            if (!jobs.delete(req.params(":id"))) {
+                res.type(CONTENT_TYPE);
+                return notFound(req, res, compression);
+            }
+            res.status(204);
+            return "";
+        });
+    }
+
+    // The queries worth running as jobs; each parses its parameters up front
+    // so that invalid ones are answered with 400 before a job is queued
+    private static Map<String, Function<Request, Callable<Object>>> reports(RocketMiner miner) {
+        Map<String, Function<Request, Callable<Object>>> reports = new HashMap<>();
+        reports.put("most-launched-rockets", req -> {
+            int k = intParam(req, "k");
+            return () -> miner.mostLaunchedRockets(k);
+        });
+        reports.put("most-reliable-providers", req -> {
+            int k = intParam(req, "k");
+            return () -> miner.mostReliableLaunchServiceProviders(k);
+        });
+        reports.put("most-expensive-launches", req -> {
+            int k = intParam(req, "k");
+            return () -> miner.mostExpensiveLaunches(k);
+        });
+        reports.put("highest-revenue-providers", req -> {
+            int k = intParam(req, "k");
+            int year = intParam(req, "year");
+            return () -> miner.highestRevenueLaunchServiceProviders(k, year);
+        });
+        reports.put("dominant-country", req -> {
+            String orbit = stringParam(req, "orbit");
+            return () -> miner.dominantCountry(orbit);
+        });
+        reports.put("revenue", req -> {
+            int year = intParam(req, "year");
+            return () -> miner.revenueInYear(year);
+        });
+        reports.put("success-rate", req -> {
+            int year = intParam(req, "year");
+            return () -> miner.successfulLaunchRateInYear(year);
+        });
+        return reports;
+    }
+
+    // Identical queries have the same parameters, whatever their order
+    static String reportKey(Request req) {
+        Map<String, String> params = new TreeMap<>();
+        for (String name : req.queryParams()) {
+            params.put(name, req.queryParams(name));
+        }
+        return params.toString();
+    }
+
+    private static Map<String, Object> status(ReportJobs.Job job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", job.getId());
+        status.put("status", job.getStatus());
+        status.put("submittedAt", Instant.ofEpochMilli(job.getSubmittedAt()).toString());
+        if (null != job.getError()) {
+            status.put("error", job.getError());
+        }
+        return status;
+    }
+
+    private static String notFound(Request req, Response res, ResponseCompression compression) throws IOException {
+        res.status(404);
+        compression.send(req, res, MAPPER.writeValueAsBytes(
+                Collections.singletonMap("error", "No report with the ID " + req.params(":id") + ".")), null);
+        return "";
+    }
+
+    private static Route listing(DAO dao, ResponseCompression compression, Class<? extends Entity> clazz) {
+        return (req, res) -> {
+            res.type(CONTENT_TYPE);
+            try (OutputStream out = compression.open(req, res)) {
+                writeAll(dao, clazz, out);
+            }
+            return "";
+        };
+    }
+
+    // Computes the value before writing, so that invalid parameters still get a 400
+    private static Route value(ResponseCompression compression, Function<Request, Object> compute) {
+        return (req, res) -> {
+            Object value;
+            try {
+                value = compute.apply(req);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                logger.info("Rejected " + req.pathInfo(), e);
+                res.status(400);
+                value = error(e);
+            }
+            res.type(CONTENT_TYPE);
+            compression.send(req, res, MAPPER.writeValueAsBytes(value), null);
+            return "";
+        };
+    }
+
+    private static Object error(Exception e) {
+        return Collections.singletonMap("error", String.valueOf(e.getMessage()));
+    }
+
+    /**
+     * Writes every stored entity of the class as one JSON array, a chunk at a time.
+     */
+    static <T extends Entity> void writeAll(DAO dao, Class<T> clazz, OutputStream out) throws IOException {
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            int[] written = new int[1];
+            dao.forEach(clazz, CHUNK_SIZE, entity -> {
+                try {
+                    MAPPER.writeValue(generator, entity);
+                    if (++written[0] % CHUNK_SIZE == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int intParam(Request req, String name) {
+        String value = stringParam(req, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static String stringParam(Request req, String name) {
+        String value = req.queryParams(name);
+        if (null == value || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+}
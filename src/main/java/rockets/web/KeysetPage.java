@@ -0,0 +1,171 @@
+package rockets.web;
+
+import rockets.dataaccess.DAO;
+import rockets.model.Entity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.apache.commons.lang3.Validate.inclusiveBetween;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * One page of a listing in keyset order, with opaque cursors for the next and
+ * previous pages. A cursor holds the sort key of the entity at the edge of a
+ * page and the direction to move in, so fetching any page reads one page plus
+ * one entity from the DAO however deep into the listing it is. The extra
+ * entity tells whether there is a page beyond.
+ */
+public class KeysetPage<T extends Entity> {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+    public static final String SORT_BY_ID = "id";
+
+    private static final char AFTER = 'a';
+    private static final char BEFORE = 'b';
+
+    private final List<T> items;
+    private final String sort;
+    private final int size;
+    private final String nextCursor;
+    private final String previousCursor;
+
+    /**
+     * A sort order that a listing offers: the stored property it sorts by and
+     * how to read that property from an entity.
+     */
+    public static final class Sort<T> {
+        private final String property;
+        private final Function<T, String> value;
+
+        public Sort(String property, Function<T, String> value) {
+            this.property = property;
+            this.value = value;
+        }
+    }
+
+    private KeysetPage(List<T> items, String sort, int size, String nextCursor, String previousCursor) {
+        this.items = items;
+        this.sort = sort;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    /**
+     * Loads the page that a cursor points to, or the first page without one.
+     *
+     * @param sorts  the sort orders by name; {@value #SORT_BY_ID} is always offered.
+     * @param sort   the name of the sort order, or null for {@value #SORT_BY_ID}.
+     * @param cursor a cursor from an earlier page with the same sort order, or null.
+     * @param size   the page size, or null for {@value #DEFAULT_SIZE}.
+     * @throws IllegalArgumentException if a parameter is invalid.
+     */
+    public static <T extends Entity> KeysetPage<T> load(DAO dao, Class<T> clazz, Map<String, Sort<T>> sorts,
+                                                        String sort, String cursor, Integer size) {
+        notNull(dao);
+        notNull(sorts);
+        String sortName = null == sort || sort.isEmpty() ? SORT_BY_ID : sort;
+        isTrue(SORT_BY_ID.equals(sortName) || sorts.containsKey(sortName), "Unknown sort order: %s", sortName);
+        int pageSize = null == size ? DEFAULT_SIZE : size;
+        inclusiveBetween(1, MAX_SIZE, pageSize, "Page size must be between 1 and " + MAX_SIZE);
+        Sort<T> order = SORT_BY_ID.equals(sortName) ? new Sort<>(null, null) : sorts.get(sortName);
+
+        Cursor from = null == cursor || cursor.isEmpty() ? null : Cursor.decode(cursor, sortName);
+        boolean backwards = null != from && from.direction == BEFORE;
+        List<T> rows = dao.loadPage(clazz, order.property, null == from ? null : from.value,
+                null == from ? null : from.id, backwards, pageSize + 1);
+        boolean more = rows.size() > pageSize;
+        List<T> items = new ArrayList<>(backwards && more ? rows.subList(1, rows.size())
+                : rows.subList(0, Math.min(pageSize, rows.size())));
+
+        String next = null;
+        String previous = null;
+        if (!items.isEmpty()) {
+            T first = items.get(0);
+            T last = items.get(items.size() - 1);
+            if (backwards ? null != from : more) {
+                next = new Cursor(AFTER, sortName, valueOf(order, last), last.getId()).encode();
+            }
+            if (backwards ? more : null != from) {
+                previous = new Cursor(BEFORE, sortName, valueOf(order, first), first.getId()).encode();
+            }
+        }
+        return new KeysetPage<>(items, sortName, pageSize, next, previous);
+    }
+
+    // Null for an entity without a value, which the DAO lists after the rest
+    private static <T> String valueOf(Sort<T> order, T entity) {
+        return null == order.value ? "" : order.value.apply(entity);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the cursor of the next page, or null on the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return the cursor of the previous page, or null on the first page.
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    // Serialized as URL-safe Base64 of "direction sort\nid\nvalue", without "\nvalue" for a null value
+    private static final class Cursor {
+        private final char direction;
+        private final String sort;
+        private final String value;
+        private final Long id;
+
+        Cursor(char direction, String sort, String value, Long id) {
+            this.direction = direction;
+            this.sort = sort;
+            this.value = value;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = direction + sort + "\n" + id + (null == value ? "" : "\n" + value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, String sort) {
+            String raw;
+            try {
+                raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            String[] parts = raw.split("\n", 3);
+            isTrue(parts.length >= 2 && parts[0].length() > 1, "Invalid page cursor");
+            char direction = parts[0].charAt(0);
+            isTrue(direction == AFTER || direction == BEFORE, "Invalid page cursor");
+            isTrue(parts[0].substring(1).equals(sort), "The page cursor belongs to another sort order");
+            try {
+                return new Cursor(direction, sort, parts.length == 3 ? parts[2] : null, Long.parseLong(parts[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package rockets.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A bounded LRU cache of rendered pages, each kept both as is and gzipped.
+ * Pages are keyed by their URL and the ETag of the data they show, so a page
+ * is only served while that data is unchanged, and a repeat request skips
+ * loading, rendering and compressing it. Entries for older ETags are never
+ * served again and age out of the cache.
+ */
+public class PageCache {
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private final Map<String, Page> pages;
+    private final int minGzipSize;
+    private long hits;
+    private long misses;
+
+    /**
+     * A rendered page in UTF-8, and gzipped if it is long enough to be sent compressed.
+     */
+    public static final class Page {
+        private final byte[] body;
+        private final byte[] gzipped;
+
+        private Page(byte[] body, byte[] gzipped) {
+            this.body = body;
+            this.gzipped = gzipped;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return the gzipped body, or null if the page is too short to be sent compressed.
+         */
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+    }
+
+    /**
+     * @param minGzipSize the length from which pages are also kept gzipped.
+     */
+    public PageCache(int maxEntries, int minGzipSize) {
+        isTrue(maxEntries > 0, "maxEntries must be positive");
+        this.minGzipSize = minGzipSize;
+        this.pages = new LinkedHashMap<String, Page>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Page> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    static String key(String url, String etag) {
+        return etag + ' ' + url;
+    }
+
+    /**
+     * @return the cached page of the URL at the ETag, or null.
+     */
+    public synchronized Page get(String url, String etag) {
+        Page page = pages.get(key(url, etag));
+        if (null == page) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return page;
+    }
+
+    /**
+     * Caches a rendered page of the URL at the ETag, compressing it once.
+     */
+    public Page put(String url, String etag, String html) {
+        notNull(html);
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        // Compress outside the lock, so other pages are served meanwhile
+        Page page = new Page(body, body.length < minGzipSize ? null : ResponseCompression.gzip(body));
+        synchronized (this) {
+            pages.put(key(url, etag), page);
+        }
+        return page;
+    }
+
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
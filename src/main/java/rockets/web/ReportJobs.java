@@ -0,0 +1,289 @@
+package rockets.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Long-running miner queries run as background jobs, so that a request
+ * submits a query and returns at once instead of holding a server thread for
+ * the whole scan. Jobs run on a fixed pool of {@code workers} threads behind a
+ * queue of at most {@code maxQueued} jobs; a submission beyond that is
+ * rejected rather than queued. A query submitted while an identical one is
+ * queued or running joins that job instead of starting another.
+ * <p>
+ * Each job keeps its result serialized, so polling it costs a lookup. Jobs
+ * are forgotten {@code expiryMillis} after they finish, and at once when every
+ * client that submitted or joined them has deleted them.
+ */
+public class ReportJobs {
+    private static Logger logger = LoggerFactory.getLogger(ReportJobs.class);
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    /**
+     * A submitted query. Its state changes under its own lock, as the worker
+     * and the cancelling request may race.
+     */
+    public static final class Job {
+        private final String id;
+        private final String key;
+        private final long submittedAt;
+        private Status status = Status.QUEUED;
+        private long finishedAt;
+        private byte[] result;
+        private String error;
+        private Future<?> future;
+        private int clients = 1;
+
+        private Job(String id, String key, long submittedAt) {
+            this.id = id;
+            this.key = key;
+            this.submittedAt = submittedAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public synchronized Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the epoch millis when the job finished, or 0 while it has not.
+         */
+        public synchronized long getFinishedAt() {
+            return finishedAt;
+        }
+
+        /**
+         * @return the serialized result, or null unless the job is done.
+         */
+        public synchronized byte[] getResult() {
+            return result;
+        }
+
+        /**
+         * @return why the job failed, or null unless it did.
+         */
+        public synchronized String getError() {
+            return error;
+        }
+
+        /**
+         * @return the clients that submitted or joined the job and have not deleted it.
+         */
+        public synchronized int getClients() {
+            return clients;
+        }
+
+        private synchronized void join() {
+            clients++;
+        }
+
+        // The clients still waiting on the job once one of them leaves
+        private synchronized int leave() {
+            return --clients;
+        }
+
+        private synchronized boolean start() {
+            if (status != Status.QUEUED) {
+                return false;
+            }
+            status = Status.RUNNING;
+            return true;
+        }
+
+        // A job is finished once; a result arriving after a cancellation is dropped
+        private synchronized boolean finish(Status status, byte[] result, String error, long now) {
+            if (this.status.isFinished()) {
+                return false;
+            }
+            this.status = status;
+            this.result = result;
+            this.error = error;
+            this.finishedAt = now;
+            return true;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final long expiryMillis;
+    private final Clock clock;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> unfinished = new ConcurrentHashMap<>();
+
+    /**
+     * @param workers      the jobs that may run at once.
+     * @param maxQueued    the jobs that may wait for a worker.
+     * @param expiryMillis how long a finished job is kept.
+     */
+    public ReportJobs(int workers, int maxQueued, long expiryMillis) {
+        this(workers, maxQueued, expiryMillis, Clock.systemUTC());
+    }
+
+    public ReportJobs(int workers, int maxQueued, long expiryMillis, Clock clock) {
+        isTrue(workers > 0, "workers must be positive");
+        isTrue(maxQueued > 0, "maxQueued must be positive");
+        isTrue(expiryMillis > 0, "expiryMillis must be positive");
+        notNull(clock);
+        this.expiryMillis = expiryMillis;
+        this.clock = clock;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a query, or joins the queued or running job of an identical one.
+     *
+     * @param key  identifies the query and its parameters.
+     * @param task computes the serialized result.
+     * @return the job that will answer the query.
+     * @throws RejectedExecutionException if the queue is full.
+     */
+    public Job submit(String key, Callable<byte[]> task) {
+        notNull(key);
+        notNull(task);
+        expire();
+        synchronized (unfinished) {
+            Job running = unfinished.get(key);
+            if (null != running) {
+                running.join();
+                return running;
+            }
+            Job job = new Job(UUID.randomUUID().toString(), key, clock.millis());
+            jobs.put(job.id, job);
+            unfinished.put(key, job);
+            try {
+                Future<?> future = executor.submit(() -> run(job, task));
+                synchronized (job) {
+                    job.future = future;
+                }
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.id);
+                unfinished.remove(key);
+                throw e;
+            }
+            return job;
+        }
+    }
+
+    private void run(Job job, Callable<byte[]> task) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            byte[] result = task.call();
+            job.finish(Status.DONE, result, null, clock.millis());
+        } catch (Exception e) {
+            logger.info("Report " + job.key + " failed", e);
+            job.finish(Status.FAILED, null, String.valueOf(e.getMessage()), clock.millis());
+        } finally {
+            unfinished.remove(job.key, job);
+        }
+    }
+
+    /**
+     * @return the job, or null if it is unknown, deleted or expired.
+     */
+    public Job get(String id) {
+        expire();
+        return null == id ? null : jobs.get(id);
+    }
+
+    /**
+     * Drops one client's interest in the job. Once the last client that
+     * submitted or joined it deletes it, the job is cancelled if it has not
+     * finished, and forgotten. A running job is not interrupted, as its
+     * loads may be shared with other queries; its result is dropped instead.
+     *
+     * @return whether the job was known.
+     */
+    public boolean delete(String id) {
+        Job job;
+        synchronized (unfinished) {
+            job = null == id ? null : jobs.get(id);
+            if (null == job) {
+                return false;
+            }
+            if (job.leave() > 0) {
+                return true;
+            }
+            jobs.remove(id);
+            unfinished.remove(job.key, job);
+        }
+        if (job.finish(Status.CANCELLED, null, null, clock.millis())) {
+            Future<?> future;
+            synchronized (job) {
+                future = job.future;
+            }
+            if (null != future) {
+                future.cancel(false);
+            }
+            // Frees the queue slot at once, rather than when a worker reaches the job
+            executor.purge();
+        }
+        return true;
+    }
+
+    private void expire() {
+        long now = clock.millis();
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt() + expiryMillis <= now);
+    }
+
+    /**
+     * @return the jobs waiting for a worker.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getRunning() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return the jobs kept, finished or not.
+     */
+    public int size() {
+        return jobs.size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
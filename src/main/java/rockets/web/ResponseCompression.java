@@ -0,0 +1,195 @@
+package rockets.web;
+
+import spark.Request;
+import spark.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+import static spark.Spark.after;
+
+/**
+ * Gzip compression of responses for clients that accept it. A body shorter
+ * than the minimum size goes out as is, since the gzip framing and the CPU
+ * spent would outweigh the bytes saved. Compression streams: a rendered body
+ * is compressed while it is written out, and a streamed listing is
+ * compressed chunk by chunk, with each flush pushing the compressed chunk to
+ * the client. A body that is sent often can be compressed once with
+ * {@link #gzip(byte[])} and its compressed bytes sent as they are.
+ */
+public class ResponseCompression {
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    private static final String GZIP = "gzip";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private final int minSize;
+
+    public ResponseCompression(int minSize) {
+        isTrue(minSize >= 0, "minimum size cannot be negative");
+        this.minSize = minSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Compresses the rendered bodies of routes that leave writing the body to
+     * Spark, once they reach the minimum size, using Spark's own streaming
+     * gzip output for responses that carry {@code Content-Encoding: gzip}.
+     */
+    public void register() {
+        after((req, res) -> {
+            String body = res.body();
+            // Routes that wrote their own response have committed it already
+            if (null == body || res.raw().isCommitted() || res.raw().containsHeader(CONTENT_ENCODING)
+                    || !reachesMinSize(body)) {
+                return;
+            }
+            res.header("Vary", "Accept-Encoding");
+            if (acceptsGzip(req.headers("Accept-Encoding"))) {
+                res.header(CONTENT_ENCODING, GZIP);
+            }
+        });
+    }
+
+    /**
+     * @return whether the body, as Spark writes it in UTF-8, takes at least
+     * the minimum size in bytes. Counts only as far as needed to tell.
+     */
+    boolean reachesMinSize(String body) {
+        // Every char takes at least one byte and at most three
+        if (body.length() >= minSize) {
+            return true;
+        }
+        if ((long) body.length() * 3 < minSize) {
+            return false;
+        }
+        long bytes = 0;
+        for (int i = 0; i < body.length() && bytes < minSize; i++) {
+            char c = body.charAt(i);
+            // A surrogate pair takes four bytes, two per char
+            bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+        return bytes >= minSize;
+    }
+
+    /**
+     * @return whether the Accept-Encoding header allows gzip: listed by name or
+     * by {@code *}, without a quality of 0.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (null == acceptEncoding) {
+            return false;
+        }
+        boolean accepted = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            String name = parameters[0].trim();
+            boolean refused = false;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(GZIP) || name.equalsIgnoreCase("x-gzip")) {
+                // An explicit entry for gzip overrides the wildcard
+                return !refused;
+            }
+            if (name.equals("*")) {
+                accepted = !refused;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * @return the body compressed with gzip.
+     */
+    public static byte[] gzip(byte[] body) {
+        notNull(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the whole body and commits the response, compressing it if the
+     * client accepts gzip and it reaches the minimum size.
+     *
+     * @param gzipped the body already compressed, or null to compress it as it is written.
+     */
+    public void send(Request req, Response res, byte[] body, byte[] gzipped) throws IOException {
+        notNull(body);
+        OutputStream out = res.raw().getOutputStream();
+        if (body.length < minSize) {
+            res.raw().setContentLength(body.length);
+            out.write(body);
+        } else {
+            res.header("Vary", "Accept-Encoding");
+            if (!acceptsGzip(req.headers("Accept-Encoding"))) {
+                res.raw().setContentLength(body.length);
+                out.write(body);
+            } else if (null != gzipped) {
+                res.header(CONTENT_ENCODING, GZIP);
+                res.raw().setContentLength(gzipped.length);
+                out.write(gzipped);
+            } else {
+                res.header(CONTENT_ENCODING, GZIP);
+                GZIPOutputStream gzip = new GZIPOutputStream(out, true);
+                gzip.write(body);
+                gzip.finish();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Opens the response for a streamed body of unknown length, compressed if
+     * the client accepts gzip. Flushing the stream sends everything written so
+     * far; closing it finishes the compressed stream but leaves the response
+     * open.
+     */
+    public OutputStream open(Request req, Response res) throws IOException {
+        OutputStream out = res.raw().getOutputStream();
+        res.header("Vary", "Accept-Encoding");
+        if (!acceptsGzip(req.headers("Accept-Encoding"))) {
+            return out;
+        }
+        res.header(CONTENT_ENCODING, GZIP);
+        return new GZIPOutputStream(new UnclosedOutputStream(out), true);
+    }
+
+    // Lets a compressed stream finish without closing the servlet stream underneath
+    private static final class UnclosedOutputStream extends FilterOutputStream {
+        UnclosedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
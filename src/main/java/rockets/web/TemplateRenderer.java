@@ -0,0 +1,132 @@
+package rockets.web;
+
+import freemarker.cache.StrongCacheStorage;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateExceptionHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.ModelAndView;
+import spark.TemplateEngine;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The FreeMarker engine shared by every HTML route. It owns the one
+ * {@link Configuration}, so templates are parsed once into a cache that is
+ * never evicted, and in production the cache never goes back to the
+ * classpath to check whether a template changed. In dev mode every render
+ * checks for edits instead. Each render is timed per template, and output is
+ * rendered into a buffer sized from the template's previous output, so pages
+ * are not built up through repeated buffer growth.
+ */
+public class TemplateRenderer extends TemplateEngine {
+    private static Logger logger = LoggerFactory.getLogger(TemplateRenderer.class);
+
+    public static final String TEMPLATE_PATH = "/spark/template/freemarker";
+
+    private final Configuration configuration;
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+    /**
+     * The render times of one template since startup.
+     */
+    public static final class Timing {
+        private final LongAdder renders = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile int lastLength = 256;
+
+        private void record(long nanos, int length) {
+            renders.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            lastLength = length;
+        }
+
+        public long getRenders() {
+            return renders.sum();
+        }
+
+        public long getTotalMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(totalNanos.sum());
+        }
+
+        public long getMeanMicros() {
+            long renders = getRenders();
+            return renders == 0 ? 0 : getTotalMicros() / renders;
+        }
+
+        public long getMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+        }
+    }
+
+    /**
+     * @param devMode whether to check templates for edits on every render.
+     */
+    public TemplateRenderer(boolean devMode) {
+        configuration = new Configuration(Configuration.VERSION_2_3_26);
+        configuration.setClassForTemplateLoading(TemplateRenderer.class, TEMPLATE_PATH);
+        configuration.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        configuration.setCacheStorage(new StrongCacheStorage());
+        configuration.setTemplateUpdateDelayMilliseconds(devMode ? 0 : Long.MAX_VALUE);
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        configuration.setLogTemplateExceptions(false);
+    }
+
+    /**
+     * Parses the templates into the cache, so that the first request of each
+     * does not pay for it.
+     *
+     * @throws UncheckedIOException if a template is missing or does not parse.
+     */
+    public void preload(String... templateNames) {
+        for (String name : templateNames) {
+            try {
+                configuration.getTemplate(name);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load template " + name, e);
+            }
+        }
+    }
+
+    @Override
+    public String render(ModelAndView modelAndView) {
+        notNull(modelAndView);
+        String name = modelAndView.getViewName();
+        Timing timing = timings.computeIfAbsent(name, n -> new Timing());
+        long start = System.nanoTime();
+        try {
+            Template template = configuration.getTemplate(name);
+            StringWriter out = new StringWriter(timing.lastLength);
+            template.process(modelAndView.getModel(), out);
+            String html = out.toString();
+            long nanos = System.nanoTime() - start;
+            timing.record(nanos, html.length());
+            logger.debug("Rendered {} in {} us", name, TimeUnit.NANOSECONDS.toMicros(nanos));
+            return html;
+        } catch (IOException | TemplateException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @return the render times by template name, of every template requested since startup.
+     */
+    public Map<String, Timing> getTimings() {
+        return new TreeMap<>(timings);
+    }
+}
@@ -0,0 +1,47 @@
+<#-- @ftlvariable name="errorMsg" type="java.lang.String" -->
+<#-- @ftlvariable name="q" type="java.lang.String" -->
+<#-- @ftlvariable name="matches" type="java.util.List<rockets.mining.NameSearchIndex.Match>" -->
+
+<!doctype html public "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
+<html>
+<head>
+    <title>Rockets: a rocket information repository</title>
+
+    <meta http-equiv="Content-type" content="text/html;charset=UTF-8">
+
+    <meta name="description" content="Rockets: a rocket information repository - Search">
+</head>
+
+<body>
+<div id="title_pane">
+    <h3>Search</h3>
+</div>
+
+<form action="/search" method="get">
+    <input type="text" name="q" value="${q?html}">
+    <input type="submit" value="Search">
+</form>
+
+<div>
+<#if errorMsg?? && errorMsg?has_content>
+    <li><h4 class="errorMsg">${errorMsg}</h4></li>
+<#elseif matches?? && matches?has_content>
+    <ul>
+        <#list matches as match>
+            <#if match.kind == "ROCKET">
+            <li>${match.name?html} (rocket, ${match.launchCount} launches)</li>
+            <#elseif match.kind == "PROVIDER">
+            <li>${match.name?html} (launch service provider, ${match.launchCount} launches)</li>
+            <#else>
+            <li>${match.name?html} (launch site, ${match.launchCount} launches)</li>
+            </#if>
+        </#list>
+    </ul>
+<#elseif q?has_content>
+    <p>Nothing matches "${q?html}".</p>
+</#if>
+
+</div>
+
+</body>
+</html>
@@ -1,4 +1,5 @@
 <#-- @ftlvariable name="errorMsg" type="java.lang.String" -->
+<#-- @ftlvariable name="page" type="rockets.web.KeysetPage" -->
 <#-- @ftlvariable name="users" type="java.util.List<rockets.model.User>" -->
 
 <!doctype html public "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
@@ -29,6 +30,16 @@
 <#else>
     <p>Nobody in the system. <a href="/register">Register</a> now!</p>
 </#if>
+<#if page??>
+    <p>
+    <#if page.previousCursor??>
+        <a id="prev_page" href="/users?sort=${page.sort}&amp;size=${page.size}&amp;cursor=${page.previousCursor}">Previous</a>
+    </#if>
+    <#if page.nextCursor??>
+        <a id="next_page" href="/users?sort=${page.sort}&amp;size=${page.size}&amp;cursor=${page.nextCursor}">Next</a>
+    </#if>
+    </p>
+</#if>
 
 </div>
 
@@ -0,0 +1,81 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringInternerUnitTest {
+    private StringInterner interner;
+
+    @BeforeEach
+    public void setUp() {
+        interner = new StringInterner();
+    }
+
+    @Test
+    public void shouldReturnCanonicalInstanceForEqualStrings() {
+        String first = new String("LEO");
+        String second = new String("LEO");
+        assertNotSame(first, second);
+        assertSame(interner.intern(first), interner.intern(second));
+        assertSame(first, interner.intern(second));
+        assertNull(interner.intern(null));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void shouldStopKeepingValuesOnceFull() {
+        interner = new StringInterner(2);
+        interner.intern("USA");
+        interner.intern("China");
+        String japan = new String("Japan");
+        assertSame(japan, interner.intern(japan));
+        assertNotSame(japan, interner.intern(new String("Japan")));
+        assertSame("USA", interner.intern(new String("USA")));
+        assertEquals(2, interner.size());
+        assertThrows(IllegalArgumentException.class, () -> new StringInterner(0));
+    }
+
+    @Test
+    public void shouldKeepOneInstancePerValueUnderConcurrency() {
+        Set<String> canonical = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        IntStream.range(0, 10000).parallel()
+                .forEach(i -> canonical.add(interner.intern(new String("value_" + (i % 500)))));
+        assertEquals(500, interner.size());
+        assertEquals(500, canonical.size());
+    }
+
+    @Test
+    public void shouldInternRepeatedStringsOfLaunches() {
+        LaunchServiceProvider spacex = new LaunchServiceProvider("SpaceX", 2002, new String("USA"));
+        Rocket rocket = new Rocket("Falcon 9", new String("USA"), spacex);
+        List<Launch> launches = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Launch launch = new Launch();
+            launch.setLaunchVehicle(rocket);
+            launch.setLaunchServiceProvider(spacex);
+            launch.setOrbit(new String("GTO"));
+            launch.setLaunchSite(new String("CCAFS"));
+            launch.setPayload(IntStream.range(0, 2).mapToObj(p -> new String("Starlink")).collect(Collectors.toSet()));
+            launch.internStrings(interner::intern);
+            launches.add(launch);
+        }
+
+        assertSame(launches.get(0).getOrbit(), launches.get(1).getOrbit());
+        assertSame(launches.get(0).getLaunchSite(), launches.get(1).getLaunchSite());
+        assertSame(launches.get(0).getPayload().iterator().next(), launches.get(1).getPayload().iterator().next());
+        assertSame(rocket.getCountry(), spacex.getCountry());
+    }
+}
@@ -7,6 +7,7 @@ import org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.DataVersion;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
@@ -14,8 +15,13 @@ import rockets.model.User;
 
 import java.io.File;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -283,6 +289,150 @@ public class Neo4jDAOUnitTest {
         assertEquals("experimental", loadedLaunch.getFunction());
     }
 
+    @Test
+    public void shouldVisitAllLaunchesInChunks() {
+        for (int day = 1; day <= 5; day++) {
+            Launch launch = new Launch();
+            launch.setLaunchDate(LocalDate.of(2017, 1, day));
+            launch.setLaunchVehicle(rocket);
+            launch.setLaunchSite("VAFB");
+            launch.setOrbit("LEO");
+            rocket.getLaunches().add(launch);
+            dao.createOrUpdate(launch);
+        }
+
+        Set<LocalDate> dates = Sets.newHashSet();
+        List<Long> ids = new ArrayList<>();
+        dao.forEach(Launch.class, 2, launch -> {
+            dates.add(launch.getLaunchDate());
+            ids.add(launch.getId());
+            assertEquals("F9", launch.getLaunchVehicle().getName());
+        });
+        assertEquals(5, dates.size());
+        // Each launch once, in id order
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+        assertEquals(5, ids.size());
+    }
+
+    @Test
+    public void shouldNotifyListenersOfTheEntitiesASaveCascadesTo() {
+        DataVersion dataVersion = new DataVersion();
+        dao.addListener(dataVersion);
+        Launch launch = new Launch();
+        launch.setLaunchDate(LocalDate.of(2017, 1, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchSite("VAFB");
+        launch.setOrbit("LEO");
+        dao.createOrUpdate(launch);
+
+        assertTrue(dataVersion.current(Launch.class) > 0);
+        assertTrue(dataVersion.current(Rocket.class) > 0);
+        assertTrue(dataVersion.current(LaunchServiceProvider.class) > 0);
+    }
+
+    @Test
+    public void shouldLoadEntitiesByIdInTheOrderOfTheIds() {
+        Rocket atlas = dao.createOrUpdate(new Rocket("Atlas", "USA", spacex));
+        Rocket delta = dao.createOrUpdate(new Rocket("Delta", "USA", spacex));
+
+        List<Rocket> loaded = dao.loadAll(Rocket.class, Arrays.asList(delta.getId(), -1L, atlas.getId()));
+        assertEquals(Arrays.asList("Delta", "Atlas"), names(loaded));
+        assertEquals("SpaceX", loaded.get(0).getManufacturer().getName());
+        assertTrue(dao.loadAll(Rocket.class, Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void shouldLoadPagesOfRocketsInKeysetOrder() {
+        for (String name : new String[]{"Delta", "Atlas", "Falcon", "Electron"}) {
+            dao.createOrUpdate(new Rocket(name, "USA", spacex));
+        }
+        dao.createOrUpdate(new Rocket("Atlas", "Russia", spacex));
+
+        List<Rocket> first = dao.loadPage(Rocket.class, "name", null, null, false, 2);
+        assertEquals(Arrays.asList("Atlas", "Atlas"), names(first));
+        assertTrue(first.get(0).getId() < first.get(1).getId());
+
+        Rocket last = first.get(1);
+        List<Rocket> second = dao.loadPage(Rocket.class, "name", last.getName(), last.getId(), false, 2);
+        assertEquals(Arrays.asList("Delta", "Electron"), names(second));
+
+        Rocket top = second.get(0);
+        List<Rocket> back = dao.loadPage(Rocket.class, "name", top.getName(), top.getId(), true, 2);
+        assertEquals(ids(first), ids(back));
+
+        List<Rocket> tail = dao.loadPage(Rocket.class, "name", null, null, true, 2);
+        assertEquals(Arrays.asList("Electron", "Falcon"), names(tail));
+    }
+
+    @Test
+    public void shouldListEntitiesWithoutAValueAfterTheRest() {
+        User noName = new User();
+        noName.setEmail("anonymous@example.com");
+        dao.createOrUpdate(noName);
+        for (String lastName : new String[]{"Lovell", "Armstrong"}) {
+            User named = new User();
+            named.setEmail(lastName + "@example.com");
+            named.setLastName(lastName);
+            dao.createOrUpdate(named);
+        }
+
+        List<User> first = dao.loadPage(User.class, "lastName", null, null, false, 2);
+        assertEquals(Arrays.asList("Armstrong", "Lovell"), lastNames(first));
+        User lovell = first.get(1);
+        List<User> second = dao.loadPage(User.class, "lastName", lovell.getLastName(), lovell.getId(), false, 2);
+        assertEquals(Collections.singletonList(null), lastNames(second));
+
+        User last = second.get(0);
+        assertEquals(lastNames(first), lastNames(dao.loadPage(User.class, "lastName", null, last.getId(), true, 2)));
+        assertEquals(Arrays.asList("Lovell", null), lastNames(dao.loadPage(User.class, "lastName", null, null, true, 2)));
+        assertTrue(dao.loadPage(User.class, "lastName", null, last.getId(), false, 2).isEmpty());
+    }
+
+    @Test
+    public void shouldIndexTheSortedProperties() {
+        Set<String> indexes = Sets.newHashSet();
+        session.query("CALL db.indexes()", Collections.emptyMap())
+                .forEach(row -> indexes.add(String.valueOf(row.get("description"))));
+        assertTrue(indexes.contains("INDEX ON :Rocket(name)"), indexes.toString());
+        assertTrue(indexes.contains("INDEX ON :User(lastName)"), indexes.toString());
+    }
+
+    @Test
+    public void shouldLoadPagesOfRocketsInIdOrder() {
+        for (String name : new String[]{"Delta", "Atlas", "Falcon"}) {
+            dao.createOrUpdate(new Rocket(name, "USA", spacex));
+        }
+
+        List<Rocket> first = dao.loadPage(Rocket.class, null, null, null, false, 2);
+        List<Rocket> second = dao.loadPage(Rocket.class, null, null, first.get(1).getId(), false, 2);
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertTrue(first.get(0).getId() < first.get(1).getId());
+        assertTrue(first.get(1).getId() < second.get(0).getId());
+        assertEquals(Sets.newHashSet("Delta", "Atlas", "Falcon"),
+                Sets.newHashSet(names(first).get(0), names(first).get(1), names(second).get(0)));
+    }
+
+    @Test
+    public void shouldRejectInvalidPageProperty() {
+        assertThrows(IllegalArgumentException.class,
+                () -> dao.loadPage(Rocket.class, "name) DETACH DELETE n //", null, null, false, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> dao.loadPage(Rocket.class, "name", null, null, false, 0));
+    }
+
+    private static List<Long> ids(List<Rocket> rockets) {
+        return rockets.stream().map(Rocket::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> lastNames(List<User> users) {
+        return users.stream().map(User::getLastName).collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<Rocket> rockets) {
+        return rockets.stream().map(Rocket::getName).collect(Collectors.toList());
+    }
+
     @Test
     public void shouldCreateLaunchServiceProviderSuccessfully() {
         LaunchServiceProvider lsp = dao.createOrUpdate(esa);
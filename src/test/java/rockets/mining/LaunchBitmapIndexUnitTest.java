@@ -0,0 +1,99 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchBitmapIndexUnitTest {
+    private LaunchServiceProvider casc;
+    private LaunchServiceProvider spacex;
+    private LaunchColumns columns;
+    private LaunchBitmapIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        casc = new LaunchServiceProvider("CASC", 1999, "China");
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        Rocket longMarch = new Rocket("Long March 3B", "China", casc);
+        Rocket falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(1L, longMarch, "GTO", "Xichang", Launch.LaunchOutcome.FAILED),
+                createLaunch(2L, longMarch, "GTO", "Xichang", Launch.LaunchOutcome.SUCCESSFUL),
+                createLaunch(3L, longMarch, "LEO", "Jiuquan", Launch.LaunchOutcome.FAILED),
+                createLaunch(4L, falcon9, "GTO", "CCAFS", Launch.LaunchOutcome.FAILED),
+                createLaunch(5L, falcon9, "LEO", "CCAFS", Launch.LaunchOutcome.SUCCESSFUL)
+        ));
+        index = new LaunchBitmapIndex();
+        columns.addIndex(index);
+    }
+
+    private Launch createLaunch(Long id, Rocket rocket, String orbit, String site, Launch.LaunchOutcome outcome) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(LocalDate.of(2018, 1, id.intValue()));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setOrbit(orbit);
+        launch.setLaunchSite(site);
+        launch.setLaunchOutcome(outcome);
+        return launch;
+    }
+
+    @Test
+    public void shouldAnswerSelectiveConjunction() {
+        LaunchFilter failedChineseGto = index.orbit("GTO")
+                .and(index.country("China"))
+                .and(index.outcome(Launch.LaunchOutcome.FAILED));
+        assertArrayEquals(new int[]{0}, failedChineseGto.rows());
+        assertEquals(2, index.orbit("GTO").andCardinality(index.provider(casc)));
+    }
+
+    @Test
+    public void shouldCombineWithOrAndAndNot() {
+        assertEquals(5, index.launchSite("Xichang").or(index.launchSite("Jiuquan")).or(index.provider(spacex)).cardinality());
+        assertArrayEquals(new int[]{2, 3}, index.outcome(Launch.LaunchOutcome.FAILED).andNot(index.orbit("GTO").and(index.country("China"))).rows());
+    }
+
+    @Test
+    public void shouldReturnEmptyFilterForUnknownValues() {
+        assertTrue(index.orbit("HEO").isEmpty());
+        assertTrue(index.country("Japan").and(index.orbit("GTO")).isEmpty());
+    }
+
+    @Test
+    public void shouldNotModifyIndexWhenCombiningFilters() {
+        LaunchFilter gto = index.orbit("GTO");
+        gto.and(index.country("USA"));
+        assertEquals(3, index.orbit("GTO").cardinality());
+    }
+
+    @Test
+    public void shouldDetachCopiesFromLaterWrites() {
+        LaunchFilter view = index.orbit("GTO");
+        LaunchFilter copy = view.copy();
+        columns.delete(createLaunch(1L, columns.launch(0).getLaunchVehicle(), "GTO", "Xichang", null));
+        assertEquals(2, view.cardinality());
+        assertEquals(3, copy.cardinality());
+    }
+
+    @Test
+    public void shouldFollowUpdatesAndDeletes() {
+        Launch moved = createLaunch(1L, columns.launch(0).getLaunchVehicle(), "LEO", "Jiuquan", Launch.LaunchOutcome.SUCCESSFUL);
+        columns.upsert(moved);
+        assertFalse(index.orbit("GTO").contains(0));
+        assertTrue(index.orbit("LEO").contains(0));
+        assertTrue(index.outcome(Launch.LaunchOutcome.SUCCESSFUL).contains(0));
+        assertFalse(index.outcome(Launch.LaunchOutcome.FAILED).contains(0));
+
+        columns.delete(moved);
+        assertFalse(index.country("China").contains(0));
+        assertEquals(2, index.country("China").cardinality());
+    }
+}
@@ -0,0 +1,157 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LaunchColumnsUnitTest {
+    private LaunchServiceProvider spacex;
+    private Rocket falcon9;
+    private Rocket falconHeavy;
+    private List<Launch> launches;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        falconHeavy = new Rocket("Falcon Heavy", "USA", spacex);
+        launches = Arrays.asList(
+                createLaunch(LocalDate.of(2017, 1, 14), falcon9, "LEO", Launch.LaunchOutcome.SUCCESSFUL, BigDecimal.valueOf(62000000)),
+                createLaunch(LocalDate.of(2018, 2, 6), falconHeavy, "GTO", Launch.LaunchOutcome.SUCCESSFUL, BigDecimal.valueOf(90000000.25)),
+                createLaunch(LocalDate.of(2016, 9, 1), falcon9, "GTO", Launch.LaunchOutcome.FAILED, null)
+        );
+    }
+
+    private Launch createLaunch(LocalDate date, Rocket rocket, String orbit, Launch.LaunchOutcome outcome, BigDecimal price) {
+        Launch launch = new Launch();
+        launch.setLaunchDate(date);
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setLaunchSite("CCAFS");
+        launch.setOrbit(orbit);
+        launch.setLaunchOutcome(outcome);
+        launch.setPrice(price);
+        return launch;
+    }
+
+    @Test
+    public void shouldKeepRowsInIterationOrder() {
+        LaunchColumns columns = LaunchColumns.of(launches);
+        assertEquals(3, columns.size());
+        for (int i = 0; i < launches.size(); i++) {
+            assertSame(launches.get(i), columns.launch(i));
+            assertEquals(launches.get(i).getLaunchDate().toEpochDay(), columns.epochDays()[i]);
+            assertEquals(launches.get(i).getLaunchDate().getYear(), columns.year(i));
+        }
+    }
+
+    @Test
+    public void shouldDictionaryEncodeRepeatedValues() {
+        LaunchColumns columns = LaunchColumns.of(launches);
+        assertEquals(2, columns.vehicleDictionary().size());
+        assertEquals(1, columns.providerDictionary().size());
+        assertEquals(1, columns.countryDictionary().size());
+        assertEquals(columns.vehicles()[0], columns.vehicles()[2]);
+        assertEquals(falconHeavy, columns.vehicleDictionary().value(columns.vehicles()[1]));
+        assertEquals(columns.orbitDictionary().code("GTO"), columns.orbits()[1]);
+        assertEquals(LaunchColumns.NO_VALUE, columns.orbitDictionary().code("HEO"));
+    }
+
+    @Test
+    public void shouldStoreOutcomeAsBitsetAndPriceAsFixedPoint() {
+        LaunchColumns columns = LaunchColumns.of(launches);
+        assertTrue(columns.successful().get(0));
+        assertTrue(columns.successful().get(1));
+        assertFalse(columns.successful().get(2));
+        assertEquals(9000000025L, columns.prices()[1]);
+        assertEquals(0L, columns.prices()[2]);
+        assertEquals(new BigDecimal("90000000.25"), columns.fromFixedPoint(columns.prices()[1]));
+    }
+
+    @Test
+    public void shouldWidenThePriceScaleToKeepPricesExact() {
+        launches.get(0).setPrice(new BigDecimal("0.125"));
+        launches.get(2).setPrice(new BigDecimal("0.1350"));
+        LaunchColumns columns = LaunchColumns.of(launches);
+        assertEquals(3, columns.priceScale());
+        assertEquals(125L, columns.prices()[0]);
+        assertEquals(135L, columns.prices()[2]);
+        assertEquals(new BigDecimal("90000000.250"), columns.fromFixedPoint(columns.prices()[1]));
+
+        // Indexes are refilled in the new unit when an update widens the scale
+        LaunchPriceIndex index = new LaunchPriceIndex();
+        columns.addIndex(index);
+        Launch precise = new Launch();
+        precise.setPrice(new BigDecimal("0.1255"));
+        int row = columns.upsert(precise);
+        assertEquals(4, columns.priceScale());
+        assertEquals(1250L, columns.prices()[0]);
+        assertEquals(1255L, columns.prices()[row]);
+        assertArrayEquals(new int[]{1, 2, row}, index.mostExpensive(3));
+
+        Launch tooPrecise = new Launch();
+        tooPrecise.setPrice(new BigDecimal("1E-19"));
+        assertThrows(ArithmeticException.class, () -> columns.upsert(tooPrecise));
+        assertEquals(4, columns.priceScale());
+    }
+
+    @Test
+    public void shouldStreamStoredLaunchesAndLoadThemBackById() {
+        DAO dao = mock(DAO.class);
+        for (int i = 0; i < launches.size(); i++) {
+            launches.get(i).setId(10L + i);
+        }
+        when(dao.loadAll(Launch.class, Arrays.asList(12L, 11L)))
+                .thenReturn(Arrays.asList(launches.get(1), launches.get(2)));
+        doAnswer(invocation -> {
+            Consumer<Launch> consumer = invocation.getArgument(2);
+            launches.forEach(consumer);
+            return null;
+        }).when(dao).forEach(eq(Launch.class), eq(LaunchColumns.LOAD_CHUNK_SIZE), any());
+
+        LaunchColumns columns = LaunchColumns.load(dao);
+        assertEquals(3, columns.liveCount());
+        assertEquals(11L, columns.id(1));
+        assertEquals(Launch.LaunchOutcome.FAILED, columns.outcome(2));
+        assertNull(columns.launch(1));
+
+        // The stored launches of a selection are loaded together, in row order of the selection
+        LaunchColumns.Selection selection = columns.select(new int[]{2, 1});
+        verify(dao, never()).loadAll(eq(Launch.class), anyCollection());
+        assertEquals(Arrays.asList(launches.get(2), launches.get(1)), selection.load());
+        verify(dao).loadAll(Launch.class, Arrays.asList(12L, 11L));
+        verify(dao, never()).load(eq(Launch.class), anyLong());
+        verify(dao, never()).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldBuildEmptyColumns() {
+        LaunchColumns columns = LaunchColumns.of(Collections.emptyList());
+        assertEquals(0, columns.size());
+        assertEquals(0, columns.vehicleDictionary().size());
+    }
+
+    @Test
+    public void shouldSelectTopKWithTiesGoingToLowerOrdinal() {
+        long[] scores = new long[]{5, 9, 5, TopK.ABSENT, 9, 1};
+        assertArrayEquals(new int[]{1, 4, 0}, TopK.select(scores.length, 3, i -> scores[i]));
+        assertArrayEquals(new int[]{1, 4, 0, 2, 5}, TopK.select(scores.length, 10, i -> scores[i]));
+        assertArrayEquals(new int[0], TopK.select(scores.length, 0, i -> scores[i]));
+    }
+}
@@ -0,0 +1,134 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static rockets.mining.LaunchCube.Axis;
+import static rockets.mining.LaunchCube.all;
+
+public class LaunchCubeUnitTest {
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider casc;
+    private Rocket falcon9;
+    private Rocket longMarch;
+    private LaunchColumns columns;
+    private LaunchCube cube;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        casc = new LaunchServiceProvider("CASC", 1999, "China");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        longMarch = new Rocket("Long March 3B", "China", casc);
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(1L, 2015, falcon9, "LEO", Launch.LaunchOutcome.SUCCESSFUL, 60),
+                createLaunch(2L, 2017, falcon9, "GTO", Launch.LaunchOutcome.FAILED, 60),
+                createLaunch(3L, 2017, longMarch, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 70),
+                createLaunch(4L, 2017, longMarch, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 70),
+                createLaunch(5L, 2018, falcon9, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 150)
+        ));
+        cube = new LaunchCube();
+        columns.addIndex(cube);
+    }
+
+    private Launch createLaunch(Long id, int year, Rocket rocket, String orbit, Launch.LaunchOutcome outcome, long price) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(LocalDate.of(year, 3, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setOrbit(orbit);
+        launch.setLaunchOutcome(outcome);
+        launch.setPrice(BigDecimal.valueOf(price));
+        return launch;
+    }
+
+    private int country(String country) {
+        return columns.countryDictionary().code(country);
+    }
+
+    private int orbit(String orbit) {
+        return columns.orbitDictionary().code(orbit);
+    }
+
+    private int provider(LaunchServiceProvider provider) {
+        return columns.providerDictionary().code(provider);
+    }
+
+    @Test
+    public void shouldAnswerSlicesFromSingleCells() {
+        assertEquals(5, cube.count(all()));
+        assertEquals(3, cube.count(all().year(2017)));
+        assertEquals(2, cube.count(all().country(country("China")).orbit(orbit("GTO"))));
+        assertEquals(1, cube.count(all().year(2017).outcome(Launch.LaunchOutcome.FAILED)));
+        assertEquals(columns.toFixedPoint(BigDecimal.valueOf(140)), cube.revenue(all().year(2017).provider(provider(casc))));
+        assertEquals(0, cube.count(all().year(2019)));
+        assertEquals(0, cube.count(all().year(-5)));
+    }
+
+    @Test
+    public void shouldReturnSuccessRateWithScaleTwo() {
+        assertEquals(new BigDecimal("0.67"), cube.successRate(all().year(2017)));
+        assertEquals(new BigDecimal("1.00"), cube.successRate(all().provider(provider(casc))));
+        assertThrows(IllegalArgumentException.class, () -> cube.successRate(all().year(2019)));
+        assertThrows(IllegalArgumentException.class, () -> cube.successRate(all().outcome(Launch.LaunchOutcome.FAILED)));
+    }
+
+    @Test
+    public void shouldRollUpAlongAnAxis() {
+        long[] countries = cube.countsBy(Axis.COUNTRY, all().orbit(orbit("GTO")));
+        assertEquals(2, countries[country("USA")]);
+        assertEquals(2, countries[country("China")]);
+
+        long[] years = cube.countsBy(Axis.YEAR, all());
+        assertArrayEquals(new long[]{1, 0, 3, 1}, years);
+
+        long[] revenue = cube.revenueBy(Axis.PROVIDER, all().year(2017));
+        assertEquals(columns.toFixedPoint(BigDecimal.valueOf(60)), revenue[provider(spacex)]);
+        assertThrows(IllegalArgumentException.class, () -> cube.countsBy(Axis.YEAR, all().year(2017)));
+    }
+
+    @Test
+    public void shouldSumYearRangesFromPrefixSums() {
+        assertEquals(4, cube.count(all(), 2016, 2018));
+        assertEquals(5, cube.count(all(), 1900, 3000));
+        assertEquals(0, cube.count(all(), 2018, 2016));
+        assertEquals(columns.toFixedPoint(BigDecimal.valueOf(210)), cube.revenue(all().provider(provider(spacex)), 2016, 2018));
+    }
+
+    @Test
+    public void shouldKeepLaunchesWithManyDistinctValues() {
+        for (int i = 0; i < 5000; i++) {
+            columns.upsert(createLaunch(100L + i, 2020, falcon9, "Orbit " + i, Launch.LaunchOutcome.SUCCESSFUL, 1));
+        }
+        columns.upsert(createLaunch(6000L, 100000, longMarch, "GTO", Launch.LaunchOutcome.FAILED, 1));
+
+        assertEquals(5006, cube.count(all()));
+        assertEquals(1, cube.count(all().orbit(orbit("Orbit 4999")).year(2020)));
+        assertEquals(1, cube.count(all().year(100000).provider(provider(casc))));
+        assertEquals(4, cube.count(all(), 2016, 2018));
+        assertEquals(0, cube.count(all().year(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void shouldMoveLaunchBetweenCellsOnUpdate() {
+        assertEquals(4, cube.count(all(), 2016, 2018));
+        columns.upsert(createLaunch(2L, 2019, falcon9, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 500));
+
+        assertEquals(new BigDecimal("1.00"), cube.successRate(all().year(2017)));
+        assertEquals(1, cube.count(all().year(2019)));
+        assertEquals(3, cube.count(all(), 2016, 2018));
+
+        assertTrue(columns.delete(createLaunch(2L, 2019, falcon9, "GTO", null, 0)));
+        assertEquals(0, cube.count(all().year(2019)));
+        assertEquals(4, cube.count(all()));
+    }
+}
@@ -0,0 +1,87 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchDateIndexUnitTest {
+    private LaunchColumns columns;
+    private LaunchDateIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(1L, LocalDate.of(2017, 5, 1)),
+                createLaunch(2L, LocalDate.of(2018, 1, 1)),
+                createLaunch(3L, LocalDate.of(2017, 5, 1)),
+                createLaunch(4L, LocalDate.of(2016, 3, 15)),
+                createLaunch(5L, LocalDate.of(2017, 12, 31))
+        ));
+        index = new LaunchDateIndex();
+        columns.addIndex(index);
+    }
+
+    private Launch createLaunch(Long id, LocalDate date) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(date);
+        launch.setOrbit("LEO");
+        return launch;
+    }
+
+    private static List<Integer> toList(PrimitiveIterator.OfInt rows) {
+        List<Integer> list = new ArrayList<>();
+        rows.forEachRemaining((int row) -> list.add(row));
+        return list;
+    }
+
+    @Test
+    public void shouldReturnMostRecentWithTiesInRowOrder() {
+        assertArrayEquals(new int[]{1, 4, 0, 2, 3}, index.mostRecent(5));
+        assertArrayEquals(new int[]{1, 4, 0}, index.mostRecent(3));
+        assertArrayEquals(new int[]{1, 4, 0, 2, 3}, index.mostRecent(10));
+        assertArrayEquals(new int[0], index.mostRecent(0));
+    }
+
+    @Test
+    public void shouldIterateDateRangeInclusively() {
+        assertEquals(Arrays.asList(0, 2, 4), toList(index.between(LocalDate.of(2017, 5, 1), LocalDate.of(2017, 12, 31))));
+        assertEquals(Arrays.asList(3, 0, 2, 4, 1), toList(index.between(LocalDate.MIN, LocalDate.MAX)));
+        assertTrue(toList(index.between(LocalDate.of(2019, 1, 1), LocalDate.of(2020, 1, 1))).isEmpty());
+        assertTrue(toList(index.between(LocalDate.of(2018, 1, 1), LocalDate.of(2017, 1, 1))).isEmpty());
+    }
+
+    @Test
+    public void shouldFollowInsertsUpdatesAndDeletes() {
+        int row = columns.upsert(createLaunch(6L, LocalDate.of(2019, 2, 2)));
+        assertEquals(row, index.mostRecent(1)[0]);
+
+        columns.upsert(createLaunch(6L, LocalDate.of(2015, 1, 1)));
+        assertEquals(1, index.mostRecent(1)[0]);
+        assertEquals(row, toList(index.between(LocalDate.of(2015, 1, 1), LocalDate.of(2015, 1, 1))).get(0).intValue());
+
+        columns.delete(createLaunch(2L, null));
+        assertEquals(4, index.mostRecent(1)[0]);
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void shouldBuildInBulkInTheOrderOfSingleInserts() {
+        LaunchDateIndex inserted = new LaunchDateIndex();
+        inserted.attach(columns);
+        for (int row = columns.size() - 1; row >= 0; row--) {
+            inserted.add(row);
+        }
+        assertArrayEquals(inserted.mostRecent(5), index.mostRecent(5));
+        assertEquals(toList(inserted.between(LocalDate.MIN, LocalDate.MAX)),
+                toList(index.between(LocalDate.MIN, LocalDate.MAX)));
+    }
+}
@@ -0,0 +1,109 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchGraphUnitTest {
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider ula;
+    private LaunchServiceProvider rocketLab;
+    private Rocket falcon9;
+    private Rocket falconHeavy;
+    private Rocket atlas;
+    private Rocket electron;
+    private LaunchGraph graph;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        ula = new LaunchServiceProvider("ULA", 2006, "USA");
+        rocketLab = new LaunchServiceProvider("Rocket Lab", 2006, "NZ");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        falconHeavy = new Rocket("Falcon Heavy", "USA", spacex);
+        atlas = new Rocket("Atlas V", "USA", ula);
+        electron = new Rocket("Electron", "NZ", rocketLab);
+        graph = LaunchGraph.of(Arrays.asList(
+                createLaunch(1L, falcon9, "CCAFS", "LEO"),
+                createLaunch(2L, atlas, "CCAFS", "GTO"),
+                createLaunch(3L, falconHeavy, "KSC", "GTO"),
+                createLaunch(4L, electron, "Mahia", "SSO"),
+                createLaunch(5L, falcon9, "VAFB", "SSO"),
+                createLaunch(6L, atlas, "VAFB", "LEO")
+        ));
+    }
+
+    private Launch createLaunch(Long id, Rocket rocket, String site, String orbit) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(LocalDate.of(2018, 1, id.intValue()));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setLaunchSite(site);
+        launch.setOrbit(orbit);
+        return launch;
+    }
+
+    private List<Long> launchesOf(LaunchServiceProvider provider) {
+        List<Long> ids = new ArrayList<>();
+        graph.forEachLaunchOfProvider(graph.providerNode(provider), launch -> ids.add(graph.launchId(launch)));
+        return ids;
+    }
+
+    @Test
+    public void shouldNumberNodesDensely() {
+        assertEquals(3, graph.providerCount());
+        assertEquals(4, graph.rocketCount());
+        assertEquals(6, graph.launchCount());
+        assertEquals(4, graph.siteCount());
+        assertEquals(3, graph.orbitCount());
+        assertEquals(spacex, graph.provider(graph.providerNode(spacex)));
+        assertEquals(LaunchGraph.NO_NODE, graph.providerNode(new LaunchServiceProvider("ESA", 1975, "Europe")));
+    }
+
+    @Test
+    public void shouldTraverseProviderRocketsAndLaunches() {
+        assertEquals(Arrays.asList(1L, 5L, 3L), launchesOf(spacex));
+        assertEquals(Arrays.asList(2L, 6L), launchesOf(ula));
+        assertEquals(3, graph.launchCountOfProvider(graph.providerNode(spacex)));
+        assertEquals(graph.providerNode(ula), graph.providerOfRocket(graph.rocketOfLaunch(1)));
+    }
+
+    @Test
+    public void shouldFindProvidersSharingLaunchSites() {
+        assertArrayEquals(new int[]{graph.providerNode(ula)}, graph.providersSharingSites(graph.providerNode(spacex)));
+        assertArrayEquals(new int[0], graph.providersSharingSites(graph.providerNode(rocketLab)));
+    }
+
+    @Test
+    public void shouldCountOrbitMixPerManufacturer() {
+        long[] mix = graph.orbitMix(graph.providerNode(spacex));
+        assertEquals(3, mix.length);
+        assertEquals(1, mix[0]);
+        assertEquals(1, mix[1]);
+        assertEquals(1, mix[2]);
+        assertEquals("GTO", graph.orbit(1));
+    }
+
+    @Test
+    public void shouldTraverseProvidersInParallel() {
+        List<Integer> counts = graph.mapProviders(graph::launchCountOfProvider);
+        assertEquals(Arrays.asList(3, 2, 1), counts);
+    }
+
+    @Test
+    public void shouldReportMemoryFootprint() {
+        long empty = LaunchGraph.of(new ArrayList<>()).memoryFootprint();
+        assertTrue(empty > 0);
+        assertTrue(graph.memoryFootprint() > empty + 6 * (8 + 4 * 3));
+    }
+}
@@ -0,0 +1,60 @@
+package rockets.mining;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+import rockets.mining.sketch.SpaceSaving;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchHeavyHittersUnitTest {
+    private final LaunchServiceProvider spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+    private final LaunchServiceProvider casc = new LaunchServiceProvider("CASC", 1999, "China");
+    private final Rocket falcon9 = new Rocket("Falcon 9", "USA", spacex);
+    private final Rocket longMarch = new Rocket("Long March 3B", "China", casc);
+
+    private Launch createLaunch(Rocket rocket, String site, String... payloads) {
+        Launch launch = new Launch();
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setLaunchSite(site);
+        launch.setPayload(Sets.newHashSet(payloads));
+        return launch;
+    }
+
+    @Test
+    public void shouldTrackEachKeyOfTheLaunchStream() {
+        LaunchHeavyHitters hitters = new LaunchHeavyHitters(8);
+        for (int i = 0; i < 5; i++) {
+            hitters.accept(createLaunch(falcon9, "Cape Canaveral", "Starlink", "Starlink-" + i));
+        }
+        hitters.accept(createLaunch(longMarch, "Xichang", "Beidou"));
+
+        List<SpaceSaving.Entry<Rocket>> rockets = hitters.topRockets(2);
+        assertEquals(falcon9, rockets.get(0).getItem());
+        assertEquals(5, rockets.get(0).getCount());
+        assertEquals(longMarch, rockets.get(1).getItem());
+        assertEquals(spacex, hitters.topLaunchServiceProviders(1).get(0).getItem());
+        assertEquals("Cape Canaveral", hitters.topLaunchSites(1).get(0).getItem());
+        assertEquals("Starlink", hitters.topPayloads(1).get(0).getItem());
+        assertEquals(5, hitters.topPayloads(1).get(0).getCount());
+    }
+
+    @Test
+    public void shouldMergeFeeders() {
+        LaunchHeavyHitters first = new LaunchHeavyHitters(8);
+        LaunchHeavyHitters second = new LaunchHeavyHitters(8);
+        first.accept(createLaunch(falcon9, "Cape Canaveral"));
+        second.accept(createLaunch(longMarch, "Xichang"));
+        second.accept(createLaunch(longMarch, "Xichang"));
+        first.merge(second);
+
+        assertEquals(longMarch, first.topRockets(1).get(0).getItem());
+        assertEquals(2, first.topLaunchSites(2).size());
+        assertTrue(first.topPayloads(1).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package rockets.mining;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchPayloadIndexUnitTest {
+    private LaunchColumns columns;
+    private LaunchPayloadIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(30L, "Starlink-1", "Starlink-2"),
+                createLaunch(10L, "Dragon", "Starlink-1 "),
+                createLaunch(20L, "dragon", "BlueWalker"),
+                createLaunch(null, "Dragon", "Cygnus")
+        ));
+        index = new LaunchPayloadIndex();
+        columns.addIndex(index);
+    }
+
+    private Launch createLaunch(Long id, String... payloads) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setPayload(Sets.newHashSet(payloads));
+        return launch;
+    }
+
+    private long[] ids(int[] rows) {
+        return Arrays.stream(rows).mapToLong(columns::id).toArray();
+    }
+
+    @Test
+    public void shouldListLaunchesOfNormalizedTermInIdOrder() {
+        assertArrayEquals(new long[]{10L, 20L, LaunchColumns.NO_ID}, ids(index.rows(" DRAGON")));
+        assertArrayEquals(new long[]{10L, 30L}, ids(index.rows("starlink-1")));
+        assertEquals(0, index.rows("Soyuz").length);
+        assertEquals(5, index.termCount());
+    }
+
+    @Test
+    public void shouldMergePostingsOfEveryTermWithPrefix() {
+        assertArrayEquals(new long[]{10L, 30L}, ids(index.rowsWithPrefix("Starlink")));
+        assertEquals(Arrays.asList("starlink-1", "starlink-2"), index.termsWithPrefix("star"));
+        assertEquals(4, index.rowsWithPrefix("").length);
+        assertEquals(0, index.rowsWithPrefix("zz").length);
+    }
+
+    @Test
+    public void shouldCountPayloadsFlownTogether() {
+        assertEquals(1, index.coOccurrences("starlink-1", "Starlink-2"));
+        assertEquals(1, index.coOccurrences("Dragon", "cygnus"));
+        assertEquals(0, index.coOccurrences("Dragon", "Starlink-2"));
+        assertEquals(Arrays.asList("bluewalker", "cygnus"), index.mostCoOccurring("dragon", 2));
+        assertEquals(Arrays.asList("dragon", "starlink-2"), index.mostCoOccurring("starlink-1", 5));
+    }
+
+    @Test
+    public void shouldUpdatePostingsAndMatrixOnWrites() {
+        columns.upsert(createLaunch(10L, "Dragon", "Cygnus"));
+        assertArrayEquals(new long[]{30L}, ids(index.rows("starlink-1")));
+        assertEquals(2, index.coOccurrences("dragon", "cygnus"));
+        assertEquals(Arrays.asList("cygnus", "bluewalker"), index.mostCoOccurring("dragon", 2));
+
+        columns.delete(createLaunch(30L));
+        assertEquals(0, index.rowsWithPrefix("starlink").length);
+        assertEquals(0, index.coOccurrences("starlink-1", "starlink-2"));
+    }
+}
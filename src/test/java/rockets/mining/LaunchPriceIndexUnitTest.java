@@ -0,0 +1,105 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchPriceIndexUnitTest {
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider ula;
+    private LaunchColumns columns;
+    private LaunchPriceIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        ula = new LaunchServiceProvider("ULA", 2006, "USA");
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(5L, 2017, spacex, "60"),
+                createLaunch(2L, 2018, ula, "150"),
+                createLaunch(3L, 2017, spacex, "60"),
+                createLaunch(4L, 2017, ula, "99.99"),
+                createLaunch(1L, 2018, spacex, "250.50")
+        ));
+        index = new LaunchPriceIndex();
+        columns.addIndex(index);
+    }
+
+    private Launch createLaunch(Long id, int year, LaunchServiceProvider provider, String price) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(LocalDate.of(year, 3, 1));
+        launch.setLaunchServiceProvider(provider);
+        launch.setOrbit("LEO");
+        launch.setPrice(new BigDecimal(price));
+        return launch;
+    }
+
+    private static List<Integer> toList(PrimitiveIterator.OfInt rows) {
+        List<Integer> list = new ArrayList<>();
+        rows.forEachRemaining((int row) -> list.add(row));
+        return list;
+    }
+
+    private long price(String price) {
+        return columns.toFixedPoint(new BigDecimal(price));
+    }
+
+    @Test
+    public void shouldReturnMostExpensiveWithTiesInIdOrder() {
+        assertArrayEquals(new int[]{4, 1, 3, 2, 0}, index.mostExpensive(5));
+        assertArrayEquals(new int[]{4, 1}, index.mostExpensive(2));
+        assertArrayEquals(new int[0], index.mostExpensive(0));
+    }
+
+    @Test
+    public void shouldFilterByYearAndProvider() {
+        assertArrayEquals(new int[]{3, 2, 0}, index.mostExpensiveInYear(2017, 10));
+        assertArrayEquals(new int[]{4, 2}, index.mostExpensiveOfProvider(columns.providerDictionary().code(spacex), 2));
+        assertArrayEquals(new int[0], index.mostExpensiveInYear(2019, 3));
+    }
+
+    @Test
+    public void shouldIteratePriceRangeInclusively() {
+        assertEquals(Arrays.asList(1, 3, 2, 0), toList(index.between(price("60"), price("150"))));
+        assertEquals(Arrays.asList(4, 1, 3, 2, 0), toList(index.between(Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(3), toList(index.betweenInYear(2017, price("61"), price("1000"))));
+        assertEquals(Arrays.asList(1), toList(index.betweenOfProvider(columns.providerDictionary().code(ula), price("100"), price("200"))));
+        assertTrue(toList(index.between(price("300"), price("100"))).isEmpty());
+    }
+
+    @Test
+    public void shouldFollowPriceChangesAndDeletes() {
+        int row = columns.upsert(createLaunch(3L, 2017, spacex, "1000"));
+        assertEquals(2, row);
+        assertArrayEquals(new int[]{2, 4}, index.mostExpensive(2));
+        assertArrayEquals(new int[]{2, 3, 0}, index.mostExpensiveInYear(2017, 3));
+
+        columns.delete(createLaunch(1L, 2018, spacex, "250.50"));
+        assertArrayEquals(new int[]{2, 1}, index.mostExpensive(2));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void shouldBuildInBulkInTheOrderOfSingleInserts() {
+        LaunchPriceIndex inserted = new LaunchPriceIndex();
+        inserted.attach(columns);
+        for (int row = columns.size() - 1; row >= 0; row--) {
+            inserted.add(row);
+        }
+        assertArrayEquals(inserted.mostExpensive(5), index.mostExpensive(5));
+        assertArrayEquals(inserted.mostExpensiveInYear(2017, 5), index.mostExpensiveInYear(2017, 5));
+        assertArrayEquals(inserted.mostExpensiveOfProvider(columns.providerDictionary().code(ula), 5),
+                index.mostExpensiveOfProvider(columns.providerDictionary().code(ula), 5));
+    }
+}
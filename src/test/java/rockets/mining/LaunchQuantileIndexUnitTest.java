@@ -0,0 +1,103 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchQuantileIndexUnitTest {
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider casc;
+    private Rocket falcon9;
+    private Rocket longMarch;
+    private LaunchColumns columns;
+    private LaunchQuantileIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        casc = new LaunchServiceProvider("CASC", 1999, "China");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        longMarch = new Rocket("Long March 3B", "China", casc);
+        List<Launch> launches = new ArrayList<>();
+        // SpaceX charges 1..100 in 2017 and 101..200 in 2018
+        for (int i = 1; i <= 200; i++) {
+            launches.add(createLaunch((long) i, i <= 100 ? 2017 : 2018, falcon9, BigDecimal.valueOf(i)));
+        }
+        launches.add(createLaunch(1000L, 2017, longMarch, BigDecimal.valueOf(70)));
+        launches.add(createLaunch(1001L, 2017, longMarch, null));
+        columns = LaunchColumns.of(launches);
+        index = new LaunchQuantileIndex();
+        columns.addIndex(index);
+    }
+
+    private Launch createLaunch(Long id, int year, Rocket rocket, BigDecimal price) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(LocalDate.of(year, 1, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setPrice(price);
+        return launch;
+    }
+
+    private int provider(LaunchServiceProvider provider) {
+        return columns.providerDictionary().code(provider);
+    }
+
+    private static double fixedPoint(double price) {
+        return price * 100;
+    }
+
+    @Test
+    public void shouldAnswerQuantilesPerProviderAndYear() {
+        double[] quantiles = index.quantiles(provider(spacex), 2017, 0.5, 0.9);
+        assertEquals(fixedPoint(50.5), quantiles[0], fixedPoint(1));
+        assertEquals(fixedPoint(90.5), quantiles[1], fixedPoint(1));
+        // launches without a price are left out
+        assertArrayEquals(new double[]{fixedPoint(70)}, index.quantiles(provider(casc), 2017, 0.5));
+        assertEquals(0, index.quantiles(provider(casc), 2018, 0.5).length);
+    }
+
+    @Test
+    public void shouldMergeYearsOfAProvider() {
+        double[] quantiles = index.quantilesBetween(provider(spacex), 2000, 2030, 0.5, 1);
+        assertEquals(fixedPoint(100.5), quantiles[0], fixedPoint(2));
+        assertEquals(fixedPoint(200), quantiles[1], 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> index.quantilesBetween(provider(spacex), 2018, 2017, 0.5));
+    }
+
+    @Test
+    public void shouldRebuildGroupsAfterRemoval() {
+        columns.upsert(createLaunch(100L, 2017, falcon9, BigDecimal.valueOf(10000)));
+        columns.delete(createLaunch(1000L, 2017, longMarch, null));
+        assertEquals(fixedPoint(10000), index.quantiles(provider(spacex), 2017, 1)[0], 1e-9);
+        assertEquals(fixedPoint(90.5), index.quantiles(provider(spacex), 2017, 0.9)[0], fixedPoint(1));
+        assertEquals(0, index.quantiles(provider(casc), 2017, 0.5).length);
+    }
+
+    @Test
+    public void shouldKeepFreeLaunchesInTheDistribution() {
+        columns.upsert(createLaunch(2000L, 2019, longMarch, BigDecimal.ZERO));
+        columns.upsert(createLaunch(2001L, 2019, longMarch, BigDecimal.ZERO));
+        columns.upsert(createLaunch(2002L, 2019, longMarch, BigDecimal.valueOf(30)));
+        assertArrayEquals(new double[]{0, fixedPoint(30)}, index.quantiles(provider(casc), 2019, 0, 1), 1e-9);
+
+        // A price edit leaves the group's other launches in place
+        columns.upsert(createLaunch(2002L, 2019, longMarch, BigDecimal.ZERO));
+        assertArrayEquals(new double[]{0, 0}, index.quantiles(provider(casc), 2019, 0, 1), 1e-9);
+        columns.upsert(createLaunch(2002L, 2019, longMarch, null));
+        columns.delete(createLaunch(2000L, 2019, longMarch, null));
+        columns.delete(createLaunch(2001L, 2019, longMarch, null));
+        assertEquals(0, index.quantiles(provider(casc), 2019, 0.5).length);
+        assertEquals(fixedPoint(50.5), index.quantiles(provider(spacex), 2017, 0.5)[0], fixedPoint(1));
+    }
+}
@@ -0,0 +1,110 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static rockets.mining.LaunchQuery.Aggregate;
+import static rockets.mining.LaunchQuery.Condition;
+import static rockets.mining.LaunchQuery.Dimension;
+import static rockets.mining.LaunchQuery.Result;
+
+public class LaunchQueryUnitTest {
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider casc;
+    private Rocket falcon9;
+    private Rocket longMarch;
+    private LaunchColumns columns;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        casc = new LaunchServiceProvider("CASC", 1999, "China");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        longMarch = new Rocket("Long March 3B", "China", casc);
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(1L, 2014, falcon9, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 60),
+                createLaunch(2L, 2016, falcon9, "GTO", Launch.LaunchOutcome.FAILED, 60),
+                createLaunch(3L, 2017, falcon9, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 62),
+                createLaunch(4L, 2017, longMarch, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 70),
+                createLaunch(5L, 2018, longMarch, "GTO", Launch.LaunchOutcome.SUCCESSFUL, 70),
+                createLaunch(6L, 2018, longMarch, "LEO", Launch.LaunchOutcome.FAILED, 30),
+                createLaunch(7L, 2018, falcon9, "LEO", Launch.LaunchOutcome.SUCCESSFUL, 50)
+        ));
+    }
+
+    private Launch createLaunch(Long id, int year, Rocket rocket, String orbit, Launch.LaunchOutcome outcome, long price) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(LocalDate.of(year, 6, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setOrbit(orbit);
+        launch.setLaunchOutcome(outcome);
+        launch.setPrice(BigDecimal.valueOf(price));
+        return launch;
+    }
+
+    @Test
+    public void shouldRankCountriesBySuccessfulLaunchesInOrbitSinceYear() {
+        List<Result<String, Long>> results = LaunchQuery.groupBy(Dimension.COUNTRY)
+                .where(Condition.orbit("GTO"))
+                .where(Condition.outcome(Launch.LaunchOutcome.SUCCESSFUL))
+                .where(Condition.yearFrom(2015))
+                .execute(columns);
+        assertEquals(Arrays.asList(new Result<>("China", 2L), new Result<>("USA", 1L)), results);
+    }
+
+    @Test
+    public void shouldRankProvidersByFailureRatioInOrbit() {
+        List<Result<LaunchServiceProvider, BigDecimal>> results = LaunchQuery.groupBy(Dimension.PROVIDER)
+                .where(Condition.orbit("GTO"))
+                .aggregate(Aggregate.FAILURE_RATIO)
+                .execute(columns);
+        assertEquals(Arrays.asList(new Result<>(spacex, new BigDecimal("0.33")), new Result<>(casc, new BigDecimal("0.00"))), results);
+    }
+
+    @Test
+    public void shouldSumPricesPerYearAndKeepTopK() {
+        List<Result<Integer, Money>> results = LaunchQuery.groupBy(Dimension.YEAR)
+                .aggregate(Aggregate.SUM_PRICE)
+                .top(2)
+                .execute(columns);
+        assertEquals(Arrays.asList(new Result<>(2018, Money.of(BigDecimal.valueOf(150))),
+                new Result<>(2017, Money.of(BigDecimal.valueOf(132)))), results);
+    }
+
+    @Test
+    public void shouldReturnNoGroupsForUnknownValues() {
+        assertTrue(LaunchQuery.groupBy(Dimension.VEHICLE).where(Condition.orbit("HEO")).execute(columns).isEmpty());
+        assertTrue(LaunchQuery.groupBy(Dimension.VEHICLE).top(0).execute(columns).isEmpty());
+    }
+
+    @Test
+    public void shouldExplainPlan() {
+        String plan = LaunchQuery.groupBy(Dimension.COUNTRY)
+                .where(Condition.orbit("GTO"))
+                .where(Condition.yearFrom(2015))
+                .aggregate(Aggregate.SUCCESS_RATIO)
+                .top(3)
+                .explain();
+        assertTrue(plan.startsWith("Fused scan over live launch rows"));
+        assertTrue(plan.contains("filter: orbit = GTO and year >= 2015"));
+        assertTrue(plan.contains("group by: country"));
+        assertTrue(plan.contains("aggregate: success ratio"));
+        assertTrue(plan.contains("limit: 3"));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> LaunchQuery.groupBy(Dimension.ORBIT).top(-1));
+    }
+}
@@ -0,0 +1,151 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchWindowIndexUnitTest {
+    private static final LocalDate TODAY = LocalDate.of(2018, 6, 30);
+
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider casc;
+    private Rocket falcon9;
+    private Rocket longMarch;
+    private MutableClock clock;
+    private LaunchColumns columns;
+    private LaunchWindowIndex index;
+
+    // A clock that tests can move forward a day at a time
+    private static class MutableClock extends Clock {
+        private LocalDate date;
+
+        MutableClock(LocalDate date) {
+            this.date = date;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        casc = new LaunchServiceProvider("CASC", 1999, "China");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        longMarch = new Rocket("Long March 3B", "China", casc);
+        columns = LaunchColumns.of(Arrays.asList(
+                createLaunch(1L, TODAY.minusDays(400), falcon9, Launch.LaunchOutcome.SUCCESSFUL),
+                createLaunch(2L, TODAY.minusDays(200), falcon9, Launch.LaunchOutcome.SUCCESSFUL),
+                createLaunch(3L, TODAY.minusDays(60), falcon9, Launch.LaunchOutcome.FAILED),
+                createLaunch(4L, TODAY.minusDays(30), longMarch, Launch.LaunchOutcome.SUCCESSFUL),
+                createLaunch(5L, TODAY.minusDays(10), longMarch, Launch.LaunchOutcome.SUCCESSFUL),
+                createLaunch(6L, TODAY, falcon9, Launch.LaunchOutcome.SUCCESSFUL),
+                createLaunch(7L, TODAY.plusDays(5), longMarch, Launch.LaunchOutcome.SUCCESSFUL)
+        ));
+        clock = new MutableClock(TODAY);
+        index = new LaunchWindowIndex(clock);
+        columns.addIndex(index);
+    }
+
+    private Launch createLaunch(Long id, LocalDate date, Rocket rocket, Launch.LaunchOutcome outcome) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchDate(date);
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setLaunchOutcome(outcome);
+        return launch;
+    }
+
+    private int vehicle(Rocket rocket) {
+        return columns.vehicleDictionary().code(rocket);
+    }
+
+    private int provider(LaunchServiceProvider provider) {
+        return columns.providerDictionary().code(provider);
+    }
+
+    @Test
+    public void shouldCountLaunchesInTrailingWindows() {
+        assertEquals(3, index.vehicleLaunches(365)[vehicle(falcon9)]);
+        assertEquals(2, index.vehicleSuccesses(365)[vehicle(falcon9)]);
+        assertEquals(2, index.vehicleLaunches(90)[vehicle(falcon9)]);
+        assertEquals(1, index.vehicleSuccesses(90)[vehicle(falcon9)]);
+        assertEquals(1, index.vehicleLaunches(1)[vehicle(falcon9)]);
+        // launches after today are not counted
+        assertEquals(2, index.providerLaunches(90)[provider(casc)]);
+        assertEquals(2, index.providerSuccesses(90)[provider(casc)]);
+        assertEquals(1, index.providerLaunches(20)[provider(casc)]);
+    }
+
+    @Test
+    public void shouldExpireBucketsThatFallOutOfTheWindow() {
+        clock.date = TODAY.plusDays(25);
+        assertEquals(1, index.providerLaunches(40)[provider(casc)]);
+        assertEquals(0, index.providerLaunches(30)[provider(casc)]);
+
+        // a write after the clock moved lands in a recycled slot
+        columns.upsert(createLaunch(8L, TODAY.plusDays(25), longMarch, Launch.LaunchOutcome.FAILED));
+        assertEquals(1, index.providerLaunches(1)[provider(casc)]);
+        assertEquals(0, index.providerSuccesses(1)[provider(casc)]);
+
+        clock.date = TODAY.plusDays(400);
+        assertEquals(0, index.vehicleLaunches(index.maxWindowDays())[vehicle(falcon9)]);
+    }
+
+    @Test
+    public void shouldMoveLaunchesBetweenBucketsOnUpdate() {
+        Launch moved = createLaunch(2L, TODAY.minusDays(5), falcon9, Launch.LaunchOutcome.FAILED);
+        columns.upsert(moved);
+        assertEquals(2, index.vehicleLaunches(30)[vehicle(falcon9)]);
+        assertEquals(1, index.vehicleSuccesses(365)[vehicle(falcon9)]);
+
+        columns.delete(moved);
+        assertEquals(2, index.vehicleLaunches(365)[vehicle(falcon9)]);
+    }
+
+    @Test
+    public void shouldIgnoreRemovalOfALaunchThatWasNotCounted() {
+        // Launch 7 was in the future when indexed; once its day comes another launch opens the bucket
+        clock.date = TODAY.plusDays(5);
+        columns.upsert(createLaunch(8L, TODAY.plusDays(5), longMarch, Launch.LaunchOutcome.SUCCESSFUL));
+        assertEquals(1, index.providerLaunches(1)[provider(casc)]);
+
+        columns.delete(createLaunch(7L, TODAY.plusDays(5), longMarch, null));
+        assertEquals(1, index.providerLaunches(1)[provider(casc)]);
+        assertEquals(1, index.providerSuccesses(1)[provider(casc)]);
+    }
+
+    @Test
+    public void shouldRoundWindowsUpToWholeBuckets() {
+        LaunchWindowIndex monthly = new LaunchWindowIndex(clock, 30, 24);
+        columns.addIndex(monthly);
+        assertEquals(720, monthly.maxWindowDays());
+        assertEquals(4, monthly.vehicleLaunches(720)[vehicle(falcon9)]);
+        assertThrows(IllegalArgumentException.class, () -> monthly.vehicleLaunches(721));
+        assertThrows(IllegalArgumentException.class, () -> index.vehicleLaunches(0));
+    }
+}
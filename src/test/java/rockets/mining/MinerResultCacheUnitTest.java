@@ -0,0 +1,120 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DataVersion;
+import rockets.model.Launch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinerResultCacheUnitTest {
+    private DataVersion dataVersion;
+    private MinerResultCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    public void setUp() {
+        dataVersion = new DataVersion();
+        cache = new MinerResultCache(dataVersion, 2);
+        computations = new AtomicInteger();
+    }
+
+    private String compute(String value) {
+        computations.incrementAndGet();
+        return value;
+    }
+
+    @Test
+    public void shouldServeRepeatedCallsFromCache() {
+        assertEquals("Japan", cache.get("dominantCountry", () -> compute("Japan"), "LEO"));
+        assertEquals("Japan", cache.get("dominantCountry", () -> compute("Japan"), "LEO"));
+        assertEquals(1, computations.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    public void shouldKeyOnMethodAndArguments() {
+        cache.get("dominantCountry", () -> compute("Japan"), "LEO");
+        cache.get("dominantCountry", () -> compute("USA"), "GTO");
+        cache.get("launchesFromCountry", () -> compute("x"), "LEO");
+        assertEquals(3, computations.get());
+    }
+
+    @Test
+    public void shouldRecomputeAfterDataVersionChanges() {
+        cache.get("mostLaunchedRockets", () -> compute("a"), 10);
+        dataVersion.onCreateOrUpdate(new Launch());
+        assertEquals("b", cache.get("mostLaunchedRockets", () -> compute("b"), 10));
+        assertEquals(2, computations.get());
+        assertEquals("b", cache.get("mostLaunchedRockets", () -> compute("c"), 10));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() {
+        cache.get("m", () -> compute("1"), 1);
+        cache.get("m", () -> compute("2"), 2);
+        cache.get("m", () -> compute("1"), 1);
+        cache.get("m", () -> compute("3"), 3);
+        assertEquals(2, cache.size());
+        cache.get("m", () -> compute("1"), 1);
+        assertEquals(3, computations.get());
+        cache.get("m", () -> compute("2"), 2);
+        assertEquals(4, computations.get());
+    }
+
+    @Test
+    public void shouldNotCacheFailures() {
+        assertThrows(IllegalArgumentException.class, () -> cache.get("m", () -> {
+            throw new IllegalArgumentException("There are no rockets in this orbit.");
+        }, "HEO"));
+        assertEquals(0, cache.size());
+        assertEquals("ok", cache.get("m", () -> compute("ok"), "HEO"));
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentMisses() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("slow", () -> {
+                started.countDown();
+                await(release);
+                return compute("done");
+            })));
+            started.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get("slow", () -> compute("again"))));
+            }
+            // Give the waiters time to reach the in-flight entry
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("done", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
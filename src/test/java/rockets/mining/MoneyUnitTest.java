@@ -0,0 +1,48 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyUnitTest {
+    @Test
+    public void shouldConvertExactlyToAndFromBigDecimal() {
+        Money money = Money.of(new BigDecimal("1234.5"));
+        assertEquals(123450L, money.getMinorUnits());
+        assertEquals(2, money.getScale());
+        assertEquals(new BigDecimal("1234.50"), money.toBigDecimal());
+        assertEquals("1234.50", money.toString());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenPrecisionWouldBeLost() {
+        ArithmeticException exception = assertThrows(ArithmeticException.class,
+                () -> Money.of(new BigDecimal("0.001")));
+        assertEquals("amount 0.001 has more than 2 fractional digits", exception.getMessage());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenAmountOverflows() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1e17")));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+        Money max = Money.ofMinorUnits(Long.MAX_VALUE, 2);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinorUnits(1, 2)));
+    }
+
+    @Test
+    public void shouldAddAndCompareAmountsOfTheSameScale() {
+        Money sum = Money.of(new BigDecimal("0.10")).plus(Money.of(new BigDecimal("0.20")));
+        assertEquals(Money.of(new BigDecimal("0.3")), sum);
+        assertTrue(sum.compareTo(Money.of(BigDecimal.ONE)) < 0);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenScalesDiffer() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Money.of(BigDecimal.ONE, 2).plus(Money.of(BigDecimal.ONE, 3)));
+        assertEquals("cannot add amounts of different scale", exception.getMessage());
+    }
+}
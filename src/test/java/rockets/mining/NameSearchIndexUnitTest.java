@@ -0,0 +1,120 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class NameSearchIndexUnitTest {
+    private DAO dao;
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider casc;
+    private Rocket falcon9;
+    private Rocket falconHeavy;
+    private Rocket longMarch;
+    private NameSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        dao = mock(Neo4jDAO.class);
+        spacex = provider(1L, "SpaceX");
+        casc = provider(2L, "CASC");
+        falcon9 = rocket(3L, "Falcon 9", spacex);
+        falconHeavy = rocket(4L, "Falcon Heavy", spacex);
+        longMarch = rocket(5L, "Long March 3B", casc);
+        List<Launch> launches = Arrays.asList(
+                createLaunch(10L, falcon9, "Cape Canaveral"),
+                createLaunch(11L, falcon9, "Cape Canaveral"),
+                createLaunch(12L, falcon9, "Vandenberg"),
+                createLaunch(13L, falconHeavy, "Kennedy"),
+                createLaunch(14L, longMarch, "Xichang"),
+                createLaunch(15L, longMarch, "Xichang")
+        );
+        when(dao.loadAll(Rocket.class)).thenReturn(Arrays.asList(falcon9, falconHeavy, longMarch));
+        when(dao.loadAll(LaunchServiceProvider.class)).thenReturn(Arrays.asList(spacex, casc));
+        doAnswer(invocation -> {
+            Consumer<Launch> consumer = invocation.getArgument(2);
+            launches.forEach(consumer);
+            return null;
+        }).when(dao).forEach(eq(Launch.class), anyInt(), any());
+        index = NameSearchIndex.build(dao);
+    }
+
+    private LaunchServiceProvider provider(Long id, String name) {
+        LaunchServiceProvider provider = new LaunchServiceProvider(name, 2000, "USA");
+        provider.setId(id);
+        return provider;
+    }
+
+    private Rocket rocket(Long id, String name, LaunchServiceProvider manufacturer) {
+        Rocket rocket = new Rocket(name, "USA", manufacturer);
+        rocket.setId(id);
+        return rocket;
+    }
+
+    private Launch createLaunch(Long id, Rocket rocket, String site) {
+        Launch launch = new Launch();
+        launch.setId(id);
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        launch.setLaunchSite(site);
+        return launch;
+    }
+
+    private List<String> names(List<NameSearchIndex.Match> matches) {
+        return matches.stream().map(NameSearchIndex.Match::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldRankPrefixMatchesByLaunchCount() {
+        verify(dao).addListener(index);
+        assertEquals(Arrays.asList("Falcon 9", "Falcon Heavy"), names(index.search("fal", 5)));
+        NameSearchIndex.Match first = index.search("fal", 1).get(0);
+        assertEquals(NameSearchIndex.Kind.ROCKET, first.getKind());
+        assertEquals(Long.valueOf(3L), first.getId());
+        assertEquals(3, first.getLaunchCount());
+        assertEquals(Arrays.asList("SpaceX", "Falcon 9", "Cape Canaveral"), names(index.search("", 3)));
+        assertTrue(index.search("soyuz", 5).isEmpty());
+        assertEquals(9, index.size());
+    }
+
+    @Test
+    public void shouldMatchEveryWordOfAName() {
+        assertEquals(Arrays.asList("Long March 3B"), names(index.search("MARCH", 5)));
+        assertEquals(Arrays.asList("Cape Canaveral"), names(index.search("canav", 5)));
+        assertEquals(Arrays.asList("Falcon Heavy"), names(index.search("heavy", 5)));
+        assertThrows(IllegalArgumentException.class, () -> index.search("fal", NameSearchIndex.MAX_K + 1));
+    }
+
+    @Test
+    public void shouldFollowDaoWrites() {
+        index.onCreateOrUpdate(createLaunch(12L, falconHeavy, "Kennedy"));
+        index.onCreateOrUpdate(createLaunch(16L, falconHeavy, "Kennedy"));
+        assertEquals(Arrays.asList("Falcon Heavy", "Falcon 9"), names(index.search("falcon", 5)));
+        // the last launch from Vandenberg moved away
+        assertTrue(index.search("vand", 5).isEmpty());
+
+        index.onCreateOrUpdate(rocket(5L, "Chang Zheng 3B", casc));
+        assertTrue(index.search("long", 5).isEmpty());
+        assertEquals(2, index.search("zheng", 1).get(0).getLaunchCount());
+
+        index.onDelete(falcon9);
+        assertEquals(Arrays.asList("Falcon Heavy"), names(index.search("falcon", 5)));
+        index.onDelete(createLaunch(14L, longMarch, "Xichang"));
+        assertEquals(1, index.search("xi", 1).get(0).getLaunchCount());
+    }
+}
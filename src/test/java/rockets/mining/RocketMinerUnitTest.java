@@ -14,17 +14,30 @@ import rockets.dataaccess.neo4j.Neo4jDAO;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
+import rockets.mining.sketch.Estimate;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class RocketMinerUnitTest {
@@ -38,6 +51,18 @@ public class RocketMinerUnitTest {
     private List<Launch.LaunchOutcome> outcomes;
     private List<String> countries;
 
+    // Streams the launches to the miner the way the DAO does, a chunk at a time
+    private void stubLaunches(List<Launch> launches) {
+        doAnswer(invocation -> {
+            int chunkSize = invocation.getArgument(1);
+            Consumer<Launch> consumer = invocation.getArgument(2);
+            for (List<Launch> chunk : Lists.partition(launches, chunkSize)) {
+                chunk.forEach(consumer);
+            }
+            return null;
+        }).when(dao).forEach(eq(Launch.class), anyInt(), any());
+    }
+
     @BeforeEach
     public void setUp() {
         dao = mock(Neo4jDAO.class);
@@ -130,7 +155,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {1, 2, 3, 9, 10, 11})
     public void shouldReturnTopMostRecentLaunches(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         List<Launch> sortedLaunches = new ArrayList<>(launches);
         sortedLaunches.sort((a, b) -> -a.getLaunchDate().compareTo(b.getLaunchDate()));
         List<Launch> loadedLaunches = miner.mostRecentLaunches(k);
@@ -143,7 +168,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {1, 2})
     public void shouldReturnListContainingKLaunches(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         assertEquals(k, miner.mostLaunchedRockets(k).size());
     }
 
@@ -151,7 +176,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {4, 5})
     public void shouldThrowErrorForTooHighIntMostLaunchedRockets(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -165,7 +190,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {1, 2})
     public void shouldReturnListContainingKMostReliableProviders(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         assertEquals(k, miner.mostReliableLaunchServiceProviders(k).size());
     }
 
@@ -173,7 +198,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {15, 20})
     public void shouldThrowErrorForTooHighIntMostReliableProviders(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -185,7 +210,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {12, 20, 50})
     public void shouldThrowErrorForTooHighIntMostRecentLaunches(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -197,7 +222,7 @@ public class RocketMinerUnitTest {
     // Testing dominantCountry
     @Test
     public void shouldReturnDominantCountry () {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         assertEquals(miner.dominantCountry("LEO"), "Japan");
     }
 
@@ -216,7 +241,7 @@ public class RocketMinerUnitTest {
 
     @Test
     public void shouldThrowExceptionWhenNullOrbitForDominantCountry () {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         assertThrows(NullPointerException.class, () -> miner.dominantCountry(null));
     }
 
@@ -225,7 +250,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {12, 20, 50})
     public void shouldThrowErrorForTooHighIntMostExpensiveLaunches(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -237,18 +262,28 @@ public class RocketMinerUnitTest {
     // Case where it returns correctly
     @Test
     public void shouldReturnMostExpensiveLaunches(){
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         // where entry 8 (index 9) is the most expensive launch
         List<Launch> expectedResult = Arrays.asList(launches.get(8));
         assertEquals(miner.mostExpensiveLaunches(1), expectedResult);
     }
 
+    @Test
+    public void shouldReturnMostExpensiveLaunchesOfProviderAndInPriceRange() {
+        stubLaunches(launches);
+        assertEquals(Arrays.asList(launches.get(1)), miner.mostExpensiveLaunches(5, lsps.get(1)));
+        assertEquals(Arrays.asList(launches.get(8), launches.get(7)), miner.mostExpensiveLaunchesInYear(2, 2017));
+        assertTrue(miner.mostExpensiveLaunchesInYear(2, 2018).isEmpty());
+        assertEquals(Arrays.asList(launches.get(9), launches.get(10), launches.get(3)),
+                miner.launchesPricedBetween(new BigDecimal("10000"), new BigDecimal("10000.999")));
+    }
+
     // Tests for Highest Revenue Launch Service Provider
     // Case where K is beyond the number of launches
     @ParameterizedTest
     @ValueSource(ints = {12, 20, 50})
     public void shouldThrowErrorForTooHighIntHighestRevenueLaunchServiceProvider(int k) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -261,7 +296,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {2020, 9999, 999999})
     public void shouldThrowErrorForTooHighYearHighestRevenueLaunchServiceProvider(int year) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -274,7 +309,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(ints = {1, 120, 1300})
     public void shouldThrowErrorIfNoLaunchesInYearHighestRevenueLaunchServiceProvider(int year) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -286,7 +321,7 @@ public class RocketMinerUnitTest {
     // Case where it returns the highest revenue launch service provider
     @Test
     public void shouldReturnHighestRevenueLaunchServiceProvider() {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         List<LaunchServiceProvider> expectedResult =  Arrays.asList(lsps.get(8));
         assertEquals(miner.highestRevenueLaunchServiceProviders(1, 2017), expectedResult);
     }
@@ -294,7 +329,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(strings = {"Australia", "USA", "Japan"})
     public void shouldReturnLaunchesFromCountry(String aCountry) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
         List<Launch> launchesByCountry = miner.launchesFromCountry(aCountry);
 
         assertEquals(launchesByCountry.size() > 0, true);
@@ -303,7 +338,7 @@ public class RocketMinerUnitTest {
     @ParameterizedTest
     @ValueSource(strings = {"NZ", "Fiji", "Lebanon"})
     public void shouldThrowErrorWhenNoLaunchesByCountryForLaunchesFromCountry(String aCountry) {
-        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        stubLaunches(launches);
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -311,4 +346,184 @@ public class RocketMinerUnitTest {
         );
         assertEquals("There are no launches from this country", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReloadLaunchesAfterRefresh() {
+        stubLaunches(launches.subList(0, 5));
+        assertEquals(5, miner.mostRecentLaunches(5).size());
+
+        stubLaunches(launches);
+        assertThrows(IllegalArgumentException.class, () -> miner.mostRecentLaunches(11));
+
+        miner.refresh();
+        assertEquals(11, miner.mostRecentLaunches(11).size());
+    }
+
+    @Test
+    public void shouldReturnSuccessfulLaunchRateInYear() {
+        stubLaunches(launches);
+        // 7 of the 11 launches in 2017 were successful
+        assertEquals(new BigDecimal("0.64"), miner.successfulLaunchRateInYear(2017));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2016, 2018})
+    public void shouldThrowErrorIfNoLaunchesInYearSuccessfulLaunchRate(int year) {
+        stubLaunches(launches);
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> miner.successfulLaunchRateInYear(year)
+        );
+        assertEquals("There are no launches in year " + year, exception.getMessage());
+    }
+
+    @Test
+    public void shouldSumRevenueInYearInFixedPoint() {
+        stubLaunches(launches);
+        assertEquals(new BigDecimal("96166012.48"), miner.revenueInYear(2017).toBigDecimal());
+        assertEquals(new BigDecimal("20000.00"), miner.revenueInYear(lsps.get(1), 2017).toBigDecimal());
+        assertEquals(Money.of(BigDecimal.ZERO), miner.revenueInYear(2018));
+        assertEquals(Money.of(BigDecimal.ZERO), miner.revenueInYear(new LaunchServiceProvider("NASA", 1958, "USA"), 2017));
+    }
+
+    @Test
+    public void shouldExpressMinerQueriesInLaunchQuery() {
+        stubLaunches(launches);
+        List<LaunchQuery.Result<String, Long>> countries = miner.run(LaunchQuery.groupBy(LaunchQuery.Dimension.COUNTRY)
+                .where(LaunchQuery.Condition.orbit("LEO")).top(1));
+        assertEquals(miner.dominantCountry("LEO"), countries.get(0).getKey());
+
+        List<LaunchQuery.Result<LaunchServiceProvider, Money>> revenue = miner.run(LaunchQuery.groupBy(LaunchQuery.Dimension.PROVIDER)
+                .where(LaunchQuery.Condition.year(2017)).aggregate(LaunchQuery.Aggregate.SUM_PRICE).top(3));
+        assertEquals(miner.highestRevenueLaunchServiceProviders(3, 2017),
+                revenue.stream().map(LaunchQuery.Result::getKey).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldCountLaunchesMatchingCombinedFilters() {
+        stubLaunches(launches);
+        assertEquals(2, miner.countLaunchesMatching(index -> index.orbit("LEO")
+                .and(index.country("Japan"))
+                .and(index.outcome(Launch.LaunchOutcome.FAILED))));
+        assertEquals(5, miner.countLaunchesMatching(index -> index.country("Japan")
+                .andNot(index.outcome(Launch.LaunchOutcome.FAILED))));
+        assertEquals(0, miner.countLaunchesMatching(index -> index.orbit("GTO")));
+    }
+
+    @Test
+    public void shouldReturnLaunchesMatchingFilterInRowOrder() {
+        stubLaunches(launches);
+        List<Launch> matching = miner.launchesMatching(index -> index.country("Australia")
+                .or(index.country("USA")));
+        assertEquals(launches.subList(7, 11), matching);
+    }
+
+    @Test
+    public void shouldServeRepeatedQueriesFromCachingMiner() {
+        stubLaunches(launches);
+        CachingRocketMiner cachingMiner = new CachingRocketMiner(dao);
+        List<Rocket> first = cachingMiner.mostLaunchedRockets(2);
+        assertSame(first, cachingMiner.mostLaunchedRockets(2));
+        assertEquals("Japan", cachingMiner.dominantCountry("LEO"));
+        assertEquals(0.33, cachingMiner.getCache().hitRatio(), 0.01);
+
+        cachingMiner.refresh();
+        assertNotSame(first, cachingMiner.mostLaunchedRockets(2));
+        verify(dao, times(2)).forEach(eq(Launch.class), anyInt(), any());
+    }
+
+    @Test
+    public void shouldOverrideEveryPublicQueryInCachingMiner() {
+        List<String> uncached = new ArrayList<>();
+        for (Method method : RocketMiner.class.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            try {
+                CachingRocketMiner.class.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                uncached.add(method.toGenericString());
+            }
+        }
+        assertEquals(Collections.emptyList(), uncached);
+    }
+
+    @Test
+    public void shouldServeNewerQueriesFromCachingMiner() {
+        stubLaunches(launches);
+        CachingRocketMiner cachingMiner = new CachingRocketMiner(dao);
+        Money revenue = cachingMiner.revenueInYear(2017);
+        assertSame(revenue, cachingMiner.revenueInYear(2017));
+        LaunchQuery<String, Long> byCountry = LaunchQuery.groupBy(LaunchQuery.Dimension.COUNTRY)
+                .where(LaunchQuery.Condition.year(2017));
+        List<LaunchQuery.Result<String, Long>> groups = cachingMiner.run(byCountry);
+        assertSame(groups, cachingMiner.run(LaunchQuery.groupBy(LaunchQuery.Dimension.COUNTRY)
+                .where(LaunchQuery.Condition.year(2017))));
+        assertNotSame(groups, cachingMiner.run(byCountry.top(1)));
+        assertEquals(3, cachingMiner.getCache().missCount());
+    }
+
+    @Test
+    public void shouldReturnApproximatePayloadAnalyticsWithBounds() {
+        for (int i = 0; i < launches.size(); i++) {
+            launches.get(i).setPayload(Sets.newHashSet("Starlink", "payload_" + (i % 4)));
+        }
+        stubLaunches(launches);
+
+        Estimate frequency = miner.approximatePayloadFrequency("Starlink");
+        assertTrue(frequency.getValue() >= 11 && frequency.getLowerBound() <= 11);
+        Estimate distinct = miner.approximateDistinctPayloadsInYear(2017);
+        assertTrue(distinct.getLowerBound() <= 5 && 5 <= distinct.getUpperBound());
+        assertEquals(0.0, miner.approximateDistinctPayloadsInYear(2016).getValue());
+        Estimate sites = miner.approximateDistinctLaunchSites("Japan");
+        assertEquals(1.0, sites.getValue(), 0.01);
+    }
+
+    @Test
+    public void shouldReturnLaunchesBetweenDatesInDateOrder() {
+        stubLaunches(launches);
+        List<Launch> between = miner.launchesBetween(LocalDate.of(2017, 4, 1), LocalDate.of(2017, 5, 1));
+        assertEquals(Arrays.asList(launches.get(2), launches.get(4), launches.get(7), launches.get(9), launches.get(10)), between);
+        assertTrue(miner.launchesBetween(LocalDate.of(2018, 1, 1), LocalDate.of(2018, 12, 31)).isEmpty());
+    }
+
+    @Test
+    public void shouldRankRocketsAndProvidersOverTrailingWindow() {
+        stubLaunches(launches);
+        Clock clock = Clock.fixed(LocalDate.of(2017, 7, 1).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        RocketMiner windowedMiner = new RocketMiner(dao, clock);
+
+        // the last 90 days hold the June and May launches
+        assertEquals(Arrays.asList(rockets.get(3), rockets.get(0)), windowedMiner.mostLaunchedRockets(2, 90));
+        assertEquals(Arrays.asList(lsps.get(9), lsps.get(1)), windowedMiner.mostReliableLaunchServiceProviders(2, 90));
+        assertThrows(IllegalArgumentException.class, () -> windowedMiner.mostLaunchedRockets(3, 90));
+        assertEquals(new BigDecimal("1.00"), windowedMiner.rollingSuccessRate(lsps.get(9), 90));
+        assertEquals(new BigDecimal("0.00"), windowedMiner.rollingSuccessRate(lsps.get(6), 90));
+        assertThrows(IllegalArgumentException.class, () -> windowedMiner.rollingSuccessRate(lsps.get(0), 90));
+    }
+
+    @Test
+    public void shouldReturnPriceQuantilesOfProviderInYear() {
+        stubLaunches(launches);
+        assertEquals(Arrays.asList(Money.of(new BigDecimal("10000.99")), Money.of(new BigDecimal("10000.99"))),
+                miner.priceQuantiles(lsps.get(9), 2017, 0.5, 0.99));
+        assertEquals(Money.of(new BigDecimal("20000.00")), miner.priceQuantiles(lsps.get(1), 2017, 0.5).get(0));
+        assertThrows(IllegalArgumentException.class, () -> miner.priceQuantiles(lsps.get(1), 2016, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> miner.priceQuantiles(lsps.get(1), 2017, 2.0));
+    }
+
+    @Test
+    public void shouldFindLaunchesAndCoPassengersByPayload() {
+        for (int i = 0; i < launches.size(); i++) {
+            launches.get(i).setPayload(Sets.newHashSet("Starlink-" + (i % 3), i % 2 == 0 ? "Dragon" : "Cygnus"));
+        }
+        stubLaunches(launches);
+
+        assertEquals(Arrays.asList(launches.get(0), launches.get(3), launches.get(6), launches.get(9)),
+                miner.launchesCarrying("starlink-0"));
+        assertEquals(launches.size(), miner.launchesCarryingPrefix("STARLINK").size());
+        assertEquals(Arrays.asList("starlink-0", "starlink-1"), miner.payloadsFlownWith("Dragon", 2));
+        assertTrue(miner.launchesCarrying("Soyuz").isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package rockets.mining.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountMinSketchUnitTest {
+
+    @Test
+    public void shouldNeverUndercountAndStayWithinBound() {
+        CountMinSketch sketch = new CountMinSketch();
+        for (int i = 0; i < 2000; i++) {
+            sketch.add("payload_" + (i % 200), 1 + i % 3);
+        }
+        for (int p = 0; p < 200; p++) {
+            long actual = 0;
+            for (int i = p; i < 2000; i += 200) {
+                actual += 1 + i % 3;
+            }
+            Estimate estimate = sketch.toEstimate("payload_" + p);
+            assertTrue(estimate.getValue() >= actual);
+            assertTrue(estimate.getLowerBound() <= actual);
+        }
+    }
+
+    @Test
+    public void shouldDecrementPreviouslyAddedValues() {
+        CountMinSketch sketch = new CountMinSketch();
+        sketch.add("Starlink", 3);
+        sketch.add("Starlink", -1);
+        assertEquals(2, sketch.estimate("Starlink"));
+        assertEquals(2, sketch.getTotal());
+        assertEquals(0, sketch.estimate("Dragon"));
+    }
+
+    @Test
+    public void shouldMergeAndRoundTripThroughBytes() {
+        CountMinSketch first = new CountMinSketch(3, 64);
+        CountMinSketch second = new CountMinSketch(3, 64);
+        first.add("Dragon", 2);
+        second.add("Dragon", 5);
+        second.add("Cygnus");
+        first.merge(second);
+        assertTrue(first.estimate("Dragon") >= 7);
+        assertEquals(8, first.getTotal());
+
+        CountMinSketch copy = CountMinSketch.fromBytes(first.toBytes());
+        assertEquals(first, copy);
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new CountMinSketch()));
+    }
+}
@@ -0,0 +1,57 @@
+package rockets.mining.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogUnitTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1000, 100000})
+    public void shouldEstimateDistinctCountWithinErrorBound(int distinct) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("payload_" + i);
+            }
+        }
+        Estimate estimate = sketch.toEstimate();
+        assertTrue(estimate.getLowerBound() <= distinct && distinct <= estimate.getUpperBound(), estimate.toString());
+    }
+
+    @Test
+    public void shouldEstimateZeroWhenEmpty() {
+        assertEquals(0.0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    public void shouldMergeIntoSketchOfUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (int i = 0; i < 5000; i++) {
+            first.add("p" + i);
+            union.add("p" + i);
+        }
+        for (int i = 2500; i < 7500; i++) {
+            second.add("p" + i);
+            union.add("p" + i);
+        }
+        first.merge(second);
+        assertEquals(union, first);
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    public void shouldRoundTripThroughBytes() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        sketch.add("Iridium NEXT");
+        sketch.add("Starlink");
+        HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+        assertEquals(sketch, copy);
+        assertEquals(sketch.estimate(), copy.estimate());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{10, 0}));
+    }
+}
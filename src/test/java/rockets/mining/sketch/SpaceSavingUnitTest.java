@@ -0,0 +1,98 @@
+package rockets.mining.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpaceSavingUnitTest {
+
+    // payload_p occurs 200 / (p + 1) times, so the first few payloads dominate
+    private static void feed(SpaceSaving<String> tracker, int from, int to) {
+        for (int p = from; p < to; p++) {
+            for (int i = 0; i < 200 / (p + 1); i++) {
+                tracker.offer("payload_" + p);
+            }
+        }
+    }
+
+    private static long actual(int p) {
+        return 200 / (p + 1);
+    }
+
+    @Test
+    public void shouldFindHeavyHittersWithinErrorBound() {
+        SpaceSaving<String> tracker = new SpaceSaving<>(10);
+        feed(tracker, 0, 100);
+        List<SpaceSaving.Entry<String>> top = tracker.top(3);
+        assertEquals("payload_0", top.get(0).getItem());
+        assertEquals("payload_1", top.get(1).getItem());
+        for (int p = 0; p < 100; p++) {
+            Estimate estimate = tracker.estimate("payload_" + p);
+            assertTrue(estimate.getUpperBound() >= actual(p));
+            assertTrue(estimate.getLowerBound() <= actual(p));
+            assertTrue(estimate.getUpperBound() - actual(p) <= tracker.getTotal() / 10);
+        }
+        assertTrue(tracker.maxError() <= tracker.getTotal() / 10);
+    }
+
+    @Test
+    public void shouldCountExactlyBelowCapacity() {
+        SpaceSaving<String> tracker = new SpaceSaving<>(4);
+        tracker.offer("Dragon", 3);
+        tracker.offer("Cygnus");
+        tracker.offer("Dragon");
+        SpaceSaving.Entry<String> dragon = tracker.top(1).get(0);
+        assertEquals(4, dragon.getCount());
+        assertEquals(0, dragon.getError());
+        assertEquals(0, tracker.estimate("Starlink").getUpperBound());
+        assertThrows(IllegalArgumentException.class, () -> tracker.offer("Dragon", 0));
+    }
+
+    @Test
+    public void shouldMergeTrackersOfSeveralFeeders() {
+        SpaceSaving<String> first = new SpaceSaving<>(10);
+        SpaceSaving<String> second = new SpaceSaving<>(10);
+        feed(first, 0, 50);
+        feed(second, 50, 100);
+        feed(second, 0, 3);
+        first.merge(second);
+
+        assertEquals("payload_0", first.top(1).get(0).getItem());
+        for (int p = 0; p < 100; p++) {
+            long expected = actual(p) + (p < 3 ? actual(p) : 0);
+            Estimate estimate = first.estimate("payload_" + p);
+            assertTrue(estimate.getUpperBound() >= expected);
+            assertTrue(estimate.getLowerBound() <= expected);
+        }
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new SpaceSaving<>(5)));
+    }
+
+    @Test
+    public void shouldAcceptConcurrentProducers() throws Exception {
+        SpaceSaving<String> tracker = new SpaceSaving<>(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                producers.add(executor.submit(() -> feed(tracker, 0, 100)));
+            }
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long total = 0;
+        for (int p = 0; p < 100; p++) {
+            total += 4 * actual(p);
+        }
+        assertEquals(total, tracker.getTotal());
+        assertTrue(tracker.top(1).get(0).getGuaranteedCount() > 4 * actual(1));
+    }
+}
@@ -0,0 +1,54 @@
+package rockets.mining.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TDigestUnitTest {
+
+    @Test
+    public void shouldEstimateQuantilesOfUniformValues() {
+        TDigest digest = new TDigest();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            digest.add(random.nextDouble() * 1000);
+        }
+        assertEquals(500, digest.quantile(0.5), 10);
+        assertEquals(900, digest.quantile(0.9), 5);
+        assertEquals(990, digest.quantile(0.99), 2);
+        assertEquals(digest.getMin(), digest.quantile(0), 1e-9);
+        assertEquals(digest.getMax(), digest.quantile(1), 1e-9);
+        assertTrue(digest.centroidCount() <= TDigest.DEFAULT_COMPRESSION);
+    }
+
+    @Test
+    public void shouldBeExactForFewValues() {
+        TDigest digest = new TDigest();
+        digest.add(10);
+        assertEquals(10, digest.quantile(0.5));
+        digest.add(20);
+        digest.add(30);
+        assertEquals(20, digest.quantile(0.5), 1e-9);
+        assertEquals(3, digest.getCount());
+        assertThrows(IllegalArgumentException.class, () -> new TDigest().quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> digest.quantile(1.5));
+    }
+
+    @Test
+    public void shouldMergeDigestsOfSeveralStreams() {
+        TDigest low = new TDigest(50);
+        TDigest high = new TDigest(50);
+        for (int i = 0; i < 5000; i++) {
+            low.add(i);
+            high.add(5000 + i);
+        }
+        low.merge(high);
+        assertEquals(10000, low.getCount());
+        assertEquals(5000, low.quantile(0.5), 100);
+        assertEquals(9900, low.quantile(0.99), 20);
+        assertEquals(9999, low.getMax());
+        assertThrows(IllegalArgumentException.class, () -> low.merge(low));
+    }
+}
@@ -0,0 +1,46 @@
+package rockets.web;
+
+import org.junit.jupiter.api.Test;
+import rockets.model.User;
+import spark.Request;
+import spark.Session;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AdminAccessUnitTest {
+    private static final String PATH = "/api/v1/admin/*";
+
+    private Request request(User user, String authorization) {
+        Request req = mock(Request.class);
+        if (null != user) {
+            Session session = mock(Session.class);
+            when(session.attribute("user")).thenReturn(user);
+            when(req.session(false)).thenReturn(session);
+        }
+        when(req.headers("Authorization")).thenReturn(authorization);
+        return req;
+    }
+
+    @Test
+    public void shouldAllowLoggedInUsers() {
+        AdminAccess access = new AdminAccess(PATH, null);
+        assertTrue(access.isAllowed(request(new User(), null)));
+        assertFalse(access.isAllowed(request(null, null)));
+    }
+
+    @Test
+    public void shouldAllowOnlyTheConfiguredToken() {
+        AdminAccess access = new AdminAccess(PATH, "s3cret");
+        assertTrue(access.isAllowed(request(null, "Bearer s3cret")));
+        assertFalse(access.isAllowed(request(null, "Bearer s3cre")));
+        assertFalse(access.isAllowed(request(null, "Basic s3cret")));
+        assertFalse(access.isAllowed(request(null, null)));
+    }
+
+    @Test
+    public void shouldRefuseEveryTokenWhenNoneIsConfigured() {
+        assertFalse(new AdminAccess(PATH, "").isAllowed(request(null, "Bearer ")));
+        assertFalse(new AdminAccess(PATH, null).isAllowed(request(null, "Bearer null")));
+    }
+}
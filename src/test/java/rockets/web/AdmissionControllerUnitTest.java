@@ -0,0 +1,70 @@
+package rockets.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerUnitTest {
+
+    private static void awaitQueueDepth(AdmissionController controller, int depth) throws InterruptedException {
+        for (int i = 0; i < 500 && controller.getQueueDepth() != depth; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, controller.getQueueDepth());
+    }
+
+    @Test
+    public void shouldAdmitUpToTheLimitAndQueueThenShed() throws Exception {
+        AdmissionController controller = new AdmissionController(1, 1, 10_000, 1, Collections.emptyList());
+        assertTrue(controller.tryAdmit());
+        assertEquals(1, controller.getInFlight());
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(controller::tryAdmit);
+        awaitQueueDepth(controller, 1);
+        // The queue is full, so the next request is shed at once
+        assertFalse(controller.tryAdmit());
+        assertEquals(1, controller.getRejected());
+
+        controller.release();
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, controller.getQueueDepth());
+        assertEquals(2, controller.getAdmitted());
+        controller.release();
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    public void shouldShedRequestsThatWaitTooLong() {
+        AdmissionController controller = new AdmissionController(1, 4, 20, 1, Collections.emptyList());
+        assertTrue(controller.tryAdmit());
+        assertFalse(controller.tryAdmit());
+        assertEquals(1, controller.getRejected());
+        assertEquals(0, controller.getQueueDepth());
+    }
+
+    @Test
+    public void shouldMatchExemptPathsExactlyOrByPrefix() {
+        AdmissionController controller = new AdmissionController(1, 0, 0, 1,
+                Arrays.asList("/", "/login", "/api/v1/admin/*"));
+        assertTrue(controller.isExempt("/"));
+        assertTrue(controller.isExempt("/login"));
+        assertTrue(controller.isExempt("/api/v1/admin/load"));
+        assertFalse(controller.isExempt("/rockets"));
+        assertFalse(controller.isExempt("/login/other"));
+        assertFalse(controller.isExempt("/api/v1/administrators"));
+        assertFalse(controller.isExempt(null));
+    }
+
+    @Test
+    public void shouldRequireHeadroomForTheConnectorAndExemptPages() {
+        AdmissionController controller = new AdmissionController(24, 16, 500, 1, Collections.emptyList());
+        controller.requireHeadroom(64, 8, 8);
+        assertThrows(IllegalArgumentException.class, () -> controller.requireHeadroom(64, 8, 17));
+        assertThrows(IllegalArgumentException.class, () -> controller.requireHeadroom(40, 0, 1));
+    }
+}
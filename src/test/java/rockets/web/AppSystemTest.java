@@ -1,8 +1,10 @@
 package rockets.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Lists;
 import net.sourceforge.jwebunit.junit.JWebUnit;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,13 +20,22 @@ import spark.resource.ClassPathResource;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.apache.logging.log4j.core.util.Closer.closeSilently;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.spy;
 
 public class AppSystemTest {
@@ -33,6 +44,7 @@ public class AppSystemTest {
     private List<LaunchServiceProvider> lsps;
     private List<Launch> launches;
     private static String dbAddress;
+    private static final String ADMIN_TOKEN = "system-test-token";
 
     @BeforeAll
     public static void classSetUp() throws Exception {
@@ -52,6 +64,7 @@ public class AppSystemTest {
             closeSilently(stream);
         }
 
+        System.setProperty("admin.token", ADMIN_TOKEN);
         App.main(null);
 
         try {
@@ -151,4 +164,169 @@ public class AppSystemTest {
         JWebUnit.assertTextPresent("Welcome");
     }
 
+    @Test
+    public void shouldFindRocketsByNamePrefix() {
+        dao.createOrUpdate(new Rocket("Falcon 9", "USA", lsps.get(1)));
+        JWebUnit.beginAt("/search?q=falc");
+        JWebUnit.assertTextPresent("Falcon 9");
+        JWebUnit.beginAt("/search?q=zzz");
+        JWebUnit.assertTextPresent("Nothing matches");
+    }
+
+    @Test
+    public void shouldPageThroughRocketsByName() {
+        // Other tests' rockets stay in the database, so these names sort first
+        for (String name : new String[]{"0 Delta", "0 Atlas", "0 Falcon"}) {
+            dao.createOrUpdate(new Rocket(name, "USA", lsps.get(0)));
+        }
+        JWebUnit.beginAt("/rockets?sort=name&size=2");
+        JWebUnit.assertTextPresent("0 Atlas");
+        JWebUnit.assertTextPresent("0 Delta");
+        JWebUnit.assertTextNotPresent("0 Falcon");
+        JWebUnit.assertLinkNotPresent("prev_page");
+
+        JWebUnit.clickLink("next_page");
+        JWebUnit.assertTextPresent("0 Falcon");
+        JWebUnit.assertTextNotPresent("0 Atlas");
+
+        JWebUnit.clickLink("prev_page");
+        JWebUnit.assertTextPresent("0 Atlas");
+        JWebUnit.assertTextNotPresent("0 Falcon");
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedUntilRocketsChange() throws Exception {
+        URL rocketsUrl = new URL(JWebUnit.getTestContext().getBaseUrl(), "/rockets");
+        HttpURLConnection first = (HttpURLConnection) rocketsUrl.openConnection();
+        assertEquals(200, first.getResponseCode());
+        String etag = first.getHeaderField("ETag");
+        assertNotNull(etag);
+        assertNotNull(first.getHeaderField("Last-Modified"));
+
+        HttpURLConnection repeat = (HttpURLConnection) rocketsUrl.openConnection();
+        repeat.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, repeat.getResponseCode());
+
+        dao.createOrUpdate(new Rocket("Vulcan", "USA", lsps.get(0)));
+        HttpURLConnection changed = (HttpURLConnection) rocketsUrl.openConnection();
+        changed.setRequestProperty("If-None-Match", etag);
+        assertEquals(200, changed.getResponseCode());
+        assertNotEquals(etag, changed.getHeaderField("ETag"));
+    }
+
+    @Test
+    public void shouldGzipLongResponsesForClientsThatAcceptIt() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            dao.createOrUpdate(new Rocket("1 Rocket " + i, "USA", lsps.get(0)));
+        }
+        URL rocketsUrl = new URL(JWebUnit.getTestContext().getBaseUrl(), "/rockets?sort=name&size=40");
+        for (int i = 0; i < 2; i++) {
+            HttpURLConnection page = (HttpURLConnection) rocketsUrl.openConnection();
+            page.setRequestProperty("Accept-Encoding", "gzip");
+            assertEquals(200, page.getResponseCode());
+            assertEquals("gzip", page.getHeaderField("Content-Encoding"));
+            try (InputStream body = new GZIPInputStream(page.getInputStream())) {
+                assertTrue(IOUtils.toString(body, StandardCharsets.UTF_8).contains("1 Rocket 39"));
+            }
+        }
+
+        HttpURLConnection plain = (HttpURLConnection) rocketsUrl.openConnection();
+        assertEquals(200, plain.getResponseCode());
+        assertNull(plain.getHeaderField("Content-Encoding"));
+        try (InputStream body = plain.getInputStream()) {
+            assertTrue(IOUtils.toString(body, StandardCharsets.UTF_8).contains("1 Rocket 39"));
+        }
+
+        HttpURLConnection json = (HttpURLConnection) new URL(JWebUnit.getTestContext().getBaseUrl(), "/api/v1/rockets").openConnection();
+        json.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals("gzip", json.getHeaderField("Content-Encoding"));
+        try (InputStream body = new GZIPInputStream(json.getInputStream())) {
+            assertTrue(IOUtils.toString(body, StandardCharsets.UTF_8).contains("\"name\":\"1 Rocket 39\""));
+        }
+    }
+
+    @Test
+    public void shouldReportLoadWhileAdmittingRequests() throws Exception {
+        JWebUnit.beginAt("/rockets");
+        HttpURLConnection anonymous = (HttpURLConnection) new URL(JWebUnit.getTestContext().getBaseUrl(), "/api/v1/admin/load").openConnection();
+        assertEquals(401, anonymous.getResponseCode());
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(JWebUnit.getTestContext().getBaseUrl(), "/api/v1/admin/load").openConnection();
+        connection.setRequestProperty("Authorization", "Bearer " + ADMIN_TOKEN);
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream body = connection.getInputStream()) {
+            JsonNode load = JsonApi.MAPPER.readTree(body);
+            assertTrue(load.get("admitted").asLong() >= 1);
+            assertEquals(0, load.get("rejected").asLong());
+            assertEquals(0, load.get("inFlight").asInt());
+            assertTrue(load.get("threads").asInt() > 0);
+        }
+    }
+
+    @Test
+    public void shouldServeRocketsAsJson() throws Exception {
+        dao.createOrUpdate(new Rocket("Atlas V", "USA", lsps.get(0)));
+        HttpURLConnection connection = (HttpURLConnection) new URL(JWebUnit.getTestContext().getBaseUrl(), "/api/v1/rockets").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("application/json"));
+        try (InputStream body = connection.getInputStream()) {
+            String json = IOUtils.toString(body, StandardCharsets.UTF_8);
+            assertTrue(json.contains("\"name\":\"Atlas V\""));
+            assertFalse(json.contains("\"launches\""));
+        }
+
+        HttpURLConnection invalid = (HttpURLConnection) new URL(JWebUnit.getTestContext().getBaseUrl(), "/api/v1/stats/revenue?year=abc").openConnection();
+        assertEquals(400, invalid.getResponseCode());
+    }
+
+    @Test
+    public void shouldRunReportsAsJobs() throws Exception {
+        URL base = JWebUnit.getTestContext().getBaseUrl();
+        HttpURLConnection submit = (HttpURLConnection) new URL(base, "/api/v1/reports?year=2017&query=revenue").openConnection();
+        submit.setRequestMethod("POST");
+        assertEquals(202, submit.getResponseCode());
+        String location = submit.getHeaderField("Location");
+        String id;
+        try (InputStream body = submit.getInputStream()) {
+            id = JsonApi.MAPPER.readTree(body).get("id").asText();
+        }
+        assertEquals("/api/v1/reports/" + id, location);
+
+        HttpURLConnection poll = pollReport(base, location);
+        assertEquals(200, poll.getResponseCode());
+        try (InputStream body = poll.getInputStream()) {
+            assertTrue(JsonApi.MAPPER.readTree(body).isNumber());
+        }
+
+        HttpURLConnection delete = (HttpURLConnection) new URL(base, location).openConnection();
+        delete.setRequestMethod("DELETE");
+        assertEquals(204, delete.getResponseCode());
+        assertEquals(404, ((HttpURLConnection) new URL(base, location).openConnection()).getResponseCode());
+
+        HttpURLConnection invalid = (HttpURLConnection) new URL(base, "/api/v1/reports?query=revenue&year=abc").openConnection();
+        invalid.setRequestMethod("POST");
+        assertEquals(400, invalid.getResponseCode());
+
+        // Parameters the miner rejects only show once the job has run
+        HttpURLConnection tooMany = (HttpURLConnection) new URL(base, "/api/v1/reports?query=most-launched-rockets&k=100000").openConnection();
+        tooMany.setRequestMethod("POST");
+        assertEquals(202, tooMany.getResponseCode());
+        HttpURLConnection failed = pollReport(base, tooMany.getHeaderField("Location"));
+        assertEquals(500, failed.getResponseCode());
+        try (InputStream body = failed.getErrorStream()) {
+            assertEquals("FAILED", JsonApi.MAPPER.readTree(body).get("status").asText());
+        }
+    }
+
+    private static HttpURLConnection pollReport(URL base, String location) throws Exception {
+        HttpURLConnection poll = null;
+        for (int i = 0; i < 100; i++) {
+            poll = (HttpURLConnection) new URL(base, location).openConnection();
+            if (poll.getResponseCode() != 202) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        return poll;
+    }
 }
@@ -0,0 +1,98 @@
+package rockets.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DataVersion;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConditionalGetUnitTest {
+    private static final String LAST_MODIFIED = "Sat, 1 Jul 2017 10:00:00 GMT";
+
+    private DataVersion dataVersion;
+    private ConditionalGet conditionalGet;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        dataVersion = new DataVersion(Clock.fixed(Instant.parse("2017-07-01T10:00:00.250Z"), ZoneOffset.UTC));
+        conditionalGet = new ConditionalGet(dataVersion);
+        rocket = new Rocket("Falcon 9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+    }
+
+    private Request request(String ifNoneMatch, String ifModifiedSince) {
+        Request req = mock(Request.class);
+        when(req.headers("If-None-Match")).thenReturn(ifNoneMatch);
+        when(req.headers("If-Modified-Since")).thenReturn(ifModifiedSince);
+        return req;
+    }
+
+    @Test
+    public void shouldChangeTheETagOnlyOnWritesToTheType() {
+        String rockets = conditionalGet.etag(Rocket.class);
+        String users = conditionalGet.etag(User.class);
+
+        dataVersion.onCreateOrUpdate(rocket);
+        assertNotEquals(rockets, conditionalGet.etag(Rocket.class));
+        assertEquals(users, conditionalGet.etag(User.class));
+        assertEquals(1, dataVersion.current(Rocket.class));
+        assertEquals(0, dataVersion.current(User.class));
+        assertTrue(conditionalGet.etag(Rocket.class).startsWith("W/\""));
+    }
+
+    @Test
+    public void shouldHaltWith304WhenTheClientCopyIsCurrent() {
+        Response res = mock(Response.class);
+        String etag = conditionalGet.etag(Rocket.class);
+
+        HaltException halt = assertThrows(HaltException.class,
+                () -> conditionalGet.check(request("\"other\", " + etag, null), res, Rocket.class));
+        assertEquals(304, halt.statusCode());
+        verify(res).header("ETag", etag);
+        verify(res).header("Last-Modified", LAST_MODIFIED);
+
+        assertThrows(HaltException.class, () -> conditionalGet.check(request(null, LAST_MODIFIED), res, Rocket.class));
+        assertThrows(HaltException.class, () -> conditionalGet.check(request("*", null), res, Rocket.class));
+    }
+
+    @Test
+    public void shouldTellViewersApartInTheETag() {
+        Response res = mock(Response.class);
+        String anonymous = conditionalGet.checkFor(request(null, null), res, "anonymous", User.class);
+        verify(res).header("Vary", "Cookie");
+        verify(res, never()).header(eq("Last-Modified"), anyString());
+
+        // After a login the copy rendered for the anonymous viewer is stale
+        String user = conditionalGet.checkFor(request(anonymous, LAST_MODIFIED), res, "user1", User.class);
+        assertNotEquals(anonymous, user);
+        HaltException halt = assertThrows(HaltException.class,
+                () -> conditionalGet.checkFor(request(user, null), res, "user1", User.class));
+        assertEquals(304, halt.statusCode());
+        conditionalGet.checkFor(request(null, LAST_MODIFIED), res, "user1", User.class);
+    }
+
+    @Test
+    public void shouldLetTheRequestThroughWhenTheClientCopyIsStale() {
+        Response res = mock(Response.class);
+        String etag = conditionalGet.etag(Rocket.class);
+        dataVersion.onDelete(rocket);
+
+        conditionalGet.check(request(etag, null), res, Rocket.class);
+        conditionalGet.check(request(null, "Fri, 30 Jun 2017 10:00:00 GMT"), res, Rocket.class);
+        conditionalGet.check(request(null, "yesterday"), res, Rocket.class);
+        // If-None-Match wins over a date that would match
+        conditionalGet.check(request(etag, LAST_MODIFIED), res, Rocket.class);
+        conditionalGet.check(request(null, null), res, Rocket.class);
+    }
+}
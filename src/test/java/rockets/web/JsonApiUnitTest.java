@@ -0,0 +1,95 @@
+package rockets.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.mining.Money;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class JsonApiUnitTest {
+    private DAO dao;
+    private LaunchServiceProvider spacex;
+    private Rocket falcon9;
+
+    @BeforeEach
+    public void setUp() {
+        dao = mock(Neo4jDAO.class);
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        falcon9 = new Rocket("Falcon 9", "USA", spacex);
+        spacex.getRockets().add(falcon9);
+    }
+
+    private <T> void stubEntities(Class<T> clazz, List<T> entities) {
+        doAnswer(invocation -> {
+            Consumer<T> consumer = invocation.getArgument(2);
+            entities.forEach(consumer);
+            return null;
+        }).when(dao).forEach(eq((Class) clazz), eq(JsonApi.CHUNK_SIZE), any());
+    }
+
+    private Launch createLaunch(int i) {
+        Launch launch = new Launch();
+        launch.setId((long) i);
+        launch.setLaunchDate(LocalDate.of(2017, 1, 1).plusDays(i));
+        launch.setLaunchVehicle(falcon9);
+        launch.setLaunchServiceProvider(spacex);
+        launch.setPrice(BigDecimal.valueOf(i));
+        falcon9.getLaunches().add(launch);
+        return launch;
+    }
+
+    @Test
+    public void shouldStreamEntitiesHonoringJsonIgnore() throws Exception {
+        List<Launch> launches = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            launches.add(createLaunch(i));
+        }
+        stubEntities(Launch.class, launches);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonApi.writeAll(dao, Launch.class, out);
+
+        JsonNode json = JsonApi.MAPPER.readTree(out.toByteArray());
+        assertEquals(3, json.size());
+        assertEquals("2017-01-02", json.get(1).get("launchDate").asText());
+        assertEquals("Falcon 9", json.get(1).get("launchVehicle").get("name").asText());
+        assertFalse(json.get(1).get("launchVehicle").has("launches"));
+        assertFalse(json.get(1).get("launchServiceProvider").has("rockets"));
+    }
+
+    @Test
+    public void shouldFlushOncePerChunk() throws Exception {
+        List<Launch> launches = new ArrayList<>();
+        for (int i = 0; i < 2 * JsonApi.CHUNK_SIZE + 1; i++) {
+            launches.add(createLaunch(i));
+        }
+        stubEntities(Launch.class, launches);
+        OutputStream out = spy(new ByteArrayOutputStream());
+        JsonApi.writeAll(dao, Launch.class, out);
+
+        // one flush per full chunk and one when the array is closed
+        verify(out, times(3)).flush();
+        verify(out, never()).close();
+    }
+
+    @Test
+    public void shouldWriteMoneyAsDecimal() throws Exception {
+        assertEquals("96166012.48", JsonApi.MAPPER.writeValueAsString(Money.of(new BigDecimal("96166012.48"))));
+    }
+}
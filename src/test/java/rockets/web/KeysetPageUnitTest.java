@@ -0,0 +1,114 @@
+package rockets.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class KeysetPageUnitTest {
+    private static final Map<String, KeysetPage.Sort<Rocket>> SORTS =
+            Collections.singletonMap("name", new KeysetPage.Sort<>("name", Rocket::getName));
+
+    private DAO dao;
+    private List<Rocket> rockets;
+
+    @BeforeEach
+    public void setUp() {
+        dao = mock(Neo4jDAO.class);
+        LaunchServiceProvider spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rockets = new ArrayList<>();
+        String[] names = {"Delta", "Atlas", "Falcon", "Atlas", "Electron", "Antares", "Vega"};
+        for (int i = 0; i < names.length; i++) {
+            Rocket rocket = new Rocket(names[i], "USA", spacex);
+            rocket.setId((long) i + 1);
+            rockets.add(rocket);
+        }
+        // Serves pages from the rockets the way the DAO contract describes
+        doAnswer(invocation -> {
+            String property = invocation.getArgument(1);
+            String fromValue = invocation.getArgument(2);
+            Long fromId = invocation.getArgument(3);
+            boolean backwards = invocation.getArgument(4);
+            int limit = invocation.getArgument(5);
+            Comparator<Rocket> order = null == property ? Comparator.comparing(Rocket::getId)
+                    : Comparator.comparing(Rocket::getName).thenComparing(Rocket::getId);
+            List<Rocket> sorted = rockets.stream().sorted(backwards ? order.reversed() : order)
+                    .filter(r -> null == fromId || (backwards ? compare(r, property, fromValue, fromId) < 0
+                            : compare(r, property, fromValue, fromId) > 0))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            if (backwards) {
+                Collections.reverse(sorted);
+            }
+            return sorted;
+        }).when(dao).loadPage(eq(Rocket.class), any(), any(), any(), anyBoolean(), anyInt());
+    }
+
+    private static int compare(Rocket rocket, String property, String value, Long id) {
+        int order = null == property ? 0 : rocket.getName().compareTo(value);
+        return order != 0 ? order : rocket.getId().compareTo(id);
+    }
+
+    private static List<Long> ids(KeysetPage<Rocket> page) {
+        return page.getItems().stream().map(Rocket::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldWalkForwardAndBackByName() {
+        KeysetPage<Rocket> first = KeysetPage.load(dao, Rocket.class, SORTS, "name", null, 3);
+        assertEquals(Arrays.asList(6L, 2L, 4L), ids(first));
+        assertNull(first.getPreviousCursor());
+        assertNotNull(first.getNextCursor());
+
+        KeysetPage<Rocket> second = KeysetPage.load(dao, Rocket.class, SORTS, "name", first.getNextCursor(), 3);
+        assertEquals(Arrays.asList(1L, 5L, 3L), ids(second));
+        assertNotNull(second.getNextCursor());
+
+        KeysetPage<Rocket> third = KeysetPage.load(dao, Rocket.class, SORTS, "name", second.getNextCursor(), 3);
+        assertEquals(Arrays.asList(7L), ids(third));
+        assertNull(third.getNextCursor());
+
+        KeysetPage<Rocket> back = KeysetPage.load(dao, Rocket.class, SORTS, "name", third.getPreviousCursor(), 3);
+        assertEquals(ids(second), ids(back));
+        KeysetPage<Rocket> start = KeysetPage.load(dao, Rocket.class, SORTS, "name", back.getPreviousCursor(), 3);
+        assertEquals(ids(first), ids(start));
+        assertNull(start.getPreviousCursor());
+        assertNotNull(start.getNextCursor());
+    }
+
+    @Test
+    public void shouldFetchOneRowMoreThanThePageById() {
+        KeysetPage<Rocket> page = KeysetPage.load(dao, Rocket.class, SORTS, null, null, null);
+        assertEquals(KeysetPage.SORT_BY_ID, page.getSort());
+        assertEquals(rockets.size(), page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(dao).loadPage(Rocket.class, null, null, null, false, KeysetPage.DEFAULT_SIZE + 1);
+    }
+
+    @Test
+    public void shouldRejectInvalidParameters() {
+        String cursor = KeysetPage.load(dao, Rocket.class, SORTS, "name", null, 2).getNextCursor();
+        assertThrows(IllegalArgumentException.class, () -> KeysetPage.load(dao, Rocket.class, SORTS, "id", cursor, 2));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPage.load(dao, Rocket.class, SORTS, "name", "%%%", 2));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPage.load(dao, Rocket.class, SORTS, "country", null, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> KeysetPage.load(dao, Rocket.class, SORTS, "name", null, KeysetPage.MAX_SIZE + 1));
+    }
+}
@@ -0,0 +1,162 @@
+package rockets.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportJobsUnitTest {
+    private AtomicLong now;
+    private ReportJobs jobs;
+    private CountDownLatch proceed;
+
+    @BeforeEach
+    public void setUp() {
+        now = new AtomicLong(1_000_000);
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now.get());
+            }
+        };
+        jobs = new ReportJobs(1, 1, 60_000, clock);
+        proceed = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        proceed.countDown();
+        jobs.shutdown();
+    }
+
+    private byte[] blocked(String result) throws InterruptedException {
+        assertTrue(proceed.await(5, TimeUnit.SECONDS));
+        return result.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void awaitStatus(ReportJobs.Job job, ReportJobs.Status status) throws InterruptedException {
+        for (int i = 0; i < 500 && job.getStatus() != status; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, job.getStatus());
+    }
+
+    @Test
+    public void shouldJoinIdenticalQueriesUntilTheyFinish() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        ReportJobs.Job first = jobs.submit("{query=revenue, year=2017}", () -> {
+            runs.incrementAndGet();
+            return blocked("42");
+        });
+        ReportJobs.Job second = jobs.submit("{query=revenue, year=2017}", () -> {
+            runs.incrementAndGet();
+            return blocked("42");
+        });
+        assertSame(first, second);
+
+        proceed.countDown();
+        awaitStatus(first, ReportJobs.Status.DONE);
+        assertEquals("42", new String(first.getResult(), StandardCharsets.UTF_8));
+        assertEquals(1, runs.get());
+        assertSame(first, jobs.get(first.getId()));
+
+        // A finished query is computed afresh
+        ReportJobs.Job third = jobs.submit("{query=revenue, year=2017}", () -> blocked("43"));
+        assertNotSame(first, third);
+        awaitStatus(third, ReportJobs.Status.DONE);
+    }
+
+    @Test
+    public void shouldRejectJobsBeyondTheQueueAndCancelQueuedOnes() throws Exception {
+        ReportJobs.Job running = jobs.submit("a", () -> blocked("a"));
+        awaitStatus(running, ReportJobs.Status.RUNNING);
+        ReportJobs.Job queued = jobs.submit("b", () -> blocked("b"));
+        assertEquals(1, jobs.getQueueDepth());
+        assertThrows(RejectedExecutionException.class, () -> jobs.submit("c", () -> blocked("c")));
+        assertEquals(2, jobs.size());
+
+        // Deleting the queued job makes room for another
+        assertTrue(jobs.delete(queued.getId()));
+        assertEquals(ReportJobs.Status.CANCELLED, queued.getStatus());
+        assertNull(jobs.get(queued.getId()));
+        assertFalse(jobs.delete(queued.getId()));
+        assertEquals(0, jobs.getQueueDepth());
+        ReportJobs.Job next = jobs.submit("c", () -> blocked("c"));
+
+        proceed.countDown();
+        awaitStatus(next, ReportJobs.Status.DONE);
+        assertEquals(ReportJobs.Status.DONE, running.getStatus());
+    }
+
+    @Test
+    public void shouldCancelJoinedJobsOnlyWhenTheLastClientDeletes() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+        ReportJobs.Job job = jobs.submit("a", () -> {
+            try {
+                return blocked("a");
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+        });
+        assertSame(job, jobs.submit("a", () -> blocked("b")));
+        assertEquals(2, job.getClients());
+        awaitStatus(job, ReportJobs.Status.RUNNING);
+
+        assertTrue(jobs.delete(job.getId()));
+        assertEquals(ReportJobs.Status.RUNNING, job.getStatus());
+        assertSame(job, jobs.get(job.getId()));
+
+        // The last client cancels the job without interrupting the worker
+        assertTrue(jobs.delete(job.getId()));
+        assertEquals(ReportJobs.Status.CANCELLED, job.getStatus());
+        assertNull(jobs.get(job.getId()));
+        proceed.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        assertEquals(ReportJobs.Status.CANCELLED, job.getStatus());
+        assertNull(job.getResult());
+    }
+
+    @Test
+    public void shouldKeepFailuresAndExpireFinishedJobs() throws Exception {
+        ReportJobs.Job failed = jobs.submit("a", () -> {
+            throw new IllegalArgumentException("year must be positive");
+        });
+        awaitStatus(failed, ReportJobs.Status.FAILED);
+        assertEquals("year must be positive", failed.getError());
+        assertNull(failed.getResult());
+
+        now.addAndGet(59_999);
+        assertSame(failed, jobs.get(failed.getId()));
+        now.addAndGet(1);
+        assertNull(jobs.get(failed.getId()));
+        assertEquals(0, jobs.size());
+    }
+}
@@ -0,0 +1,148 @@
+package rockets.web;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResponseCompressionUnitTest {
+    private ResponseCompression compression;
+    private Response res;
+    private ByteArrayOutputStream sent;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        compression = new ResponseCompression(64);
+        sent = new ByteArrayOutputStream();
+        HttpServletResponse raw = mock(HttpServletResponse.class);
+        when(raw.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                sent.write(b);
+            }
+        });
+        res = mock(Response.class);
+        when(res.raw()).thenReturn(raw);
+    }
+
+    private static Request request(String acceptEncoding) {
+        Request req = mock(Request.class);
+        when(req.headers("Accept-Encoding")).thenReturn(acceptEncoding);
+        return req;
+    }
+
+    private static byte[] body(int length) {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < length) {
+            body.append("<li>Falcon 9</li>");
+        }
+        return body.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+    }
+
+    @Test
+    public void shouldNegotiateGzipFromAcceptEncoding() {
+        assertTrue(ResponseCompression.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ResponseCompression.acceptsGzip("deflate;q=1.0, GZIP;q=0.5"));
+        assertTrue(ResponseCompression.acceptsGzip("*"));
+        assertFalse(ResponseCompression.acceptsGzip(null));
+        assertFalse(ResponseCompression.acceptsGzip("deflate, br"));
+        assertFalse(ResponseCompression.acceptsGzip("gzip;q=0"));
+        assertFalse(ResponseCompression.acceptsGzip("*, gzip;q=0.0"));
+    }
+
+    @Test
+    public void shouldSendShortBodiesUncompressed() throws IOException {
+        byte[] body = body(63);
+        compression.send(request("gzip"), res, body, null);
+        assertArrayEquals(body, sent.toByteArray());
+        verify(res, never()).header(eq("Content-Encoding"), anyString());
+    }
+
+    @Test
+    public void shouldCompressLongBodiesForClientsThatAcceptGzip() throws IOException {
+        byte[] body = body(4096);
+        compression.send(request("gzip"), res, body, null);
+        assertArrayEquals(body, gunzip(sent.toByteArray()));
+        assertTrue(sent.size() < body.length / 4);
+        verify(res).header("Content-Encoding", "gzip");
+        verify(res).header("Vary", "Accept-Encoding");
+
+        sent.reset();
+        compression.send(request("identity"), res, body, ResponseCompression.gzip(body));
+        assertArrayEquals(body, sent.toByteArray());
+    }
+
+    @Test
+    public void shouldSendPrecompressedBodiesAsTheyAre() throws IOException {
+        PageCache cache = new PageCache(1, compression.getMinSize());
+        PageCache.Page page = cache.put("/rockets", "W/\"1\"", new String(body(4096), StandardCharsets.UTF_8));
+        assertSame(page, cache.get("/rockets", "W/\"1\""));
+        assertNull(cache.get("/rockets", "W/\"2\""));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        compression.send(request("gzip"), res, page.getBody(), page.getGzipped());
+        assertArrayEquals(page.getGzipped(), sent.toByteArray());
+        assertNull(cache.put("/users", "W/\"1\"", "short").getGzipped());
+        assertNull(cache.get("/rockets", "W/\"1\""));
+    }
+
+    @Test
+    public void shouldMeasureRenderedBodiesInBytes() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 31; i++) {
+            body.append('\u00e9');
+        }
+        // 31 chars but 62 bytes, short of the 64-byte minimum
+        assertFalse(compression.reachesMinSize(body.toString()));
+        assertTrue(compression.reachesMinSize(body.append('\u00e9').toString()));
+        assertTrue(compression.reachesMinSize(new String(body(64), StandardCharsets.UTF_8)));
+        assertFalse(compression.reachesMinSize("short"));
+        // Sixteen emoji, each a surrogate pair of four bytes
+        assertTrue(compression.reachesMinSize(new String(new char[16]).replace("\0", "\ud83d\ude80")));
+        assertFalse(compression.reachesMinSize(new String(new char[15]).replace("\0", "\ud83d\ude80")));
+    }
+
+    @Test
+    public void shouldStreamCompressedChunks() throws IOException {
+        byte[] chunk = body(100);
+        try (OutputStream out = compression.open(request("gzip"), res)) {
+            out.write(chunk);
+            out.flush();
+            // A flush pushes out everything written so far
+            assertTrue(sent.size() > 10);
+            out.write(chunk);
+        }
+        byte[] both = new byte[2 * chunk.length];
+        System.arraycopy(chunk, 0, both, 0, chunk.length);
+        System.arraycopy(chunk, 0, both, chunk.length, chunk.length);
+        assertArrayEquals(both, gunzip(sent.toByteArray()));
+    }
+}
@@ -0,0 +1,47 @@
+package rockets.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spark.ModelAndView;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateRendererUnitTest {
+    private TemplateRenderer renderer;
+
+    @BeforeEach
+    public void setUp() {
+        renderer = new TemplateRenderer(false);
+    }
+
+    @Test
+    public void shouldRenderAndTimeEachTemplate() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("q", "falcon");
+        String first = renderer.render(new ModelAndView(attributes, "search.html.ftl"));
+        String second = renderer.render(new ModelAndView(attributes, "search.html.ftl"));
+
+        assertTrue(first.contains("falcon"));
+        assertEquals(first, second);
+        TemplateRenderer.Timing timing = renderer.getTimings().get("search.html.ftl");
+        assertEquals(2, timing.getRenders());
+        assertTrue(timing.getMaxMicros() <= timing.getTotalMicros());
+        assertFalse(renderer.getTimings().containsKey("users.html.ftl"));
+    }
+
+    @Test
+    public void shouldPreloadKnownTemplatesOnly() {
+        renderer.preload("search.html.ftl", "users.html.ftl");
+        assertThrows(UncheckedIOException.class, () -> renderer.preload("missing.html.ftl"));
+    }
+
+    @Test
+    public void shouldRejectModelsTheTemplateCannotRender() {
+        assertThrows(IllegalArgumentException.class,
+                () -> renderer.render(new ModelAndView(new HashMap<>(), "user.html.ftl")));
+    }
+}